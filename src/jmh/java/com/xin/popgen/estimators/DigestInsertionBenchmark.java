@@ -0,0 +1,164 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tdunning.math.stats.ArrayDigest;
+import com.tdunning.math.stats.TDigest;
+
+/**
+ * Class {@code DigestInsertionBenchmark} compares ways of adding the drift variances of all the population pairs
+ * into their digests, one block of 1024 variants per operation:
+ * <ul>
+ *     <li>arraydigest, one ArrayDigest for each population pair, adding one value after another
+ *     in the order of variants, as earlier versions;</li>
+ *     <li>block, a DigestArena adding a batch of the whole block for each population pair,
+ *     one population pair after another;</li>
+ *     <li>staged, a DigestArena with the values of each population pair staged in a {@code DigestBuffer},
+ *     computed in sub-blocks of {@code TDigestPopVarMedianEstimator.BLOCK_SIZE} variants,
+ *     one population pair after another, as compute-var.</li>
+ * </ul>
+ * The digests are kept between operations, so the score includes merging new values with existing centroids.
+ * A population is fixed in a variant with a probability of the parameter fixed,
+ * whose drift variances are skipped as in compute-var,
+ * so that fewer values of each population pair are added for each block.
+ *
+ * Usage: ./gradlew jmh -Pinclude=".*DigestInsertionBenchmark.*"
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DigestInsertionBenchmark {
+
+    @Param({"arraydigest", "block", "staged"})
+    public String method;
+
+    @Param({"30", "100"})
+    public int popNum;
+
+    @Param({"0", "0.3"})
+    public double fixed;
+
+    // the number of variants in a block
+    private static final int SNP_NUM = 1024;
+
+    // the number of alleles of each population in each variant
+    private static final int ALLELE_NUM = 40;
+
+    private int popPairNum;
+    private int[][] popPairs;
+    private int[] counts;
+    private ModelCache cache;
+    private double[] varOmegas;
+    private ArrayDigest[] arrayDigests;
+    private DigestArena arena;
+    private DigestBuffer buffer;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        Random random = new Random(1);
+        popPairNum = popNum * (popNum - 1) / 2;
+        popPairs = new int[popPairNum][];
+        for (int i = 0, k = 0; i < popNum; i++) {
+            for (int j = i + 1; j < popNum; j++) {
+                popPairs[k++] = new int[]{i, j};
+            }
+        }
+        counts = new int[2 * popNum * SNP_NUM];
+        for (int i = 0; i < popNum * SNP_NUM; i++) {
+            int alt = (random.nextDouble() < fixed) ? 0 : 1 + random.nextInt(ALLELE_NUM - 1);
+            counts[2*i] = ALLELE_NUM - alt;
+            counts[2*i+1] = alt;
+        }
+        cache = new ModelCache(new ModelTable(ModelTable.DEFAULT_MAX_COUNT), ModelCache.DEFAULT_CAPACITY);
+        varOmegas = new double[SNP_NUM];
+        arrayDigests = new ArrayDigest[popPairNum];
+        for (int k = 0; k < popPairNum; k++) {
+            arrayDigests[k] = TDigest.createArrayDigest(100);
+        }
+        arena = new DigestArena(popPairNum, DigestArena.DEFAULT_COMPRESSION);
+        buffer = new DigestBuffer(arena, popPairNum, DigestBuffer.DEFAULT_CAPACITY);
+    }
+
+    @Benchmark
+    public DigestArena add() {
+        if (method.equals("arraydigest")) addValues();
+        else if (method.equals("block")) addBlock();
+        else addStaged();
+        return arena;
+    }
+
+    private void addValues() {
+        for (int offset = 0; offset < counts.length; offset += 2 * popNum) {
+            for (int k = 0; k < popPairNum; k++) {
+                double varOmega = calVarOmega(offset, k);
+                if (!Double.isNaN(varOmega)) arrayDigests[k].add(varOmega);
+            }
+        }
+    }
+
+    private void addBlock() {
+        for (int k = 0; k < popPairNum; k++) {
+            int size = 0;
+            for (int offset = 0; offset < counts.length; offset += 2 * popNum) {
+                double varOmega = calVarOmega(offset, k);
+                if (!Double.isNaN(varOmega)) varOmegas[size++] = varOmega;
+            }
+            arena.add(k, varOmegas, 0, size);
+        }
+    }
+
+    private void addStaged() {
+        int stride = 2 * popNum;
+        for (int start = 0; start < counts.length; start += TDigestPopVarMedianEstimator.BLOCK_SIZE * stride) {
+            int end = Math.min(counts.length, start + TDigestPopVarMedianEstimator.BLOCK_SIZE * stride);
+            for (int k = 0; k < popPairNum; k++) {
+                for (int offset = start; offset < end; offset += stride) {
+                    double varOmega = calVarOmega(offset, k);
+                    if (!Double.isNaN(varOmega)) buffer.add(k, varOmega);
+                }
+            }
+        }
+    }
+
+    private double calVarOmega(int offset, int k) {
+        int m = offset + 2 * popPairs[k][0];
+        int n = offset + 2 * popPairs[k][1];
+        if ((counts[m] * counts[m+1] == 0) || (counts[n] * counts[n+1] == 0)) return Double.NaN;
+        return cache.calVarOmega(counts[m], counts[m+1], counts[n], counts[n+1]);
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tdunning.math.stats.ArrayDigest;
+import com.tdunning.math.stats.TDigest;
+
+/**
+ * Class {@code MedianSketchBenchmark} compares the sketches of --median-method tdigest and histogram,
+ * as well as the ArrayDigest of t-digest 3.1 used by earlier versions,
+ * as appendix/programs/TDigestTest.java, but with drift variances of random allele counts instead of uniform numbers.
+ * The values of the sketches of --median-method tdigest are added in batches of the capacity of a {@code DigestBuffer}.
+ * The score is the time of adding the values of a population pair and estimating their median,
+ * and the errors of the medians against the exact medians and the memory usage of a sketch
+ * are printed after the iterations.
+ *
+ * Usage: ./gradlew jmh -Pinclude=".*MedianSketchBenchmark.*"
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MedianSketchBenchmark {
+
+    @Param({"arraydigest", "tdigest", "histogram"})
+    public String method;
+
+    @Param({"1000", "100000"})
+    public int valueNum;
+
+    // the drift variances of 64 population pairs
+    private static final int PAIR_NUM = 64;
+
+    private double[][] values;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(1);
+        ModelTable table = new ModelTable(ModelTable.DEFAULT_MAX_COUNT);
+        values = new double[PAIR_NUM][valueNum];
+        for (int i = 0; i < PAIR_NUM; i++) {
+            // the sample sizes of the two populations and the difference of their allele frequencies
+            int countA = 20 + random.nextInt(400);
+            int countB = 20 + random.nextInt(400);
+            double drift = 0.05 + 0.2 * random.nextDouble();
+            for (int j = 0; j < valueNum; j++) {
+                double freqA = 0.02 + 0.96 * random.nextDouble();
+                double freqB = Math.min(0.99, Math.max(0.01, freqA + drift * random.nextGaussian()));
+                int altA = Math.max(1, Math.min(countA - 1, (int) Math.round(freqA * countA)));
+                int altB = Math.max(1, Math.min(countB - 1, (int) Math.round(freqB * countB)));
+                values[i][j] = table.calVarOmega(countA - altA, altA, countB - altB, altB);
+            }
+        }
+    }
+
+    @Benchmark
+    public double median() {
+        double[] pairValues = values[next];
+        next = (next + 1) % PAIR_NUM;
+        return median(pairValues);
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        double maxError = 0;
+        double sumError = 0;
+        for (double[] pairValues:values) {
+            double[] sorted = pairValues.clone();
+            Arrays.sort(sorted);
+            double exact = (sorted[(valueNum - 1) / 2] + sorted[valueNum / 2]) / 2;
+            double error = Math.abs(median(pairValues) - exact) / Math.abs(exact);
+            maxError = Math.max(maxError, error);
+            sumError += error;
+        }
+
+        // the memory usage of 16 sketches of each population pair
+        // the digests of --median-method tdigest are stored in one arena
+        Object[] sketches = new Object[16 * PAIR_NUM];
+        long before = usedMemory();
+        if (method.equals("tdigest")) {
+            DigestArena arena = new DigestArena(sketches.length, DigestArena.DEFAULT_COMPRESSION);
+            for (int i = 0; i < sketches.length; i++) {
+                arena.add(i, values[i % PAIR_NUM].clone(), 0, valueNum);
+            }
+            sketches[0] = arena;
+        }
+        else {
+            for (int i = 0; i < sketches.length; i++) {
+                sketches[i] = sketch(values[i % PAIR_NUM]);
+            }
+        }
+        long bytes = usedMemory() - before;
+        System.out.printf("%n%s with %d values: relative errors of medians, mean %.6f, max %.6f; %d bytes per pair%n",
+                method, valueNum, sumError / PAIR_NUM, maxError, bytes / sketches.length);
+    }
+
+    private double median(double[] pairValues) {
+        Object sketch = sketch(pairValues);
+        if (sketch instanceof LogHistogram) return ((LogHistogram) sketch).median();
+        if (sketch instanceof DigestArena) return ((DigestArena) sketch).quantile(0, 0.5d);
+        return ((ArrayDigest) sketch).quantile(0.5d);
+    }
+
+    private Object sketch(double[] pairValues) {
+        if (method.equals("histogram")) {
+            LogHistogram histogram = new LogHistogram(LogHistogram.DEFAULT_ACCURACY);
+            for (double value:pairValues) {
+                histogram.add(value);
+            }
+            return histogram;
+        }
+        if (method.equals("tdigest")) {
+            DigestArena arena = new DigestArena(1, DigestArena.DEFAULT_COMPRESSION);
+            double[] block = new double[DigestBuffer.DEFAULT_CAPACITY];
+            for (int i = 0; i < pairValues.length; i += block.length) {
+                int length = Math.min(block.length, pairValues.length - i);
+                System.arraycopy(pairValues, i, block, 0, length);
+                arena.add(0, block, 0, length);
+            }
+            return arena;
+        }
+        ArrayDigest digest = TDigest.createArrayDigest(100);
+        for (double value:pairValues) {
+            digest.add(value);
+        }
+        return digest;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
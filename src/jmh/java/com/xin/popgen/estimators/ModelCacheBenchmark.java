@@ -0,0 +1,101 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Class {@code ModelCacheBenchmark} compares calculating the drift variances of population pairs
+ * with {@code Model}, with {@code ModelTable} and with {@code ModelCache}.
+ * The counts of each population add up to maxCount as without missing genotypes,
+ * so the counts of population pairs repeat if maxCount is small.
+ *
+ * Usage: ./gradlew jmh -Pinclude=".*ModelCacheBenchmark.*"
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ModelCacheBenchmark {
+
+    @Param({"20", "200", "2000"})
+    public int maxCount;
+
+    // the allele counts of 4096 population pairs
+    private static final int PAIR_NUM = 4096;
+
+    private int[] alleleCounts;
+    private ModelTable table;
+    private ModelCache cache;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(1);
+        alleleCounts = new int[4 * PAIR_NUM];
+        for (int i = 0; i < alleleCounts.length; i += 2) {
+            alleleCounts[i] = random.nextInt(maxCount + 1);
+            alleleCounts[i+1] = maxCount - alleleCounts[i];
+        }
+        table = new ModelTable(maxCount);
+        cache = new ModelCache(table, ModelCache.DEFAULT_CAPACITY);
+    }
+
+    @Benchmark
+    public double model() {
+        double sum = 0;
+        for (int i = 0; i < 4 * PAIR_NUM; i += 4) {
+            sum += Model.calVarOmega(alleleCounts[i], alleleCounts[i+1], alleleCounts[i+2], alleleCounts[i+3]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double modelTable() {
+        double sum = 0;
+        for (int i = 0; i < 4 * PAIR_NUM; i += 4) {
+            sum += table.calVarOmega(alleleCounts[i], alleleCounts[i+1], alleleCounts[i+2], alleleCounts[i+3]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double modelCache() {
+        double sum = 0;
+        for (int i = 0; i < 4 * PAIR_NUM; i += 4) {
+            sum += cache.calVarOmega(alleleCounts[i], alleleCounts[i+1], alleleCounts[i+2], alleleCounts[i+3]);
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Class {@code ModelTableBenchmark} compares calculating the logarithm of Odds ratio and its variance
+ * of random allele counts with {@code Model} and with {@code ModelTable},
+ * and rounding with {@code Math.round} through a boxed NaN check and with {@code Model.round}.
+ *
+ * Usage: ./gradlew jmh -Pinclude=".*ModelTableBenchmark.*"
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ModelTableBenchmark {
+
+    @Param({"200"})
+    public int maxCount;
+
+    // the allele counts of 1024 population pairs
+    private static final int PAIR_NUM = 1024;
+
+    private int[] alleleCounts;
+    private double[] values;
+    private ModelTable table;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(1);
+        alleleCounts = new int[4 * PAIR_NUM];
+        for (int i = 0; i < alleleCounts.length; i++) {
+            alleleCounts[i] = random.nextInt(maxCount);
+        }
+        values = new double[PAIR_NUM];
+        for (int i = 0; i < PAIR_NUM; i++) {
+            values[i] = (random.nextDouble() - 0.5) * 10;
+        }
+        table = new ModelTable(maxCount);
+    }
+
+    @Benchmark
+    public double model() {
+        double sum = 0;
+        for (int i = 0; i < 4 * PAIR_NUM; i += 4) {
+            sum += Model.calLogOdds(alleleCounts[i], alleleCounts[i+1], alleleCounts[i+2], alleleCounts[i+3])
+                    + Model.calVarLogOdds(alleleCounts[i], alleleCounts[i+1], alleleCounts[i+2], alleleCounts[i+3]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double modelTable() {
+        double sum = 0;
+        for (int i = 0; i < 4 * PAIR_NUM; i += 4) {
+            sum += table.calLogOdds(alleleCounts[i], alleleCounts[i+1], alleleCounts[i+2], alleleCounts[i+3])
+                    + table.calVarLogOdds(alleleCounts[i], alleleCounts[i+1], alleleCounts[i+2], alleleCounts[i+3]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double boxedRound() {
+        double sum = 0;
+        for (double value:values) {
+            sum += (new Double(value).equals(Double.NaN)) ? value : (Math.round(value * 1000000d) / 1000000d);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double round() {
+        double sum = 0;
+        for (double value:values) {
+            sum += Model.round(value);
+        }
+        return sum;
+    }
+
+}
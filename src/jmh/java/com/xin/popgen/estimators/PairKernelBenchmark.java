@@ -0,0 +1,144 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Class {@code PairKernelBenchmark} compares estimating selection differences of all the population pairs
+ * with {@code Model} for each pair, with one {@code PairKernel} reused for all the variants,
+ * and with a new {@code PairKernel} for each batch of {@code BatchPipeline}.
+ *
+ * Usage: ./gradlew jmh -Pinclude=".*PairKernelBenchmark.*"
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PairKernelBenchmark {
+
+    @Param({"50"})
+    public int popNum;
+
+    @Param({"200"})
+    public int maxCount;
+
+    // the allele counts of 64 variants
+    private static final int SNP_NUM = 64;
+
+    private int popPairNum;
+    private int[] alleleCounts;
+    private Double[] popVars;
+    private Integer[] times;
+    private double[] primitivePopVars;
+    private double[] primitiveTimes;
+    private ModelTable table;
+    private PairKernel kernel;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(1);
+        popPairNum = popNum * (popNum - 1) / 2;
+        alleleCounts = new int[2 * popNum * SNP_NUM];
+        for (int i = 0; i < alleleCounts.length; i++) {
+            alleleCounts[i] = random.nextInt(maxCount);
+        }
+        popVars = new Double[popPairNum];
+        times = new Integer[popPairNum];
+        primitivePopVars = new double[popPairNum];
+        primitiveTimes = new double[popPairNum];
+        for (int k = 0; k < popPairNum; k++) {
+            popVars[k] = random.nextDouble() * 2;
+            times[k] = 1000 + random.nextInt(9000);
+            primitivePopVars[k] = popVars[k];
+            primitiveTimes[k] = times[k];
+        }
+        table = new ModelTable(maxCount);
+        kernel = new PairKernel(popNum, primitivePopVars, primitiveTimes, table);
+    }
+
+    @Benchmark
+    public double model() {
+        double sum = 0;
+        for (int s = 0; s < SNP_NUM; s++) {
+            int offset = 2 * popNum * s;
+            for (int m = 0; m < popNum; m++) {
+                int refM = alleleCounts[offset+2*m];
+                int altM = alleleCounts[offset+2*m+1];
+                for (int n = m + 1; n < popNum; n++) {
+                    int refN = alleleCounts[offset+2*n];
+                    int altN = alleleCounts[offset+2*n+1];
+                    int k = m*popNum - (m+2)*(m+1)/2 + n;
+                    double popVar = popVars[k];
+                    double time = times[k];
+                    double logOdds = Model.calLogOdds(refM, altM, refN, altN);
+                    double varLogOdds = Model.calVarLogOdds(refM, altM, refN, altN);
+                    double diff = logOdds / time;
+                    double std = Math.sqrt(varLogOdds + popVar) / time;
+                    sum += diff + std + logOdds * logOdds / (varLogOdds + popVar);
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double pairKernel() {
+        double sum = 0;
+        for (int s = 0; s < SNP_NUM; s++) {
+            kernel.compute(alleleCounts, 2 * popNum * s);
+            for (int k = 0; k < popPairNum; k++) {
+                sum += kernel.diffs[k] + kernel.stds[k] + kernel.deltas[k];
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double pairKernelPerBatch() {
+        // a batch of BatchPipeline has BATCH_LINES / popPairNum variants
+        int batchSize = Math.max(1, BatchPipeline.BATCH_LINES / popPairNum);
+        double sum = 0;
+        PairKernel batchKernel = null;
+        for (int s = 0; s < SNP_NUM; s++) {
+            if (s % batchSize == 0) batchKernel = new PairKernel(popNum, primitivePopVars, primitiveTimes, table);
+            batchKernel.compute(alleleCounts, 2 * popNum * s);
+            for (int k = 0; k < popPairNum; k++) {
+                sum += batchKernel.diffs[k] + batchKernel.stds[k] + batchKernel.deltas[k];
+            }
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Class {@code GenoInfoBenchmark} compares reading an uncompressed EIGENSTRAT .geno file
+ * with {@code GenoInfo} and {@code MappedGenoInfo}.
+ *
+ * Usage: ./gradlew jmh -Pinclude=".*GenoInfoBenchmark.*"
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GenoInfoBenchmark {
+
+    @Param({"100000"})
+    public int indNum;
+
+    @Param({"200"})
+    public int snpNum;
+
+    @Param({"20"})
+    public int popNum;
+
+    private File genoFile;
+    private File indFile;
+    private File snpFile;
+    private IndInfo indInfo;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Random random = new Random(1);
+        genoFile = File.createTempFile("selediff", ".geno");
+        indFile = File.createTempFile("selediff", ".ind");
+        snpFile = File.createTempFile("selediff", ".snp");
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(indFile))) {
+            for (int i = 0; i < indNum; i++) {
+                bw.write("ind" + i + "\tU\tpop" + (i * popNum / indNum));
+                bw.newLine();
+            }
+        }
+        char[] codes = {'0', '1', '2', '9'};
+        char[] row = new char[indNum];
+        try (BufferedWriter geno = new BufferedWriter(new FileWriter(genoFile));
+             BufferedWriter snp = new BufferedWriter(new FileWriter(snpFile))) {
+            for (int j = 0; j < snpNum; j++) {
+                for (int i = 0; i < indNum; i++) {
+                    row[i] = codes[random.nextInt(codes.length)];
+                }
+                geno.write(row);
+                geno.newLine();
+                snp.write("rs" + j + "\t1\t0.0\t" + (j + 1) + "\tA\tG");
+                snp.newLine();
+            }
+        }
+        indInfo = new IndInfo(indFile.getPath());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        genoFile.delete();
+        indFile.delete();
+        snpFile.delete();
+    }
+
+    @Benchmark
+    public long genoInfo() {
+        GenoInfo info = new GenoInfo(genoFile.getPath(), indInfo, indInfo.getPopInfo(), snpFile.getPath());
+        long sum = 0;
+        int[][] alleleCounts;
+        while ((alleleCounts = info.countAlleles()) != null) {
+            sum += alleleCounts[0][0];
+        }
+        info.close();
+        return sum;
+    }
+
+    @Benchmark
+    public long mappedGenoInfo() {
+        MappedGenoInfo info = new MappedGenoInfo(genoFile.getPath(), indInfo, indInfo.getPopInfo(), snpFile.getPath());
+        long sum = 0;
+        int[] alleleCounts = new int[2 * indInfo.getPopInfo().getPopNum()];
+        while (info.countAlleles(alleleCounts)) {
+            sum += alleleCounts[0];
+        }
+        info.close();
+        return sum;
+    }
+
+}
@@ -0,0 +1,190 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import com.xin.popgen.infos.CountInfo;
+
+/**
+ * Class {@code BatchPipeline} analyzes variants in three stages:
+ * a reader thread reads batches of variants, a pool of workers analyzes the batches,
+ * and the calling thread writes the results of the batches in the order of the input.
+ * With one thread, the batches are read, analyzed and written one by one in the calling thread.
+ * The number of batches is bounded, so the memory usage does not depend on the size of the input.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+final class BatchPipeline {
+
+    // the number of output lines in a batch
+    static final int BATCH_LINES = 16 * 1024;
+
+    // the maximum number of variants in a batch
+    static final int MAX_BATCH_SIZE = 4096;
+
+    /**
+     * An interface for writing the results of a batch.
+     */
+    interface Writer {
+        void write(VariantBatch batch) throws IOException;
+    }
+
+    // a CountInfo instance provides allele counts and SNP information
+    private final CountInfo genoInfo;
+
+    // an integer stores how many populations in the sample
+    private final int popNum;
+
+    // an integer stores how many variants in a batch
+    private final int batchSize;
+
+    // an integer stores how many threads analyze the batches
+    private final int threads;
+
+    // a long integer stores how many variants have been read
+    private long snpNum = 0;
+
+    /**
+     * Constructor of {@code BatchPipeline}.
+     *
+     * @param genoInfo a CountInfo instance providing allele counts and SNP information
+     * @param popNum the number of populations
+     * @param linesPerSnp the number of output lines of each variant
+     * @param threads the number of threads analyzing the batches
+     */
+    BatchPipeline(CountInfo genoInfo, int popNum, int linesPerSnp, int threads) {
+        this.genoInfo = genoInfo;
+        this.popNum = popNum;
+        this.batchSize = Math.max(1, Math.min(MAX_BATCH_SIZE, BATCH_LINES / Math.max(1, linesPerSnp)));
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Returns how many variants have been read.
+     *
+     * @return the number of variants
+     */
+    long getSnpNum() { return snpNum; }
+
+    /**
+     * Reads all the variants, analyzes them and writes the results in the order of the input.
+     *
+     * @param worker a function analyzing a batch, which may be called by several threads at the same time
+     * @param writer a Writer instance writing the results of a batch
+     * @throws IOException
+     */
+    void run(Consumer<VariantBatch> worker, Writer writer) throws IOException {
+        if (threads == 1) {
+            VariantBatch batch = new VariantBatch(popNum, batchSize);
+            int[] alleleCounts = new int[2*popNum];
+            while (batch.read(genoInfo, alleleCounts)) {
+                batch.first = snpNum;
+                snpNum += batch.size;
+                worker.accept(batch);
+                writer.write(batch);
+            }
+            return;
+        }
+
+        // batches in flight: analyzed by the workers, waiting for the writer, or free for the reader
+        int batchNum = 2 * threads + 2;
+        BlockingQueue<VariantBatch> free = new ArrayBlockingQueue<>(batchNum);
+        for (int i = 0; i < batchNum; i++) {
+            free.add(new VariantBatch(popNum, batchSize));
+        }
+        // results in the order of the input, a null batch indicates the end of the input
+        BlockingQueue<Future<VariantBatch>> results = new ArrayBlockingQueue<>(batchNum + 1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "seleDiff-worker");
+            t.setDaemon(true);
+            return t;
+        });
+
+        Thread reader = new Thread(() -> {
+            try {
+                int[] alleleCounts = new int[2*popNum];
+                while (true) {
+                    VariantBatch batch = free.take();
+                    if (!batch.read(genoInfo, alleleCounts)) break;
+                    batch.first = snpNum;
+                    snpNum += batch.size;
+                    results.put(pool.submit(() -> {
+                        worker.accept(batch);
+                        return batch;
+                    }));
+                }
+                results.put(CompletableFuture.completedFuture(null));
+            } catch (InterruptedException e) {
+                // the writer has stopped
+            } catch (Throwable e) {
+                CompletableFuture<VariantBatch> failure = new CompletableFuture<>();
+                failure.completeExceptionally(e);
+                results.offer(failure);
+            }
+        }, "seleDiff-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        try {
+            while (true) {
+                VariantBatch batch = get(results.take());
+                if (batch == null) break;
+                writer.write(batch);
+                free.put(batch);
+            }
+            reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while analyzing variants.", e);
+        } finally {
+            reader.interrupt();
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits for the result of a task, and throws the exception of the task if it failed.
+     *
+     * @param future a Future instance of the task
+     * @param <T> the type of the result
+     * @return the result of the task
+     * @throws IOException
+     */
+    static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while analyzing variants.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import java.io.IOException;
+
+import com.xin.popgen.infos.CacheInfo;
+import com.xin.popgen.infos.CountInfo;
+import com.xin.popgen.infos.IndInfo;
+import com.xin.popgen.infos.PopInfo;
+import com.xin.popgen.infos.RegionInfo;
+
+/**
+ * Class {@code CacheConverter} writes allele counts of populations into a binary allele count cache,
+ * so that the genotypes are only parsed once for compute-var and compute-diff.
+ * The input is opened in the same way as {@code Estimator}.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+public final class CacheConverter {
+
+    // a CountInfo instance reads the allele counts of the input
+    final CountInfo genoInfo;
+
+    // a PopInfo instance stores population information
+    private final PopInfo popInfo;
+
+    // a String stores the name of the cache
+    private final String outputFileName;
+
+    /**
+     * Constructor of class {@code CacheConverter}.
+     *
+     * @param indFileName an EIGENSTRAT .ind file name
+     * @param snpFileName an EIGENSTRAT .snp file name
+     * @param regionInfo a RegionInfo instance storing the regions, or null for all the SNPs
+     */
+    CacheConverter(String genoFileName, String indFileName, String snpFileName, String outputFileName, char format,
+                   RegionInfo regionInfo) {
+        IndInfo sampleInfo = Estimator.openSampleInfo(genoFileName, indFileName, format);
+        this.genoInfo = Estimator.openGenoInfo(genoFileName, sampleInfo, snpFileName, format, regionInfo);
+        this.popInfo = (sampleInfo == null) ? genoInfo.getPopInfo() : sampleInfo.getPopInfo();
+        this.outputFileName = outputFileName;
+    }
+
+    /**
+     * Writes the allele counts of the input into the cache.
+     */
+    public void convert() {
+        try {
+            long snpNum = CacheInfo.write(genoInfo, popInfo, outputFileName);
+            System.out.println(snpNum + " variants are written into " + outputFileName);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            genoInfo.close();
+        }
+    }
+
+}
@@ -15,47 +15,81 @@
 */
 package com.xin.popgen.estimators;
 
-import java.util.HashMap;
-
-import org.apache.commons.math3.distribution.ChiSquaredDistribution;
+import org.apache.commons.math3.special.Erf;
 
 /**
- * Class {@code ChiSquareTable} computes p-values corresponding
- * to a chi-squared statistic in order to speed up SeleDiff.
+ * Class {@code ChiSquareTable} computes p-values of chi-squared statistics with one degree of freedom
+ * in order to speed up SeleDiff.
+ * The p-value of a statistic x is erfc(sqrt(x/2)), which is smooth in s = sqrt(x),
+ * so p-values and their derivatives are tabulated on a grid of s and interpolated with cubic Hermite splines,
+ * which are accurate to about 1e-14.
+ * For statistics larger than {@link #MAX_STATISTIC}, p-values are computed from a continued fraction of erfc.
  *
  * @author Xin Huang {@code <xin.huang07@gmail.com>}
  */
 public class ChiSquareTable {
 
-	// a HashMap stores chi-squared statistics and corresponding p-values
-	// key: a chi-squared statistic
-	// value: a p-value
-	private final HashMap<String, String> pvalues;
+	// the largest statistic whose p-value is interpolated from the table
+	static final double MAX_STATISTIC = 30;
+
+	// the number of grid points per unit of sqrt(statistic)
+	private static final int STEPS = 512;
+
+	// the depth of the continued fraction of erfc
+	private static final int DEPTH = 40;
+
+	private static final double SQRT_PI = Math.sqrt(Math.PI);
+
+	// p-values at the grid points and their derivatives multiplied by the grid spacing
+	private final double[] pvalues;
+	private final double[] slopes;
 
 	/**
 	 * Constructor of {@code ChiSquareTable}.
 	 */
 	ChiSquareTable() {
-		ChiSquaredDistribution chisq = new ChiSquaredDistribution(1);
-		this.pvalues = new HashMap<>();
-		double i = 0;
-		while (i < 30) {
-			pvalues.put(String.format("%.3f", i), 
-					String.format("%.6f", 1-chisq.cumulativeProbability(i)));
-			i += 0.001;
+		int size = (int) Math.ceil(Math.sqrt(MAX_STATISTIC) * STEPS) + 2;
+		this.pvalues = new double[size];
+		this.slopes = new double[size];
+		for (int i = 0; i < size; i++) {
+			double s = (double) i / STEPS;
+			pvalues[i] = Erf.erfc(s / Math.sqrt(2));
+			slopes[i] = -Math.sqrt(2 / Math.PI) * Math.exp(-s * s / 2) / STEPS;
 		}
 	}
 
 	/**
 	 * Returns a p-value corresponding to a chi-squared statistic.
 	 *
-	 * @param num a chi-squared statistic
+	 * @param statistic a chi-squared statistic
 	 * @return the p-value corresponding to the chi-squared statistic
 	 */
-	String getPvalue(String num) {
-		if (Double.parseDouble(num) >= 30) return "0.000000";
-		else 
-			return pvalues.get(num);
+	double getPvalue(double statistic) {
+		if (statistic != statistic) return statistic;
+		if (statistic <= 0) return 1;
+		if (statistic >= MAX_STATISTIC) return erfcTail(Math.sqrt(statistic / 2));
+		double s = Math.sqrt(statistic) * STEPS;
+		int i = (int) s;
+		double t = s - i;
+		double t2 = t * t;
+		double t3 = t2 * t;
+		return (2 * t3 - 3 * t2 + 1) * pvalues[i] + (t3 - 2 * t2 + t) * slopes[i]
+				+ (3 * t2 - 2 * t3) * pvalues[i+1] + (t3 - t2) * slopes[i+1];
+	}
+
+	/**
+	 * Helper function for computing erfc(z) of a large z with a continued fraction.
+	 *
+	 * @param z a value larger than sqrt(MAX_STATISTIC / 2)
+	 * @return erfc(z)
+	 */
+	static double erfcTail(double z) {
+		// erfc(z) = exp(-z^2) / sqrt(pi) / (z + (1/2) / (z + 1 / (z + (3/2) / (z + ...))))
+		double f = z;
+		for (int k = DEPTH; k > 0; k--) {
+			f = z + k / 2d / f;
+		}
+		return Math.exp(-z * z) / SQRT_PI / f;
 	}
 
 }
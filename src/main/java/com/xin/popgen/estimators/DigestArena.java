@@ -0,0 +1,300 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import java.util.Arrays;
+
+/**
+ * Class {@code DigestArena} stores the t-digests of many population pairs in flat primitive arrays.
+ * Each digest is a merging t-digest (Dunning and Ertl, 2019) with a scale function finest at the median.
+ * Two adjacent centroids span more than one unit of the scale function, which spans compression units,
+ * so a digest has fewer than 2 * compression centroids, and the centroids of the i-th digest are stored
+ * in a fixed slot from i * capacity to (i + 1) * capacity - 1 of two double arrays.
+ * Hence, the memory usage is known in advance and grows linearly with the number of digests,
+ * and no object is created for each digest or centroid.
+ * Values are added in batches: a batch is sorted and merged with the centroids in one sweep,
+ * which amortizes the cost of the merge over the values of the batch.
+ * An arena is not thread-safe, so each thread should use its own arena.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+final class DigestArena {
+
+    // the default compression of the digests
+    static final double DEFAULT_COMPRESSION = 100;
+
+    // an integer stores how many digests in the arena
+    private final int digestNum;
+
+    // the compression of the digests
+    private final double compression;
+
+    // the maximum number of centroids of a digest
+    private final int capacity;
+
+    // the means and the weights of the centroids of all the digests
+    private final double[] means;
+    private final double[] weights;
+
+    // the number of centroids, the total weight, and the minimum and maximum values of each digest
+    private final int[] sizes;
+    private final double[] totals;
+    private final double[] mins;
+    private final double[] maxs;
+
+    // the centroids and the new values of a digest merged in order, reused by each merge
+    private double[] mergedMeans = new double[0];
+    private double[] mergedWeights = new double[0];
+
+    /**
+     * Constructor of {@code DigestArena}.
+     *
+     * @param digestNum the number of digests
+     * @param compression the compression of the digests
+     */
+    DigestArena(int digestNum, double compression) {
+        this.digestNum = digestNum;
+        this.compression = compression;
+        this.capacity = capacity(compression);
+        this.means = new double[digestNum * capacity];
+        this.weights = new double[digestNum * capacity];
+        this.sizes = new int[digestNum];
+        this.totals = new double[digestNum];
+        this.mins = new double[digestNum];
+        this.maxs = new double[digestNum];
+        Arrays.fill(mins, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxs, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Returns how many bytes the arrays of an arena use.
+     *
+     * @param digestNum the number of digests
+     * @param compression the compression of the digests
+     * @return the number of bytes
+     */
+    static long byteSize(int digestNum, double compression) {
+        return (long) digestNum * (16L * capacity(compression) + 4 + 3 * 8);
+    }
+
+    /**
+     * Helper function for the maximum number of centroids of a digest.
+     *
+     * @param compression the compression of the digests
+     * @return the number of centroids
+     */
+    private static int capacity(double compression) {
+        return 2 * (int) Math.ceil(compression) + 2;
+    }
+
+    /**
+     * Adds a batch of values into a digest.
+     * The values in the batch are sorted in place.
+     *
+     * @param digest the index of the digest
+     * @param values a double array storing the batch
+     * @param from the index of the first value of the batch
+     * @param to the index after the last value of the batch
+     */
+    void add(int digest, double[] values, int from, int to) {
+        if (from >= to) return;
+        Arrays.sort(values, from, to);
+        int size = sizes[digest];
+        ensureMergeCapacity(size + to - from);
+        // merge the centroids and the values of weight 1 in the order of means
+        int start = digest * capacity;
+        int i = start;
+        int j = from;
+        int n = 0;
+        while ((i < start + size) || (j < to)) {
+            if ((j == to) || ((i < start + size) && (means[i] <= values[j]))) {
+                mergedMeans[n] = means[i];
+                mergedWeights[n++] = weights[i++];
+            }
+            else {
+                mergedMeans[n] = values[j++];
+                mergedWeights[n++] = 1;
+            }
+        }
+        totals[digest] += to - from;
+        mins[digest] = Math.min(mins[digest], values[from]);
+        maxs[digest] = Math.max(maxs[digest], values[to - 1]);
+        compress(digest, n);
+    }
+
+    /**
+     * Adds the digests of another arena into the digests of this arena.
+     *
+     * @param other a DigestArena instance with the same number of digests
+     */
+    void add(DigestArena other) {
+        if (other.digestNum != digestNum)
+            throw new IllegalArgumentException("Cannot add an arena with a different number of digests.");
+        for (int digest = 0; digest < digestNum; digest++) {
+            int size = sizes[digest];
+            int otherSize = other.sizes[digest];
+            if (otherSize == 0) continue;
+            ensureMergeCapacity(size + otherSize);
+            int start = digest * capacity;
+            int otherStart = digest * other.capacity;
+            int i = start;
+            int j = otherStart;
+            int n = 0;
+            while ((i < start + size) || (j < otherStart + otherSize)) {
+                if ((j == otherStart + otherSize) || ((i < start + size) && (means[i] <= other.means[j]))) {
+                    mergedMeans[n] = means[i];
+                    mergedWeights[n++] = weights[i++];
+                }
+                else {
+                    mergedMeans[n] = other.means[j];
+                    mergedWeights[n++] = other.weights[j++];
+                }
+            }
+            totals[digest] += other.totals[digest];
+            mins[digest] = Math.min(mins[digest], other.mins[digest]);
+            maxs[digest] = Math.max(maxs[digest], other.maxs[digest]);
+            compress(digest, n);
+        }
+    }
+
+    /**
+     * Estimates a quantile of a digest by interpolating between the centroids.
+     *
+     * @param digest the index of the digest
+     * @param q a quantile between 0 and 1
+     * @return the estimated value of the quantile, or NaN if no value is added
+     */
+    double quantile(int digest, double q) {
+        int size = sizes[digest];
+        if (size == 0) return Double.NaN;
+        int start = digest * capacity;
+        if (size == 1) return means[start];
+        double total = totals[digest];
+        double index = q * total;
+        if (index >= total) return maxs[digest];
+        // the minimum and the maximum bound the first and the last half centroids
+        if (index < weights[start] / 2)
+            return mins[digest] + (means[start] - mins[digest]) * index / (weights[start] / 2);
+        double weightSoFar = weights[start] / 2;
+        for (int i = start; i < start + size - 1; i++) {
+            double dw = (weights[i] + weights[i+1]) / 2;
+            if (weightSoFar + dw > index) {
+                double z1 = index - weightSoFar;
+                double z2 = weightSoFar + dw - index;
+                return (means[i] * z2 + means[i+1] * z1) / dw;
+            }
+            weightSoFar += dw;
+        }
+        int last = start + size - 1;
+        double z = Math.min(1, (index - weightSoFar) / (weights[last] / 2));
+        return means[last] + (maxs[digest] - means[last]) * z;
+    }
+
+    /**
+     * Estimates the rank error of a quantile of a digest as the fraction of the values
+     * in the centroid containing the quantile, whose values can only be located by interpolation.
+     *
+     * @param digest the index of the digest
+     * @param q a quantile between 0 and 1
+     * @return the rank error as a fraction of all the values, or NaN if no value is added
+     */
+    double rankError(int digest, double q) {
+        int size = sizes[digest];
+        if (size == 0) return Double.NaN;
+        int start = digest * capacity;
+        double total = totals[digest];
+        double index = q * total;
+        double weightSoFar = 0;
+        for (int i = start; i < start + size - 1; i++) {
+            if (weightSoFar + weights[i] > index) return weights[i] / total;
+            weightSoFar += weights[i];
+        }
+        return weights[start + size - 1] / total;
+    }
+
+    /**
+     * Returns how many values are added into a digest.
+     *
+     * @param digest the index of the digest
+     * @return the number of values
+     */
+    long size(int digest) {
+        return (long) totals[digest];
+    }
+
+    /**
+     * Helper function for merging adjacent centroids in mergedMeans and mergedWeights
+     * as long as a centroid spans at most one unit of the scale function,
+     * and storing the merged centroids in the slot of a digest.
+     *
+     * @param digest the index of the digest
+     * @param n the number of centroids in mergedMeans and mergedWeights
+     */
+    private void compress(int digest, int n) {
+        double total = totals[digest];
+        int start = digest * capacity;
+        int size = 0;
+        double weightSoFar = 0;
+        double mean = mergedMeans[0];
+        double weight = mergedWeights[0];
+        double kLeft = scale(0);
+        for (int i = 1; i < n; i++) {
+            double proposed = weight + mergedWeights[i];
+            double kRight = scale((weightSoFar + proposed) / total);
+            // the last centroid of a full slot takes the rest
+            if ((kRight - kLeft <= 1) || (size == capacity - 1)) {
+                mean += (mergedMeans[i] - mean) * mergedWeights[i] / proposed;
+                weight = proposed;
+            }
+            else {
+                means[start + size] = mean;
+                weights[start + size++] = weight;
+                weightSoFar += weight;
+                kLeft = scale(weightSoFar / total);
+                mean = mergedMeans[i];
+                weight = mergedWeights[i];
+            }
+        }
+        means[start + size] = mean;
+        weights[start + size++] = weight;
+        sizes[digest] = size;
+    }
+
+    /**
+     * Helper function for the scale function, which maps quantiles from 0 to 1
+     * into -compression / 2 to compression / 2.
+     *
+     * @param q a quantile
+     * @return the scale of the quantile
+     */
+    private double scale(double q) {
+        double u = 2 * Math.min(1, q) - 1;
+        return compression / 2 * Math.signum(u) * Math.sqrt(Math.abs(u));
+    }
+
+    /**
+     * Helper function for growing the arrays of merged centroids.
+     *
+     * @param n the number of centroids to be merged
+     */
+    private void ensureMergeCapacity(int n) {
+        if (mergedMeans.length < n) {
+            mergedMeans = new double[Math.max(n, 2 * mergedMeans.length)];
+            mergedWeights = new double[mergedMeans.length];
+        }
+    }
+
+}
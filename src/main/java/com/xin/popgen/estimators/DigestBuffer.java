@@ -0,0 +1,107 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+/**
+ * Class {@code DigestBuffer} stages the values of the digests of a {@code DigestArena}
+ * in a primitive buffer for each digest.
+ * The buffers are stored in fixed slots of one double array as the centroids of the arena,
+ * and a buffer is sorted and added into its digest once it is full,
+ * so that each merge of a digest adds the same number of values,
+ * however many values are skipped for the digest.
+ * A buffer is not thread-safe, so each thread should use its own buffer and arena.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+final class DigestBuffer {
+
+    // the default number of values staged for each digest
+    static final int DEFAULT_CAPACITY = 256;
+
+    // the DigestArena instance storing the digests
+    private final DigestArena arena;
+
+    // the maximum number of values staged for each digest
+    private final int capacity;
+
+    // the values staged for all the digests, and the number of values staged for each digest
+    private final double[] values;
+    private final int[] sizes;
+
+    /**
+     * Constructor of {@code DigestBuffer}.
+     *
+     * @param arena a DigestArena instance storing the digests
+     * @param digestNum the number of digests in the arena
+     * @param capacity the maximum number of values staged for each digest
+     */
+    DigestBuffer(DigestArena arena, int digestNum, int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("The capacity of a digest buffer should be positive.");
+        this.arena = arena;
+        this.capacity = capacity;
+        this.values = new double[digestNum * capacity];
+        this.sizes = new int[digestNum];
+    }
+
+    /**
+     * Returns how many bytes the arrays of a buffer use.
+     *
+     * @param digestNum the number of digests
+     * @param capacity the maximum number of values staged for each digest
+     * @return the number of bytes
+     */
+    static long byteSize(int digestNum, int capacity) {
+        return (long) digestNum * (8L * capacity + 4);
+    }
+
+    /**
+     * Stages a value of a digest, and adds the staged values into the digest if the buffer is full.
+     *
+     * @param digest the index of the digest
+     * @param value a value
+     */
+    void add(int digest, double value) {
+        int size = sizes[digest];
+        int from = digest * capacity;
+        values[from + size++] = value;
+        if (size == capacity) {
+            arena.add(digest, values, from, from + size);
+            size = 0;
+        }
+        sizes[digest] = size;
+    }
+
+    /**
+     * Adds the values staged for all the digests into the arena, which should be called
+     * before the digests are read or merged.
+     */
+    void flush() {
+        for (int digest = 0; digest < sizes.length; digest++) {
+            int from = digest * capacity;
+            arena.add(digest, values, from, from + sizes[digest]);
+            sizes[digest] = 0;
+        }
+    }
+
+    /**
+     * Returns the arena storing the digests.
+     *
+     * @return a DigestArena instance
+     */
+    DigestArena getArena() { return arena; }
+
+}
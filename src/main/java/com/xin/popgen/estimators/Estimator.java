@@ -16,8 +16,15 @@
 package com.xin.popgen.estimators;
 
 import java.io.BufferedWriter;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.xin.popgen.infos.*;
 
@@ -48,13 +55,27 @@ public abstract class Estimator {
     // an integer stores how many population pairs in the sample
     final int popPairNum;
     
+    // an integer array stores the indexes of the two populations of each pair
+    final int[][] popPairs;
+
     // a String array stores population Ids of each pair
     final String[][] popPairIds;
 
     String snpFileName;
 
+    // the name, the format and the regions of the input, for reading the input again
+    private final String genoFileName;
+    private final char inputFormat;
+    private final RegionInfo regionInfo;
+
     // a String stores the name of the output file
     final String outputFileName;
+
+    // an integer stores how many threads analyze the variants
+    int threads = 1;
+
+    // an integer stores how many byte ranges of the input are read in parallel
+    int splits = 1;
     
     /**
      * Constructor of {@code Estimator}.
@@ -63,32 +84,194 @@ public abstract class Estimator {
      * @param snpFileName an EIGENSTRAT .snp file name
      */
     Estimator(String genoFileName, String indFileName, String snpFileName, String outputFileName, char format) {
+        this(genoFileName, indFileName, snpFileName, outputFileName, format, null);
+    }
+
+    /**
+     * Constructor of {@code Estimator} analyzing only the SNPs within some regions.
+     *
+     * @param indFileName an EIGENSTRAT .ind file name
+     * @param snpFileName an EIGENSTRAT .snp file name
+     * @param regionInfo a RegionInfo instance storing the regions, or null for all the SNPs
+     */
+    Estimator(String genoFileName, String indFileName, String snpFileName, String outputFileName, char format,
+              RegionInfo regionInfo) {
+        this(genoFileName, indFileName, snpFileName, outputFileName, format, regionInfo, null);
+    }
+
+    /**
+     * Constructor of {@code Estimator} analyzing only the SNPs within some regions and some population pairs.
+     *
+     * @param indFileName an EIGENSTRAT .ind file name
+     * @param snpFileName an EIGENSTRAT .snp file name
+     * @param regionInfo a RegionInfo instance storing the regions, or null for all the SNPs
+     * @param pairFileName the name of a file storing the population pairs, or null for all the population pairs
+     */
+    Estimator(String genoFileName, String indFileName, String snpFileName, String outputFileName, char format,
+              RegionInfo regionInfo, String pairFileName) {
         this.snpFileName = snpFileName;
-        if ((format == 'v') || (format == 'e')) {
-            this.sampleInfo = new IndInfo(indFileName);
-            this.indNum = sampleInfo.getIndNum();
-            this.popInfo = sampleInfo.getPopInfo();
-    	    if (format == 'v')
-                this.genoInfo = new VcfInfo(genoFileName, sampleInfo, popInfo, true);
-    	    else
-                this.genoInfo = new GenoInfo(genoFileName, sampleInfo, popInfo, snpFileName);
-        }
-        else {
-    	    this.genoInfo = new CountInfo(genoFileName);
-    	    this.popInfo = genoInfo.getPopInfo();
-        }
+        this.genoFileName = genoFileName;
+        this.inputFormat = format;
+        this.regionInfo = regionInfo;
+        this.sampleInfo = openSampleInfo(genoFileName, indFileName, format);
+        if (sampleInfo != null) this.indNum = sampleInfo.getIndNum();
+        this.genoInfo = openGenoInfo();
+        this.popInfo = (sampleInfo == null) ? genoInfo.getPopInfo() : sampleInfo.getPopInfo();
 
     	this.popNum = popInfo.getPopNum();
-    	this.popPairNum = (popNum * (popNum - 1))/2;
+    	if (pairFileName == null)
+    	    this.popPairs = popInfo.getPopPairs();
+    	else
+    	    this.popPairs = new PairInfo(pairFileName, popInfo).getPopPairs();
+    	this.popPairNum = popPairs.length;
         this.outputFileName = outputFileName;
     	
     	// get population Ids of different pairs
     	this.popPairIds = new String[popPairNum][2];
     	for (int i = 0; i < popPairNum; i++) {
-    		this.popPairIds[i] = popInfo.getPopPair(i);
+    		this.popPairIds[i] = new String[]{popInfo.getPopId(popPairs[i][0]), popInfo.getPopId(popPairs[i][1])};
     	}
     }
 
+    /**
+     * Opens the input from the beginning with a new reader.
+     * The populations of a new reader have the same indexes as in {@code genoInfo},
+     * because they are read from the same sample information or the same header.
+     *
+     * @return a new CountInfo instance reading the input
+     */
+    CountInfo openGenoInfo() {
+        return openGenoInfo(genoFileName, sampleInfo, snpFileName, inputFormat, regionInfo);
+    }
+
+    /**
+     * Opens the sample information of the input.
+     *
+     * @param genoFileName the name of the genotype file
+     * @param indFileName an EIGENSTRAT .ind file name, or null
+     * @param format the format of the input files
+     * @return an IndInfo instance, or null if the populations are read from the input itself
+     */
+    static IndInfo openSampleInfo(String genoFileName, String indFileName, char format) {
+        if (format == 'b') {
+            // population IDs are the family IDs in the .fam file unless an .ind file is provided
+            if (indFileName == null) return new IndInfo(genoFileName + ".fam", 0);
+            return new IndInfo(indFileName);
+        }
+        if ((format == 'v') || (format == 'e') || (format == 'p')) return new IndInfo(indFileName);
+        return null;
+    }
+
+    /**
+     * Opens the input from the beginning with a new reader.
+     *
+     * @param genoFileName the name of the genotype file
+     * @param sampleInfo an IndInfo instance opened by {@link #openSampleInfo}
+     * @param snpFileName the name of the file storing information of variants
+     * @param format the format of the input files
+     * @param regionInfo a RegionInfo instance storing the regions, or null for all the SNPs
+     * @return a new CountInfo instance reading the input
+     */
+    static CountInfo openGenoInfo(String genoFileName, IndInfo sampleInfo, String snpFileName, char format,
+                                  RegionInfo regionInfo) {
+        switch (format) {
+            case ('b'): return new PlinkInfo(genoFileName, sampleInfo, sampleInfo.getPopInfo());
+            case ('v'): return new VcfInfo(genoFileName, sampleInfo, sampleInfo.getPopInfo(), true, regionInfo);
+            case ('p'): return new PackedGenoInfo(genoFileName, sampleInfo, sampleInfo.getPopInfo(), snpFileName);
+            case ('e'):
+                if (isGzipped(genoFileName))
+                    return new GenoInfo(genoFileName, sampleInfo, sampleInfo.getPopInfo(), snpFileName);
+                return new MappedGenoInfo(genoFileName, sampleInfo, sampleInfo.getPopInfo(), snpFileName);
+            case ('k'): return new CacheInfo(genoFileName);
+            default: return new CountInfo(genoFileName, regionInfo);
+        }
+    }
+
+    /**
+     * Helper function for checking whether a genotype file is compressed by gzip.
+     *
+     * @param genoFileName the name of a genotype file
+     * @return true, the file is compressed; false, otherwise
+     */
+    private static boolean isGzipped(String genoFileName) {
+        try {
+            return Info.isGzipped(genoFileName);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read " + genoFileName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sets how many threads analyze the variants.
+     *
+     * @param threads the number of threads
+     */
+    void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Helper function for tabulating the terms of {@code Model} for the allele counts in the sample,
+     * which are at most 2 * indNum if the individuals are known.
+     *
+     * @return a ModelTable instance
+     */
+    ModelTable createModelTable() {
+        return new ModelTable((indNum > 0) ? 2 * indNum : ModelTable.DEFAULT_MAX_COUNT);
+    }
+
+    /**
+     * Sets how many byte ranges of the input are read in parallel.
+     *
+     * @param splits the number of ranges
+     */
+    void setSplits(int splits) {
+        if ((splits > 1) && !genoInfo.isSplittable())
+            throw new IllegalArgumentException("--splits can only be used with uncompressed --count, --vcf or --geno files without --region.");
+        this.splits = splits;
+    }
+
+    /**
+     * Helper function for analyzing the byte ranges of the input in parallel.
+     * The first range is analyzed by the calling thread.
+     *
+     * @param ranges the ranges of the input
+     * @param task a function analyzing a range with its index
+     * @param <T> the type of the results of a range
+     * @return the results of the ranges in order
+     * @throws IOException
+     */
+    <T> List<T> analyzeRanges(CountInfo[] ranges, RangeTask<T> task) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, ranges.length - 1));
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 1; i < ranges.length; i++) {
+                int index = i;
+                futures.add(pool.submit(() -> task.analyze(index, ranges[index])));
+            }
+            List<T> results = new ArrayList<>();
+            results.add(task.analyze(0, ranges[0]));
+            for (Future<T> future:futures) {
+                results.add(BatchPipeline.get(future));
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+            for (CountInfo range:ranges) {
+                range.close();
+            }
+        }
+    }
+
+    /**
+     * An interface for analyzing a byte range of the input.
+     *
+     * @param <T> the type of the results of a range
+     */
+    interface RangeTask<T> {
+        T analyze(int index, CountInfo range) throws IOException;
+    }
+
 	/**
 	 * An abstract method for analyzing genotypes.
 	 */
@@ -102,9 +285,10 @@ public abstract class Estimator {
     protected void writeResults() {
     	BufferedWriter bw = null;
         try {
-            bw = new BufferedWriter(new FileWriter(outputFileName));
+            OutputStream out = openOutputStream(outputFileName);
+            bw = new BufferedWriter(new OutputStreamWriter(out));
             writeHeader(bw);
-            writeLine(bw);
+            writeLine(bw, out);
         } catch (IOException e) {
             e.printStackTrace();
         } finally {
@@ -116,13 +300,30 @@ public abstract class Estimator {
         }
     }
 
+    /**
+     * Helper function for opening an output file.
+     * Files ending with .gz or .bgz are compressed in BGZF format on several threads.
+     *
+     * @param fileName the name of an output file
+     * @return an OutputStream instance to the output file
+     * @throws IOException
+     */
+    static OutputStream openOutputStream(String fileName) throws IOException {
+        OutputStream out = new FileOutputStream(fileName);
+        if (fileName.endsWith(".gz") || fileName.endsWith(".bgz"))
+            return new BgzfOutputStream(out, Runtime.getRuntime().availableProcessors());
+        return out;
+    }
+
     /**
      * An abstract method for writing lines to the output file.
+     * Lines can be written as text with bw, or as bytes with out after flushing bw.
      *
      * @param bw a BufferedWriter instance to the output file
+     * @param out the OutputStream instance to the output file under bw
      * @throws IOException
      */
-    protected abstract void writeLine(BufferedWriter bw) throws IOException;
+    protected abstract void writeLine(BufferedWriter bw, OutputStream out) throws IOException;
 
     /**
      * An abstract method for writing header to the output file.
@@ -132,7 +333,7 @@ public abstract class Estimator {
      */
     protected abstract void writeHeader(BufferedWriter bw) throws IOException;
     
-    String format(double[] vals, int precision) {
+    static String format(double[] vals, int precision) {
     	StringBuilder sb = new StringBuilder();
     	for (double val:vals) {
 	    	if (val < 0) {
@@ -150,7 +351,7 @@ public abstract class Estimator {
     	return sb.toString();
     }
     
-    String format(double val, int precision) {
+    static String format(double val, int precision) {
     	StringBuilder sb = new StringBuilder();
     	if (val < 0) {
     		sb.append('-');
@@ -17,12 +17,18 @@ package com.xin.popgen.estimators;
 
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.ParameterException;
+import com.xin.popgen.infos.PackedGenoInfo;
+import com.xin.popgen.infos.RegionInfo;
+import com.xin.popgen.main.AnalysisOptions;
 import com.xin.popgen.main.ComputeDiff;
 import com.xin.popgen.main.ComputeVar;
+import com.xin.popgen.main.Convert;
+import com.xin.popgen.main.InputOptions;
 
 /**
  * Class {@code EstimatorFactory} generates different instances of
- * Class {@code Estimator} according to different input parameters.
+ * Class {@code Estimator} according to different input parameters,
+ * as well as {@code CacheConverter} instances for sub-command convert.
  *
  * @author Xin Huang {@code <xin.huang07@gmail.com>}
  */
@@ -41,38 +47,42 @@ public class EstimatorFactory {
 
         if (jc.getParsedCommand().equals("compute-var")) {
             char format = checkParameters(var.countFileName, var.vcfFileName,
-                    var.genoFileName, var.snpFileName);
+                    var.genoFileName, var.bfileName, var.cacheFileName, var.snpFileName);
+            RegionInfo regionInfo = createRegionInfo(var, format);
+            checkSplits(var, format, regionInfo);
             switch (format) {
                 case('c'):
-                    estimator = new TDigestPopVarMedianEstimator(
-                            var.countFileName, null, var.countFileName,
-                            var.outputFileName,
-                            format
-                    );
+                    estimator = createPopVarMedianEstimator(var, var.countFileName, null, var.countFileName,
+                            format, regionInfo);
                     break;
                 case ('e'):
-                    estimator = new TDigestPopVarMedianEstimator(
-                            var.genoFileName,
-                            var.indFileName,
-                            var.snpFileName,
-                            var.outputFileName,
-                            format
-                    );
+                case ('p'):
+                    estimator = createPopVarMedianEstimator(var, var.genoFileName, var.indFileName, var.snpFileName,
+                            format, regionInfo);
                     break;
                 case('v'):
-                    estimator = new TDigestPopVarMedianEstimator(
-                            var.vcfFileName,
-                            var.indFileName,
-                            var.vcfFileName,
-                            var.outputFileName,
-                            format
-                    );
+                    estimator = createPopVarMedianEstimator(var, var.vcfFileName, var.indFileName, var.vcfFileName,
+                            format, regionInfo);
+                    break;
+                case('b'):
+                    estimator = createPopVarMedianEstimator(var, var.bfileName, var.indFileName, var.bfileName + ".bim",
+                            format, regionInfo);
+                    break;
+                case('k'):
+                    estimator = createPopVarMedianEstimator(var, var.cacheFileName, null, var.cacheFileName,
+                            format, regionInfo);
                     break;
                 default: break;
             }
+            if (estimator != null) {
+                estimator.setThreads(var.threads);
+                estimator.setSplits(var.splits);
+            }
         } else if (jc.getParsedCommand().equals("compute-diff")) {
             char format = checkParameters(diff.countFileName, diff.vcfFileName,
-                    diff.genoFileName, diff.snpFileName);
+                    diff.genoFileName, diff.bfileName, diff.cacheFileName, diff.snpFileName);
+            RegionInfo regionInfo = createRegionInfo(diff, format);
+            checkSplits(diff, format, regionInfo);
             switch (format) {
                 case('c'):
                     estimator = new SeleDiffEstimator(
@@ -80,10 +90,13 @@ public class EstimatorFactory {
                             diff.popVarFileName,
                             diff.timeFileName,
                             diff.outputFileName,
-                            format
+                            format,
+                            regionInfo,
+                            diff.pairFileName
                     );
                     break;
                 case ('e'):
+                case ('p'):
                     estimator = new SeleDiffEstimator(
                             diff.genoFileName,
                             diff.indFileName,
@@ -91,7 +104,9 @@ public class EstimatorFactory {
                             diff.popVarFileName,
                             diff.timeFileName,
                             diff.outputFileName,
-                            format
+                            format,
+                            regionInfo,
+                            diff.pairFileName
                     );
                     break;
                 case ('v'):
@@ -102,26 +117,156 @@ public class EstimatorFactory {
                             diff.popVarFileName,
                             diff.timeFileName,
                             diff.outputFileName,
-                            format
+                            format,
+                            regionInfo,
+                            diff.pairFileName
+                    );
+                    break;
+                case ('b'):
+                    estimator = new SeleDiffEstimator(
+                            diff.bfileName,
+                            diff.indFileName,
+                            diff.bfileName + ".bim",
+                            diff.popVarFileName,
+                            diff.timeFileName,
+                            diff.outputFileName,
+                            format,
+                            regionInfo,
+                            diff.pairFileName
+                    );
+                    break;
+                case ('k'):
+                    estimator = new SeleDiffEstimator(
+                            diff.cacheFileName, null, diff.cacheFileName,
+                            diff.popVarFileName,
+                            diff.timeFileName,
+                            diff.outputFileName,
+                            format,
+                            regionInfo,
+                            diff.pairFileName
                     );
                     break;
                 default: break;
             }
+            if (estimator != null) {
+                estimator.setThreads(diff.threads);
+                estimator.setSplits(diff.splits);
+                SeleDiffEstimator selediff = (SeleDiffEstimator) estimator;
+                selediff.setOutputFormat(diff.outputFormat.charAt(0));
+                if (diff.maxPvalue != null) selediff.setMaxPvalue(diff.maxPvalue);
+                if (diff.minDelta != null) selediff.setMinDelta(diff.minDelta);
+                if (diff.topK != null) selediff.setTopK(diff.topK);
+            }
         }
 
         return estimator;
 
     }
 
+    /**
+     * Static method to create a CacheConverter instance for sub-command convert.
+     * @param convert a Convert instance storing the input parameters of sub-command convert
+     * @return a CacheConverter instance
+     */
+    public static CacheConverter createConverter(Convert convert) {
+
+        CacheConverter converter = null;
+
+        char format = checkParameters(convert.countFileName, convert.vcfFileName,
+                convert.genoFileName, convert.bfileName, convert.cacheFileName, convert.snpFileName);
+        RegionInfo regionInfo = createRegionInfo(convert, format);
+        switch (format) {
+            case ('c'):
+                converter = new CacheConverter(convert.countFileName, null, convert.countFileName,
+                        convert.outputFileName, format, regionInfo);
+                break;
+            case ('e'):
+            case ('p'):
+                converter = new CacheConverter(convert.genoFileName, convert.indFileName, convert.snpFileName,
+                        convert.outputFileName, format, regionInfo);
+                break;
+            case ('v'):
+                converter = new CacheConverter(convert.vcfFileName, convert.indFileName, convert.vcfFileName,
+                        convert.outputFileName, format, regionInfo);
+                break;
+            case ('b'):
+                converter = new CacheConverter(convert.bfileName, convert.indFileName, convert.bfileName + ".bim",
+                        convert.outputFileName, format, regionInfo);
+                break;
+            case ('k'):
+                throw new ParameterException("The input of convert is already an allele count cache.");
+            default: break;
+        }
+
+        return converter;
+
+    }
+
+    /**
+     * Helper function for creating an estimator of compute-var with the method of --median-method.
+     * @param var a ComputeVar instance storing the input parameters
+     * @param genoFileName the name of the genotype file
+     * @param indFileName the name of the EIGENSTRAT .ind file, or null
+     * @param snpFileName the name of the file storing information of variants
+     * @param format the format of the input files
+     * @param regionInfo a RegionInfo instance storing the regions, or null
+     * @return a PopVarMedianEstimator instance
+     */
+    private static PopVarMedianEstimator createPopVarMedianEstimator(ComputeVar var, String genoFileName,
+            String indFileName, String snpFileName, char format, RegionInfo regionInfo) {
+        if (var.medianMethod.equals("tdigest"))
+            return new TDigestPopVarMedianEstimator(genoFileName, indFileName, snpFileName, var.outputFileName,
+                    format, regionInfo, var.pairFileName);
+        if ((var.threads > 1) || (var.splits > 1))
+            throw new ParameterException("--threads and --splits can only be used with --median-method tdigest.");
+        if (var.medianMethod.equals("exact"))
+            return new ExactPopVarMedianEstimator(genoFileName, indFileName, snpFileName, var.outputFileName,
+                    format, regionInfo, var.pairFileName);
+        return new LogHistogramPopVarMedianEstimator(genoFileName, indFileName, snpFileName, var.outputFileName,
+                format, regionInfo, var.pairFileName);
+    }
+
+    /**
+     * Helper function for creating a RegionInfo instance from --region and --regions-file.
+     * @param var an InputOptions instance storing the input parameters
+     * @param format the format of the input files
+     * @return a RegionInfo instance, or null if no region is specified
+     */
+    private static RegionInfo createRegionInfo(InputOptions var, char format) {
+        if ((var.region == null) && (var.regionsFileName == null))
+            return null;
+        if ((format != 'c') && (format != 'v'))
+            throw new ParameterException("--region and --regions-file can only be used with --count or --vcf.");
+        return new RegionInfo(var.region, var.regionsFileName);
+    }
+
+    /**
+     * Helper function for checking whether the input can be split into byte ranges with --splits.
+     * @param var an AnalysisOptions instance storing the input parameters
+     * @param format the format of the input files
+     * @param regionInfo a RegionInfo instance storing the regions, or null
+     */
+    private static void checkSplits(AnalysisOptions var, char format, RegionInfo regionInfo) {
+        if (var.splits == 1)
+            return;
+        if ((format != 'c') && (format != 'v') && (format != 'e'))
+            throw new ParameterException("--splits can only be used with --count, --vcf or --geno.");
+        if (regionInfo != null)
+            throw new ParameterException("Cannot use --splits with --region or --regions-file.");
+    }
+
     /**
      * Helper function for validating input parameters.
      * @param vcfFileName the name of a VCF file
      * @param genoFileName the name of a EIGENSTRAT GENO file
+     * @param bfileName the prefix of PLINK binary files
+     * @param cacheFileName the name of a binary allele count cache
      * @param snpFileName the name of a EIGENSTRAT SNP file
-     * @return the format of the input files, 'e' for EIGENSTRAT format, 'v' for VCF format
+     * @return the format of the input files, 'e' for EIGENSTRAT format, 'p' for packed EIGENSTRAT format,
+     * 'v' for VCF format, 'b' for PLINK binary format, 'k' for binary allele count cache
      */
-    private static char checkParameters(String countFileName, String vcfFileName,
-                                        String genoFileName, String snpFileName) {
+    private static char checkParameters(String countFileName, String vcfFileName, String genoFileName,
+                                        String bfileName, String cacheFileName, String snpFileName) {
 
         char format = 'e';
 
@@ -133,12 +278,25 @@ public class EstimatorFactory {
             throw new ParameterException("Only use --vcf or --geno to specify the genotype file.");
         if ((vcfFileName != null) && (snpFileName != null))
             throw new ParameterException("Cannot use --vcf with --snp.");
-        if ((countFileName == null) && (vcfFileName == null) && (genoFileName == null))
-            throw new ParameterException("Cannot find --count, --vcf or --geno to specify the allele count/genotype file.");
+        if ((bfileName != null) && ((countFileName != null) || (vcfFileName != null) || (genoFileName != null)))
+            throw new ParameterException("Cannot use --bfile with --count, --vcf or --geno.");
+        if ((bfileName != null) && (snpFileName != null))
+            throw new ParameterException("Cannot use --bfile with --snp.");
+        if ((cacheFileName != null) && ((countFileName != null) || (vcfFileName != null)
+                || (genoFileName != null) || (bfileName != null)))
+            throw new ParameterException("Cannot use --cache with --count, --vcf, --geno or --bfile.");
+        if ((cacheFileName != null) && (snpFileName != null))
+            throw new ParameterException("Cannot use --cache with --snp.");
+        if ((countFileName == null) && (vcfFileName == null) && (genoFileName == null) && (bfileName == null)
+                && (cacheFileName == null))
+            throw new ParameterException("Cannot find --count, --vcf, --geno, --bfile or --cache to specify the allele count/genotype file.");
         if ((genoFileName != null) && (snpFileName == null))
             throw new ParameterException("Cannot find --snp when using --geno.");
+        if ((genoFileName != null) && PackedGenoInfo.isPacked(genoFileName)) format = 'p';
         if (vcfFileName != null) format = 'v';
         if (countFileName != null) format = 'c';
+        if (bfileName != null) format = 'b';
+        if (cacheFileName != null) format = 'k';
 
         return format;
 
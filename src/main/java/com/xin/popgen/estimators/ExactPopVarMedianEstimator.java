@@ -0,0 +1,318 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import java.util.Arrays;
+
+import com.xin.popgen.infos.CountInfo;
+import com.xin.popgen.infos.RegionInfo;
+
+/**
+ * Class {@code ExactPopVarMedianEstimator} is a class for estimating exact medians
+ * by reading the input several times.
+ * The first pass adds the variances of drift into t-digests, which bracket each median between two quantiles.
+ * The width of a bracket is set from a number of values for the population pair and the rank error
+ * of its digest at the median.
+ * The next pass counts the values below each bracket and only stores the values within it,
+ * and the median is selected from the stored values.
+ * A pass stores at most maxValues values in all: the population pairs whose brackets do not fit
+ * are read in later passes, and a pair stops storing values once its bracket holds more than expected.
+ * If the median of a population pair is not found, the range known to contain it is narrowed
+ * by the counts of the pass, and its bracket is widened or narrowed for the next pass.
+ * Hence, the memory usage does not depend on the number of variants.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+public final class ExactPopVarMedianEstimator extends PopVarMedianEstimator {
+
+    // the default maximum number of values stored in a pass, i.e. 32 MB
+    static final int MAX_VALUES = 1 << 22;
+
+    // the minimum number of values stored for a population pair in a pass
+    private static final int MIN_VALUES = 16;
+
+    // the maximum number of values stored in a pass
+    private int maxValues = MAX_VALUES;
+
+    // a ModelCache instance stores the drift variances of repeated allele counts
+    private final ModelCache cache;
+
+    /**
+     * Constructor of {@code ExactPopVarMedianEstimator} using only the SNPs within some regions
+     * and estimating only some population pairs.
+     *
+     * @param indFileName an EIGENSTRAT .ind file name
+     * @param snpFileName an EIGENSTRAT .snp file name
+     * @param regionInfo a RegionInfo instance storing the regions, or null for all the SNPs
+     * @param pairFileName the name of a file storing the population pairs, or null for all the population pairs
+     */
+    ExactPopVarMedianEstimator(String genoFileName, String indFileName, String snpFileName, String outputFileName, char format,
+                               RegionInfo regionInfo, String pairFileName) {
+        super(genoFileName, indFileName, snpFileName, outputFileName, format, regionInfo, pairFileName);
+        cache = new ModelCache(createModelTable(), ModelCache.DEFAULT_CAPACITY);
+        caches.add(cache);
+    }
+
+    /**
+     * Sets the maximum number of values stored in a pass.
+     *
+     * @param maxValues the number of values, a smaller number uses less memory but may need more passes
+     */
+    void setMaxValues(int maxValues) {
+        this.maxValues = maxValues;
+    }
+
+    @Override
+    protected void findMedians() {
+        DigestArena digests = new DigestArena(popPairNum, DigestArena.DEFAULT_COMPRESSION);
+        // the variances of drift of each population pair are staged for the digests
+        DigestBuffer buffers = new DigestBuffer(digests, popPairNum, DigestBuffer.DEFAULT_CAPACITY);
+        // how many values of each population pair
+        long[] valueNums = new long[popPairNum];
+        long snpNum = 0;
+        int[] alleleCounts = new int[2*popNum];
+        while (genoInfo.countAlleles(alleleCounts)) {
+            snpNum++;
+            for (int k = 0; k < popPairNum; k++) {
+                double varOmega = calVarOmega(alleleCounts, k);
+                if (Double.isNaN(varOmega)) continue;
+                buffers.add(k, varOmega);
+                valueNums[k]++;
+            }
+        }
+        buffers.flush();
+        genoInfo.close();
+
+        // the population pairs whose medians are not found yet
+        boolean[] pending = new boolean[popPairNum];
+        int pendingNum = 0;
+        for (int k = 0; k < popPairNum; k++) {
+            if (valueNums[k] == 0) popPairVarMedians[k] = Double.NaN;
+            else pending[k] = true;
+            if (pending[k]) pendingNum++;
+        }
+
+        // the range known to contain the two middle values of each population pair,
+        // and the distance between the quantiles of its bracket and the median
+        double[] lows = new double[popPairNum];
+        double[] highs = new double[popPairNum];
+        double[] widths = new double[popPairNum];
+        Arrays.fill(lows, Double.NEGATIVE_INFINITY);
+        Arrays.fill(highs, Double.POSITIVE_INFINITY);
+        // each population pair expects to store its share of maxValues, or more if its digest is less accurate
+        double share = Math.max(1, maxValues / Math.max(1, pendingNum));
+        for (int k = 0; k < popPairNum; k++) {
+            if (pending[k]) widths[k] = Math.max(2 * digests.rankError(k, 0.5d), share / 4 / valueNums[k]);
+        }
+
+        int passNum = 1;
+        while (pendingNum > 0) {
+            pendingNum = selectMedians(digests, pending, valueNums, lows, highs, widths);
+            passNum++;
+        }
+        System.out.println(snpNum + " variants are read from " + snpFileName + " in " + passNum + " passes");
+    }
+
+    /**
+     * Helper function for reading the input again and selecting the medians within the brackets.
+     *
+     * @param digests a DigestArena instance storing the digests of the first pass
+     * @param pending whether the median of a population pair is not found yet,
+     *                which is set to false if the median is found in this pass
+     * @param valueNums how many values of each population pair
+     * @param lows the lower bounds of the ranges known to contain the medians, which are raised in this pass
+     * @param highs the upper bounds of the ranges known to contain the medians, which are lowered in this pass
+     * @param widths the distances between the quantiles of the brackets and the medians,
+     *               which are changed for the next pass
+     * @return how many population pairs whose medians are still not found
+     */
+    private int selectMedians(DigestArena digests, boolean[] pending, long[] valueNums,
+                              double[] lows, double[] highs, double[] widths) {
+        // the brackets of the population pairs read in this pass,
+        // which store at most maxValues values in all, but at least one bracket is read
+        Bracket[] brackets = new Bracket[popPairNum];
+        long total = 0;
+        for (int k = 0; k < popPairNum; k++) {
+            if (!pending[k]) continue;
+            double expected = 2 * widths[k] * valueNums[k];
+            int limit = (int) Math.min(Math.min(maxValues, valueNums[k]), Math.max(MIN_VALUES, 2 * expected));
+            if ((total > 0) && (total + limit > maxValues)) continue;
+            total += limit;
+            double lower = lows[k];
+            double upper = highs[k];
+            if (widths[k] < 0.5) {
+                lower = Math.max(lower, digests.quantile(k, 0.5 - widths[k]));
+                upper = Math.min(upper, digests.quantile(k, 0.5 + widths[k]));
+            }
+            if (lower > upper) {
+                // the digest locates the median outside the range, so the lower half of the range is read instead
+                lower = lows[k];
+                upper = (Double.isInfinite(lows[k]) || Double.isInfinite(highs[k])) ? highs[k]
+                        : lows[k] + (highs[k] - lows[k]) / 2;
+            }
+            brackets[k] = new Bracket(lower, upper, limit, (int) Math.min(limit, Math.max(MIN_VALUES, expected)));
+        }
+
+        CountInfo reader = openGenoInfo();
+        int[] alleleCounts = new int[2*popNum];
+        while (reader.countAlleles(alleleCounts)) {
+            for (int k = 0; k < popPairNum; k++) {
+                if (brackets[k] == null) continue;
+                double varOmega = calVarOmega(alleleCounts, k);
+                if (Double.isNaN(varOmega)) continue;
+                brackets[k].add(varOmega);
+            }
+        }
+        reader.close();
+
+        int pendingNum = 0;
+        for (int k = 0; k < popPairNum; k++) {
+            if (!pending[k]) continue;
+            Bracket bracket = brackets[k];
+            if (bracket == null) {
+                pendingNum++;
+                continue;
+            }
+            // the ranks of the two middle values, which are the same if the number of values is odd
+            long lower = (valueNums[k] - 1) / 2;
+            long upper = valueNums[k] / 2;
+            double lowerValue = bracket.valueAt(lower);
+            double upperValue = bracket.valueAt(upper);
+            if (!Double.isNaN(lowerValue) && !Double.isNaN(upperValue)) {
+                popPairVarMedians[k] = (lowerValue + upperValue) / 2;
+                pending[k] = false;
+                continue;
+            }
+            long aboveRank = bracket.belowNum + bracket.inNum;
+            if (lower >= bracket.belowNum) lows[k] = (lower < aboveRank) ? bracket.minIn : bracket.minAbove;
+            if (upper < aboveRank) highs[k] = (upper >= bracket.belowNum) ? bracket.maxIn : bracket.maxBelow;
+            // a bracket holding too many values is narrowed, and a bracket missing the median is widened
+            if ((lower >= bracket.belowNum) && (upper < aboveRank)) widths[k] *= (double) bracket.limit / (2 * bracket.inNum);
+            else widths[k] *= 4;
+            pendingNum++;
+        }
+        return pendingNum;
+    }
+
+    /**
+     * Helper function for calculating the variance of drift of a population pair.
+     *
+     * @param alleleCounts the counts of the reference and alternative alleles of the i-th population
+     *                     in alleleCounts[2*i] and alleleCounts[2*i+1]
+     * @param k the index of the population pair
+     * @return the variance of drift, or NaN if the SNP is fixed or lost in any population of the pair
+     */
+    private double calVarOmega(int[] alleleCounts, int k) {
+        int m = popPairs[k][0];
+        int n = popPairs[k][1];
+        int refM = alleleCounts[2*m];
+        int altM = alleleCounts[2*m+1];
+        int refN = alleleCounts[2*n];
+        int altN = alleleCounts[2*n+1];
+        // Only use SNP neither fix nor lose in any population
+        if ((refM * altM == 0) || (refN * altN == 0))
+            return Double.NaN;
+        return cache.calVarOmega(refM, altM, refN, altN);
+    }
+
+    /**
+     * Class {@code Bracket} counts the values of a population pair below, within and above a bracket in a pass,
+     * and stores at most limit values within the bracket.
+     * The values next to the bracket and the extreme values within it are kept as well,
+     * so that a median next to a bracket or among equal values is found without storing them.
+     */
+    private static final class Bracket {
+
+        // the lower and upper bounds of the bracket, both included
+        final double lower;
+        final double upper;
+
+        // the maximum number of values stored, and the length of the array allocated for the first value
+        final int limit;
+        private final int initialLength;
+
+        // how many values are below and within the bracket
+        long belowNum = 0;
+        long inNum = 0;
+
+        // the largest value below the bracket, the smallest and largest values within it,
+        // and the smallest value above it
+        double maxBelow = Double.NEGATIVE_INFINITY;
+        double minIn = Double.POSITIVE_INFINITY;
+        double maxIn = Double.NEGATIVE_INFINITY;
+        double minAbove = Double.POSITIVE_INFINITY;
+
+        // the values stored within the bracket, which are sorted once they are read
+        private double[] values = null;
+        private int size = 0;
+        private boolean sorted = false;
+
+        Bracket(double lower, double upper, int limit, int initialLength) {
+            this.lower = lower;
+            this.upper = upper;
+            this.limit = limit;
+            this.initialLength = initialLength;
+        }
+
+        /**
+         * Counts a value, and stores it if it is within the bracket and fewer than limit values are stored.
+         *
+         * @param value a value
+         */
+        void add(double value) {
+            if (value < lower) {
+                belowNum++;
+                maxBelow = Math.max(maxBelow, value);
+            }
+            else if (value > upper) {
+                minAbove = Math.min(minAbove, value);
+            }
+            else {
+                inNum++;
+                minIn = Math.min(minIn, value);
+                maxIn = Math.max(maxIn, value);
+                if (size == limit) return;
+                if (values == null) values = new double[initialLength];
+                else if (size == values.length) values = Arrays.copyOf(values, Math.min(limit, 2 * size));
+                values[size++] = value;
+            }
+        }
+
+        /**
+         * Returns the value of a rank among all the values, if it is known from this bracket.
+         *
+         * @param rank the rank of a value, starting from 0
+         * @return the value, or NaN if it is not known
+         */
+        double valueAt(long rank) {
+            if (rank == belowNum - 1) return maxBelow;
+            if (rank < belowNum) return Double.NaN;
+            long index = rank - belowNum;
+            if (index == inNum) return minAbove;
+            if (index > inNum) return Double.NaN;
+            if ((index == 0) || (minIn == maxIn)) return minIn;
+            if (index == inNum - 1) return maxIn;
+            if (inNum > size) return Double.NaN;
+            if (!sorted) {
+                Arrays.sort(values, 0, size);
+                sorted = true;
+            }
+            return values[(int) index];
+        }
+
+    }
+
+}
@@ -0,0 +1,212 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+/**
+ * Class {@code LogHistogram} is a streaming sketch for estimating quantiles with a fixed relative accuracy.
+ * A value x is counted in the bin with key ceil(log(|x|) / log(gamma)) of its sign,
+ * where gamma = (1 + accuracy) / (1 - accuracy), so that each bin is represented by a value
+ * with a relative error not larger than the accuracy.
+ * The counts of the bins are stored in a primitive array covering the keys seen so far,
+ * which grows as needed; if the keys span more than {@link #MAX_BINS} bins,
+ * the bins of the smallest magnitudes are merged into one bin, so the memory usage is bounded.
+ * The values of such bins are not accurate, but their ranks are, so the medians are not affected
+ * unless they are MAX_BINS bins smaller than the largest magnitudes.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+final class LogHistogram {
+
+    // the default relative accuracy of the values of the bins
+    static final double DEFAULT_ACCURACY = 0.005;
+
+    // the maximum number of bins of each sign
+    static final int MAX_BINS = 2048;
+
+    // the initial number of bins of each sign
+    private static final int INITIAL_BINS = 64;
+
+    // gamma and its logarithm
+    private final double gamma;
+    private final double logGamma;
+
+    // the bins of positive values and the bins of the magnitudes of negative values
+    private final Bins positives = new Bins();
+    private final Bins negatives = new Bins();
+
+    // how many values are zeros
+    private long zeroNum = 0;
+
+    /**
+     * Constructor of {@code LogHistogram}.
+     *
+     * @param accuracy the relative accuracy of the values of the bins, between 0 and 1
+     */
+    LogHistogram(double accuracy) {
+        this.gamma = (1 + accuracy) / (1 - accuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value a value
+     */
+    void add(double value) {
+        if (value > 0) positives.add(key(value));
+        else if (value < 0) negatives.add(key(-value));
+        else zeroNum++;
+    }
+
+    /**
+     * Returns how many values are added.
+     *
+     * @return the number of values
+     */
+    long size() {
+        return negatives.size + zeroNum + positives.size;
+    }
+
+    /**
+     * Returns the number of bins allocated, which determines the memory usage.
+     *
+     * @return the number of bins
+     */
+    int capacity() {
+        return positives.capacity() + negatives.capacity();
+    }
+
+    /**
+     * Estimates the median, i.e. the mean of the two middle values if the number of values is even.
+     *
+     * @return the median, or NaN if no value is added
+     */
+    double median() {
+        long size = size();
+        if (size == 0) return Double.NaN;
+        return (valueAt((size - 1) / 2) + valueAt(size / 2)) / 2;
+    }
+
+    /**
+     * Helper function for estimating the value of a rank.
+     *
+     * @param rank the rank of a value, from 0 to size() - 1
+     * @return the value of the bin containing the rank
+     */
+    private double valueAt(long rank) {
+        if (rank < negatives.size) return -value(negatives.keyAt(negatives.size - 1 - rank));
+        rank -= negatives.size;
+        if (rank < zeroNum) return 0;
+        return value(positives.keyAt(rank - zeroNum));
+    }
+
+    /**
+     * Helper function for finding the key of a positive value.
+     *
+     * @param value a positive value
+     * @return the key of the bin
+     */
+    private int key(double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    /**
+     * Helper function for finding the value representing a bin.
+     *
+     * @param key the key of a bin
+     * @return the value within a relative error of the accuracy to all the values of the bin
+     */
+    private double value(int key) {
+        return 2 * Math.pow(gamma, key) / (gamma + 1);
+    }
+
+    /**
+     * Class {@code Bins} stores the counts of consecutive keys in a primitive array.
+     */
+    private static final class Bins {
+
+        // the counts of the keys from offset to offset + counts.length - 1
+        private int[] counts;
+        private int offset;
+
+        // the smallest and the largest keys with counts
+        private int minKey;
+        private int maxKey;
+
+        // how many values are counted
+        private long size = 0;
+
+        void add(int key) {
+            if (size == 0) {
+                counts = new int[INITIAL_BINS];
+                offset = key - INITIAL_BINS / 2;
+                minKey = key;
+                maxKey = key;
+            }
+            else if ((key < minKey) || (key > maxKey)) {
+                extend(key);
+            }
+            counts[Math.max(key, minKey) - offset]++;
+            size++;
+        }
+
+        /**
+         * Helper function for extending the range of keys to a new key.
+         * Keys more than MAX_BINS bins smaller than the largest key are merged into the smallest bin.
+         *
+         * @param key a key outside the range
+         */
+        private void extend(int key) {
+            int newMax = Math.max(maxKey, key);
+            int newMin = Math.max(Math.min(minKey, key), newMax - MAX_BINS + 1);
+            if ((newMin > minKey) || (newMin < offset) || (newMax >= offset + counts.length)) {
+                int length = counts.length;
+                while (length < newMax - newMin + 1) length *= 2;
+                // leave the free bins on the side the range grows
+                int newOffset = (key < minKey) ? newMax - length + 1 : newMin;
+                int[] newCounts = new int[length];
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] != 0) newCounts[Math.max(offset + i, newMin) - newOffset] += counts[i];
+                }
+                counts = newCounts;
+                offset = newOffset;
+            }
+            minKey = newMin;
+            maxKey = newMax;
+        }
+
+        /**
+         * Returns the key of the bin containing a rank, counting from the smallest key.
+         *
+         * @param rank the rank of a value, from 0 to size - 1
+         * @return the key
+         */
+        int keyAt(long rank) {
+            long sum = 0;
+            for (int i = minKey - offset; i <= maxKey - offset; i++) {
+                sum += counts[i];
+                if (sum > rank) return offset + i;
+            }
+            return maxKey;
+        }
+
+        int capacity() {
+            return (counts == null) ? 0 : counts.length;
+        }
+
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import com.xin.popgen.infos.RegionInfo;
+
+/**
+ * Class {@code LogHistogramPopVarMedianEstimator} is a class for estimating median
+ * using log histograms, whose medians have a fixed relative error.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+public final class LogHistogramPopVarMedianEstimator extends PopVarMedianEstimator {
+
+    // an array of LogHistogram stores empirical distributions of pairwise population variances
+    private final LogHistogram[] popPairVarHistograms;
+
+    // a ModelCache instance stores the drift variances of repeated allele counts
+    private final ModelCache cache;
+
+    /**
+     * Constructor of {@code LogHistogramPopVarMedianEstimator} using only the SNPs within some regions
+     * and estimating only some population pairs.
+     *
+     * @param indFileName an EIGENSTRAT .ind file name
+     * @param snpFileName an EIGENSTRAT .snp file name
+     * @param regionInfo a RegionInfo instance storing the regions, or null for all the SNPs
+     * @param pairFileName the name of a file storing the population pairs, or null for all the population pairs
+     */
+    LogHistogramPopVarMedianEstimator(String genoFileName, String indFileName, String snpFileName, String outputFileName,
+                                      char format, RegionInfo regionInfo, String pairFileName) {
+        super(genoFileName, indFileName, snpFileName, outputFileName, format, regionInfo, pairFileName);
+        popPairVarHistograms = new LogHistogram[popPairNum];
+        for (int i = 0; i < popPairNum; i++) {
+            popPairVarHistograms[i] = new LogHistogram(LogHistogram.DEFAULT_ACCURACY);
+        }
+        cache = new ModelCache(createModelTable(), ModelCache.DEFAULT_CAPACITY);
+        caches.add(cache);
+    }
+
+    @Override
+    protected void findMedians() {
+        long snpNum = 0;
+        // the counts of the reference and alternative alleles of the i-th population
+        // are stored in alleleCounts[2*i] and alleleCounts[2*i+1]
+        int[] alleleCounts = new int[2*popNum];
+        while (genoInfo.countAlleles(alleleCounts)) {
+            snpNum++;
+            for (int k = 0; k < popPairNum; k++) {
+                int m = popPairs[k][0];
+                int n = popPairs[k][1];
+                int refM = alleleCounts[2*m];
+                int altM = alleleCounts[2*m+1];
+                int refN = alleleCounts[2*n];
+                int altN = alleleCounts[2*n+1];
+                // Only use SNP neither fix nor lose in any population
+                if ((refM * altM == 0) || (refN * altN == 0))
+                    continue;
+                popPairVarHistograms[k].add(cache.calVarOmega(refM, altM, refN, altN));
+            }
+        }
+        for (int i = 0; i < popPairNum; i++) {
+            popPairVarMedians[i] = popPairVarHistograms[i].median();
+        }
+        System.out.println(snpNum + " variants are read from " + snpFileName);
+        genoInfo.close();
+    }
+
+}
@@ -71,7 +71,7 @@ public final class Model {
      * @param count a count number for correction
      * @return the corrected count
      */
-    private static double correctContinuous(int count) {
+    static double correctContinuous(int count) {
         return (count < 5 ? count + 0.5 : count);
     }
 
@@ -81,9 +81,16 @@ public final class Model {
      * @param value a value to be rounded
      * @return the rounded value
      */
-    private static double round(double value) {
-        return (new Double(value).equals(Double.NaN)) ? value
-                : (Math.round(value * 1000000d) / 1000000d);
+    static double round(double value) {
+        if (value != value) return value;
+        double scaled = value * 1000000d;
+        // Math.round(scaled) is floor(scaled + 0.5), which is exact for these values
+        if ((Math.abs(scaled) >= 0x1p52) || (scaled == 0x1.fffffffffffffp-2))
+            return Math.round(scaled) / 1000000d;
+        double half = scaled + 0.5d;
+        long rounded = (long) half;
+        if (half < rounded) rounded--;
+        return rounded / 1000000d;
     }
     
 }
@@ -0,0 +1,133 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class {@code ModelCache} memoizes the drift variances of {@code Model} for the allele counts of population pairs,
+ * which repeat constantly across variants if the sample sizes of populations are small.
+ * The four counts of a pair are packed into a long key, and the keys and the drift variances are stored
+ * in two primitive arrays of a fixed size.
+ * Each key has one slot determined by its hash, so a new key evicts the old one in the same slot.
+ * Counts larger than 65535 cannot be packed and are computed with a {@code ModelTable} without caching.
+ * A cache is not thread-safe, so each thread should use its own cache.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+final class ModelCache {
+
+    // the default number of slots
+    static final int DEFAULT_CAPACITY = 1 << 14;
+
+    // a key never packed from counts, marking empty slots
+    private static final long EMPTY = -1L;
+
+    // a ModelTable instance computing the drift variances of new keys
+    private final ModelTable table;
+
+    // the number of bits of the index of a slot
+    private final int bits;
+
+    // the keys and the drift variances of the slots, the last slot stores the drift variance of counts that cannot be packed
+    private final long[] keys;
+    private final double[] varOmegas;
+
+    // how many times drift variances are looked up and found
+    private long lookups = 0;
+    private long hits = 0;
+
+    /**
+     * Constructor of {@code ModelCache}.
+     *
+     * @param table a ModelTable instance computing the drift variances of new keys
+     * @param capacity the maximum number of keys, rounded up to a power of 2
+     */
+    ModelCache(ModelTable table, int capacity) {
+        this.table = table;
+        this.bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(capacity - 1));
+        int size = 1 << bits;
+        this.keys = new long[size + 1];
+        this.varOmegas = new double[size + 1];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Calculates the drift variance between two populations, the same as {@link Model#calVarOmega},
+     * computing it if it is not cached.
+     *
+     * @param countAw counts of ancestral allele in population A
+     * @param countAm counts of derived allele in population A
+     * @param countBw counts of ancestral allele in population B
+     * @param countBm counts of derived allele in population B
+     * @return the drift variance between two populations
+     */
+    double calVarOmega(int countAw, int countAm, int countBw, int countBm) {
+        lookups++;
+        int slot;
+        long key;
+        if (((countAw | countAm | countBw | countBm) & ~0xFFFF) == 0) {
+            key = ((long) countAw << 48) | ((long) countAm << 32) | ((long) countBw << 16) | countBm;
+            slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - bits));
+            if (keys[slot] == key) {
+                hits++;
+                return varOmegas[slot];
+            }
+        }
+        else {
+            key = EMPTY;
+            slot = keys.length - 1;
+        }
+        double logOdds = table.calLogOdds(countAw, countAm, countBw, countBm);
+        double varLogOdds = table.calVarLogOdds(countAw, countAm, countBw, countBm);
+        keys[slot] = key;
+        varOmegas[slot] = Model.round(logOdds * logOdds / 0.455 - varLogOdds);
+        return varOmegas[slot];
+    }
+
+    /**
+     * Returns how many times drift variances are looked up.
+     *
+     * @return the number of lookups
+     */
+    long getLookups() { return lookups; }
+
+    /**
+     * Returns how many times drift variances are found in the cache.
+     *
+     * @return the number of hits
+     */
+    long getHits() { return hits; }
+
+    /**
+     * Helper function for reporting the hit rate of some caches.
+     *
+     * @param caches a list of ModelCache instances
+     * @return a message of the hit rate
+     */
+    static String report(List<ModelCache> caches) {
+        long lookups = 0;
+        long hits = 0;
+        for (ModelCache cache:caches) {
+            lookups += cache.lookups;
+            hits += cache.hits;
+        }
+        return String.format("%.2f%% of %d population pairs are found in the model cache",
+                (lookups == 0) ? 0d : 100d * hits / lookups, lookups);
+    }
+
+}
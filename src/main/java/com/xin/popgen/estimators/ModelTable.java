@@ -0,0 +1,132 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+/**
+ * Class {@code ModelTable} tabulates the logarithms and reciprocals of continuity-corrected allele counts,
+ * so that the methods in {@code Model} can be computed without calling {@code Math.log} and dividing for each pair.
+ * The results are the same as the methods in {@code Model} after rounding to 6 decimal points:
+ * reciprocals are added in the same order, and the logarithm of an odds ratio is the sum of four tabulated logarithms,
+ * which differs from {@code Math.log} of the odds ratio by less than 1e-13.
+ * If the sum is so close to the midpoint of two rounded values that the difference could matter,
+ * the logarithm of the odds ratio is computed exactly as in {@code Model}.
+ * A table is immutable after construction and can be shared by threads.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+final class ModelTable {
+
+    // the largest allele count tabulated by default if the number of individuals is unknown
+    static final int DEFAULT_MAX_COUNT = 1 << 16;
+
+    // the distance to the midpoint of two rounded values below which the exact logarithm is used
+    private static final double GUARD = 1e-6;
+
+    // the logarithms and reciprocals of corrected allele counts from 0 to maxCount
+    private final double[] logs;
+    private final double[] recs;
+
+    /**
+     * Constructor of {@code ModelTable}.
+     *
+     * @param maxCount the largest allele count to tabulate, larger counts are computed without the table
+     */
+    ModelTable(int maxCount) {
+        this.logs = new double[maxCount + 1];
+        this.recs = new double[maxCount + 1];
+        for (int count = 0; count <= maxCount; count++) {
+            double corrected = Model.correctContinuous(count);
+            logs[count] = Math.log(corrected);
+            recs[count] = 1/corrected;
+        }
+    }
+
+    /**
+     * Returns the logarithm of a corrected allele count.
+     *
+     * @param count an allele count
+     * @return the logarithm of the corrected count
+     */
+    double log(int count) {
+        return (count < logs.length) ? logs[count] : Math.log(Model.correctContinuous(count));
+    }
+
+    /**
+     * Returns the reciprocal of a corrected allele count, the same as 1/Model.correctContinuous(count).
+     *
+     * @param count an allele count
+     * @return the reciprocal of the corrected count
+     */
+    double rec(int count) {
+        return (count < recs.length) ? recs[count] : 1/Model.correctContinuous(count);
+    }
+
+    /**
+     * Checks whether the sum of tabulated logarithms can be rounded instead of the exact logarithm.
+     *
+     * @param logOdds the sum of tabulated logarithms
+     * @return true, the rounded sum is the same as the rounded exact logarithm; false, otherwise
+     */
+    static boolean isSafe(double logOdds) {
+        double scaled = logOdds * 1000000d;
+        if (!(Math.abs(scaled) < 1e15)) return false;
+        double fraction = Math.abs(scaled - (long) scaled);
+        return Math.abs(fraction - 0.5d) > GUARD;
+    }
+
+    /**
+     * Calculates the logarithm of Odds ratio, the same as {@link Model#calLogOdds}.
+     *
+     * @param countAw counts of ancestral allele in population A
+     * @param countAm counts of derived allele in population A
+     * @param countBw counts of ancestral allele in population B
+     * @param countBm counts of derived allele in population B
+     * @return the logarithm of Odds ratio
+     */
+    double calLogOdds(int countAw, int countAm, int countBw, int countBm) {
+        double logOdds = (log(countAm) + log(countBw)) - (log(countAw) + log(countBm));
+        return isSafe(logOdds) ? Model.round(logOdds) : Model.calLogOdds(countAw, countAm, countBw, countBm);
+    }
+
+    /**
+     * Calculates the variance of the logarithm of Odds ratio, the same as {@link Model#calVarLogOdds}.
+     *
+     * @param countAw counts of ancestral allele in population A
+     * @param countAm counts of derived allele in population A
+     * @param countBw counts of ancestral allele in population B
+     * @param countBm counts of derived allele in population B
+     * @return the variance of the logarithm of Odds ratio
+     */
+    double calVarLogOdds(int countAw, int countAm, int countBw, int countBm) {
+        return Model.round(rec(countAw) + rec(countAm) + rec(countBw) + rec(countBm));
+    }
+
+    /**
+     * Calculates the drift variance between two populations, the same as {@link Model#calVarOmega}.
+     *
+     * @param countAw counts of ancestral allele in population A
+     * @param countAm counts of derived allele in population A
+     * @param countBw counts of ancestral allele in population B
+     * @param countBm counts of derived allele in population B
+     * @return the drift variance between two populations
+     */
+    double calVarOmega(int countAw, int countAm, int countBw, int countBm) {
+        double logOdds = calLogOdds(countAw, countAm, countBw, countBm);
+        double varLogOdds = calVarLogOdds(countAw, countAm, countBw, countBm);
+        return Model.round(logOdds * logOdds / 0.455 - varLogOdds);
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+/**
+ * Class {@code PairKernel} estimates selection differences of the population pairs of a variant,
+ * either all the pairs {m, n} with m < n, or the pairs selected with --pairs.
+ * The constants of each pair are stored in primitive arrays indexed by the population pair index,
+ * the terms of each population are computed once per variant,
+ * and all the pairs are swept in flat loops without calls or boxing.
+ * The logarithms and reciprocals of the corrected counts are looked up in a {@link ModelTable},
+ * so the results are the same as {@link Model#calLogOdds} and {@link Model#calVarLogOdds} bit for bit.
+ * A kernel keeps its results in its own arrays, so each thread should use its own kernel.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+final class PairKernel {
+
+    // an integer stores how many populations in the sample
+    private final int popNum;
+
+    // an integer stores how many population pairs in the sample
+    private final int popPairNum;
+
+    // the indexes of the first and second populations of each population pair
+    private final int[] firsts;
+    private final int[] seconds;
+
+    // a boolean indicates whether the population pairs are all the pairs {m, n} with m < n in order,
+    // which are swept in nested loops
+    private final boolean allPairs;
+
+    // the variance of Omega and the divergence time of each population pair
+    private final double[] popVars;
+    private final double[] times;
+
+    // a ModelTable instance stores the logarithms and reciprocals of corrected counts
+    private final ModelTable table;
+
+    // the corrected counts of the reference and alternative alleles of each population,
+    // their logarithms and their reciprocals
+    private final double[] refs;
+    private final double[] alts;
+    private final double[] logRefs;
+    private final double[] logAlts;
+    private final double[] recRefs;
+    private final double[] recAlts;
+
+    // the logarithm of the odds ratio and the sum of the reciprocals of the corrected counts of each population pair
+    private final double[] logOddses;
+    private final double[] recSums;
+
+    // the results of each population pair
+    final double[] diffs;
+    final double[] stds;
+    final double[] deltas;
+
+    /**
+     * Constructor of {@code PairKernel} estimating all the population pairs.
+     *
+     * @param popNum the number of populations
+     * @param popVars the variance of Omega of each population pair
+     * @param times the divergence time of each population pair
+     * @param table a ModelTable instance covering the allele counts
+     */
+    PairKernel(int popNum, double[] popVars, double[] times, ModelTable table) {
+        this(popNum, null, popVars, times, table);
+    }
+
+    /**
+     * Constructor of {@code PairKernel} estimating some population pairs.
+     *
+     * @param popNum the number of populations
+     * @param popPairs the indexes of the first and second populations of each population pair,
+     *                 or null for all the pairs {m, n} with m < n
+     * @param popVars the variance of Omega of each population pair
+     * @param times the divergence time of each population pair
+     * @param table a ModelTable instance covering the allele counts
+     */
+    PairKernel(int popNum, int[][] popPairs, double[] popVars, double[] times, ModelTable table) {
+        this.popNum = popNum;
+        this.popPairNum = (popPairs == null) ? popNum * (popNum - 1) / 2 : popPairs.length;
+        this.firsts = new int[popPairNum];
+        this.seconds = new int[popPairNum];
+        for (int m = 0, k = 0; m < popNum; m++) {
+            for (int n = m + 1; (n < popNum) && (k < popPairNum); n++, k++) {
+                firsts[k] = m;
+                seconds[k] = n;
+            }
+        }
+        boolean allPairs = (popPairNum == popNum * (popNum - 1) / 2);
+        if (popPairs != null) {
+            for (int k = 0; k < popPairNum; k++) {
+                allPairs &= (firsts[k] == popPairs[k][0]) && (seconds[k] == popPairs[k][1]);
+                firsts[k] = popPairs[k][0];
+                seconds[k] = popPairs[k][1];
+            }
+        }
+        this.allPairs = allPairs;
+        this.popVars = popVars;
+        this.times = times;
+        this.table = table;
+        this.refs = new double[popNum];
+        this.alts = new double[popNum];
+        this.logRefs = new double[popNum];
+        this.logAlts = new double[popNum];
+        this.recRefs = new double[popNum];
+        this.recAlts = new double[popNum];
+        this.logOddses = new double[popPairNum];
+        this.recSums = new double[popPairNum];
+        this.diffs = new double[popPairNum];
+        this.stds = new double[popPairNum];
+        this.deltas = new double[popPairNum];
+    }
+
+    /**
+     * Estimates selection differences of the population pairs of a variant.
+     * The results of the population pair with index k are stored in
+     * diffs[k], stds[k] and deltas[k]; the bounds of the confidence interval
+     * are computed from diffs[k] and stds[k] by {@code ResultFormat}.
+     *
+     * @param alleleCounts an integer array, where the counts of the reference and alternative alleles
+     *                     of the i-th population are stored in alleleCounts[offset+2*i] and alleleCounts[offset+2*i+1]
+     * @param offset the offset of the variant in alleleCounts
+     */
+    void compute(int[] alleleCounts, int offset) {
+        for (int i = 0; i < popNum; i++) {
+            int ref = alleleCounts[offset+2*i];
+            int alt = alleleCounts[offset+2*i+1];
+            refs[i] = Model.correctContinuous(ref);
+            alts[i] = Model.correctContinuous(alt);
+            logRefs[i] = table.log(ref);
+            logAlts[i] = table.log(alt);
+            recRefs[i] = table.rec(ref);
+            recAlts[i] = table.rec(alt);
+        }
+
+        if (allPairs) sweepAllPairs();
+        else sweepPairs();
+
+        for (int k = 0; k < popPairNum; k++) {
+            double logOdds = Model.round(logOddses[k]);
+            double var = Model.round(recSums[k]) + popVars[k];
+            double time = times[k];
+            double diff = logOdds / time;
+            double std = Math.sqrt(var) / time;
+            diffs[k] = diff;
+            stds[k] = std;
+            deltas[k] = logOdds * logOdds / var;
+        }
+    }
+
+    /**
+     * Helper function for computing the logarithms of the odds ratios and the sums of the reciprocals
+     * of all the population pairs, where pairs {m, n} with m < n have consecutive indexes.
+     */
+    private void sweepAllPairs() {
+        for (int m = 0, k = 0; m < popNum; m++) {
+            double refM = refs[m];
+            double altM = alts[m];
+            double logRefM = logRefs[m];
+            double logAltM = logAlts[m];
+            double recM = recRefs[m] + recAlts[m];
+            for (int n = m + 1; n < popNum; n++, k++) {
+                double logOdds = (logAltM + logRefs[n]) - (logRefM + logAlts[n]);
+                // fall back to the exact logarithm near the midpoint of two rounded values
+                logOddses[k] = ModelTable.isSafe(logOdds) ? logOdds : Math.log((altM * refs[n]) / (refM * alts[n]));
+                recSums[k] = recM + recRefs[n] + recAlts[n];
+            }
+        }
+    }
+
+    /**
+     * Helper function for computing the logarithms of the odds ratios and the sums of the reciprocals
+     * of the selected population pairs, which gives the same results as {@link #sweepAllPairs()} for the same pairs.
+     */
+    private void sweepPairs() {
+        for (int k = 0; k < popPairNum; k++) {
+            int m = firsts[k];
+            int n = seconds[k];
+            double logOdds = (logAlts[m] + logRefs[n]) - (logRefs[m] + logAlts[n]);
+            // fall back to the exact logarithm near the midpoint of two rounded values
+            logOddses[k] = ModelTable.isSafe(logOdds) ? logOdds : Math.log((alts[m] * refs[n]) / (refs[m] * alts[n]));
+            recSums[k] = recRefs[m] + recAlts[m] + recRefs[n] + recAlts[n];
+        }
+    }
+
+}
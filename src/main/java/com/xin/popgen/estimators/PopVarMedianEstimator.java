@@ -17,8 +17,13 @@ package com.xin.popgen.estimators;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.StringJoiner;
 
+import com.xin.popgen.infos.RegionInfo;
+
 /**
  * Class {@code PopVarMedianEstimator} extends {@code Estimator} to
  * estimate variances of drift between populations.
@@ -29,6 +34,9 @@ public abstract class PopVarMedianEstimator extends Estimator {
 
     // a double array stores medians of variances of drift
     final double[] popPairVarMedians;
+
+    // the ModelCache instances used by findMedians, whose hit rate is reported on the standard error
+    final List<ModelCache> caches = new ArrayList<>();
     
     /**
      * Constructor of class {@code PopVarMedianEstimator}.
@@ -37,7 +45,33 @@ public abstract class PopVarMedianEstimator extends Estimator {
      * @param snpFileName an EIGENSTRAT .snp file name
      */
     PopVarMedianEstimator(String genoFileName, String indFileName, String snpFileName, String outputFileName, char format) {
-    	super(genoFileName, indFileName, snpFileName, outputFileName, format);
+        this(genoFileName, indFileName, snpFileName, outputFileName, format, null);
+    }
+
+    /**
+     * Constructor of class {@code PopVarMedianEstimator} using only the SNPs within some regions.
+     *
+     * @param indFileName an EIGENSTRAT .ind file name
+     * @param snpFileName an EIGENSTRAT .snp file name
+     * @param regionInfo a RegionInfo instance storing the regions, or null for all the SNPs
+     */
+    PopVarMedianEstimator(String genoFileName, String indFileName, String snpFileName, String outputFileName, char format,
+                          RegionInfo regionInfo) {
+        this(genoFileName, indFileName, snpFileName, outputFileName, format, regionInfo, null);
+    }
+
+    /**
+     * Constructor of class {@code PopVarMedianEstimator} using only the SNPs within some regions
+     * and estimating only some population pairs.
+     *
+     * @param indFileName an EIGENSTRAT .ind file name
+     * @param snpFileName an EIGENSTRAT .snp file name
+     * @param regionInfo a RegionInfo instance storing the regions, or null for all the SNPs
+     * @param pairFileName the name of a file storing the population pairs, or null for all the population pairs
+     */
+    PopVarMedianEstimator(String genoFileName, String indFileName, String snpFileName, String outputFileName, char format,
+                          RegionInfo regionInfo, String pairFileName) {
+    	super(genoFileName, indFileName, snpFileName, outputFileName, format, regionInfo, pairFileName);
 
         popPairVarMedians = new double[popPairNum];
     }
@@ -45,6 +79,7 @@ public abstract class PopVarMedianEstimator extends Estimator {
     @Override
 	public void analyze() {
 		findMedians();
+		System.err.println(ModelCache.report(caches));
 		writeResults();
 	}
     
@@ -57,7 +92,7 @@ public abstract class PopVarMedianEstimator extends Estimator {
     protected void writeHeader(BufferedWriter bw) throws IOException {}
 
     @Override
-    protected void writeLine(BufferedWriter bw) throws IOException {
+    protected void writeLine(BufferedWriter bw, OutputStream out) throws IOException {
         for (int i = 0; i < popPairNum; i++) {
             StringJoiner sj = new StringJoiner("\t");
             sj.add(popPairIds[i][0])
@@ -0,0 +1,201 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Class {@code ResultBuffer} is a reusable byte array for results written to a file,
+ * so that fixed-precision decimals, tabs, population IDs and SNP information are appended
+ * without creating objects and written in large chunks.
+ * Binary results are appended as little-endian integers and doubles.
+ * Decimals are formatted in the same way as {@link Estimator#format(double, int)}.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+final class ResultBuffer {
+
+    private static final long[] POW10 = {1, 10, 100, 1000, 10000, 100000, 1000000};
+
+    // the line separator written by BufferedWriter.newLine()
+    static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+    // a byte array stores the results
+    private byte[] buf;
+
+    // an integer stores how many bytes are in the buffer
+    private int length = 0;
+
+    /**
+     * Constructor of {@code ResultBuffer}.
+     *
+     * @param capacity the initial size of the buffer
+     */
+    ResultBuffer(int capacity) {
+        this.buf = new byte[Math.max(16, capacity)];
+    }
+
+    /**
+     * Returns how many bytes are in the buffer.
+     *
+     * @return the number of bytes
+     */
+    int length() { return length; }
+
+    /**
+     * Removes all the bytes in the buffer.
+     */
+    void clear() { length = 0; }
+
+    /**
+     * Appends a byte.
+     *
+     * @param b a byte
+     * @return this buffer
+     */
+    ResultBuffer append(byte b) {
+        ensureCapacity(1);
+        buf[length++] = b;
+        return this;
+    }
+
+    /**
+     * Appends some bytes.
+     *
+     * @param bytes a byte array
+     * @return this buffer
+     */
+    ResultBuffer append(byte[] bytes) {
+        return append(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Appends some bytes.
+     *
+     * @param bytes a byte array
+     * @param start the start of the bytes
+     * @param count how many bytes are appended
+     * @return this buffer
+     */
+    ResultBuffer append(byte[] bytes, int start, int count) {
+        ensureCapacity(count);
+        System.arraycopy(bytes, start, buf, length, count);
+        length += count;
+        return this;
+    }
+
+    /**
+     * Appends a decimal with a fixed number of decimal points, rounding half up.
+     *
+     * @param val a double value
+     * @param precision the number of decimal points, from 1 to 6
+     * @return this buffer
+     */
+    ResultBuffer append(double val, int precision) {
+        // at most a sign, 19 digits of a long integer, a decimal point and 6 decimal points
+        ensureCapacity(27);
+        if (val < 0) {
+            buf[length++] = '-';
+            val = -val;
+        }
+        long exp = POW10[precision];
+        long lval = (long) (val * exp + 0.5);
+        appendLong(lval / exp);
+        buf[length++] = '.';
+        long fval = lval % exp;
+        for (int p = length + precision - 1; p >= length; p--) {
+            buf[p] = (byte) ('0' + fval % 10);
+            fval /= 10;
+        }
+        length += precision;
+        return this;
+    }
+
+    /**
+     * Appends an integer as 4 little-endian bytes.
+     *
+     * @param val an integer
+     * @return this buffer
+     */
+    ResultBuffer putInt(int val) {
+        ensureCapacity(4);
+        for (int i = 0; i < 4; i++) {
+            buf[length++] = (byte) (val >>> (8 * i));
+        }
+        return this;
+    }
+
+    /**
+     * Appends a double value as 8 little-endian bytes.
+     *
+     * @param val a double value
+     * @return this buffer
+     */
+    ResultBuffer putDouble(double val) {
+        ensureCapacity(8);
+        long bits = Double.doubleToRawLongBits(val);
+        for (int i = 0; i < 8; i++) {
+            buf[length++] = (byte) (bits >>> (8 * i));
+        }
+        return this;
+    }
+
+    /**
+     * Helper function for appending a non-negative long integer.
+     *
+     * @param val a non-negative long integer
+     */
+    private void appendLong(long val) {
+        int digits = 1;
+        for (long v = val / 10; v > 0; v /= 10) digits++;
+        for (int p = length + digits - 1; p >= length; p--) {
+            buf[p] = (byte) ('0' + val % 10);
+            val /= 10;
+        }
+        length += digits;
+    }
+
+    /**
+     * Writes the bytes in the buffer.
+     *
+     * @param out an OutputStream instance
+     * @throws IOException
+     */
+    void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, length);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buf, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Helper function for enlarging the buffer.
+     *
+     * @param count how many bytes will be appended
+     */
+    private void ensureCapacity(int count) {
+        if (length + count > buf.length) {
+            byte[] newBuf = new byte[Math.max(2 * buf.length, length + count)];
+            System.arraycopy(buf, 0, newBuf, 0, length);
+            buf = newBuf;
+        }
+    }
+
+}
@@ -0,0 +1,257 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.xin.popgen.infos.Info;
+
+/**
+ * Class {@code ResultFormat} defines the text, wide and binary formats of the results of compute-diff.
+ * The text format has one line for each variant and population pair.
+ * The wide format has one line for each variant, i.e. CHROMO POS ID REF ALT followed by
+ * the same columns as the text format for each population pair in the order of {@code PopInfo.getPopPair}.
+ * The binary format is a little-endian file with two parts:
+ * <ul>
+ *     <li>a header with the population IDs and the population pairs as pairs of population indexes;</li>
+ *     <li>a record for each variant, i.e. the length and the bytes of CHROMO POS ID REF ALT delimited by tabs,
+ *     followed by the selection differences, their standard deviations, the deltas and the p-values
+ *     of all the population pairs as columns of doubles.</li>
+ * </ul>
+ * The bounds of 95% confidence intervals are not stored, because they are computed from the selection differences
+ * and their standard deviations, so that {@link #view} converts a binary file into the same text as compute-diff.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+public final class ResultFormat {
+
+    // the first four bytes of a binary file
+    private static final byte[] MAGIC = {'S', 'D', 'R', 1};
+
+    // the header of the text format
+    static final String HEADER = String.join("\t", "#CHROMO", "POS", "ID", "Ref", "Alt",
+            "Population 1", "Population 2", "Selection difference (Population 1 - Population 2)", "Std",
+            "Lower bound of 95% CI", "Upper bound of 95% CI", "Delta", "p-value", "\n");
+
+    private static final byte TAB = '\t';
+
+    // the columns of the text format for each population pair in the wide format
+    private static final String[] WIDE_COLUMNS = {"Selection difference", "Std",
+            "Lower bound of 95% CI", "Upper bound of 95% CI", "Delta", "p-value"};
+
+    private ResultFormat() {}
+
+    /**
+     * Encodes the population IDs of population pairs between tabs as in the text format.
+     *
+     * @param popPairIds the population IDs of each population pair
+     * @return a byte array for each population pair
+     */
+    static byte[][] encodePopPairs(String[][] popPairIds) {
+        byte[][] prefixes = new byte[popPairIds.length][];
+        for (int i = 0; i < popPairIds.length; i++) {
+            prefixes[i] = ("\t" + popPairIds[i][0] + "\t" + popPairIds[i][1] + "\t").getBytes(Charset.defaultCharset());
+        }
+        return prefixes;
+    }
+
+    /**
+     * Returns the header of the wide format, where each column is followed by the population pair,
+     * e.g. Selection difference (YRI - CEU).
+     *
+     * @param popPairIds the population IDs of each population pair
+     * @return the header of the wide format
+     */
+    static String wideHeader(String[][] popPairIds) {
+        StringBuilder sb = new StringBuilder("#CHROMO\tPOS\tID\tRef\tAlt");
+        for (String[] popPair:popPairIds) {
+            String suffix = " (" + popPair[0] + " - " + popPair[1] + ")";
+            for (String column:WIDE_COLUMNS) {
+                sb.append('\t').append(column).append(suffix);
+            }
+        }
+        return sb.append(System.lineSeparator()).toString();
+    }
+
+    /**
+     * Appends a line of the text format, except the information of the variant at the beginning.
+     *
+     * @param out a ResultBuffer instance
+     * @param popPairPrefix the population IDs of the population pair encoded by {@link #encodePopPairs}
+     * @param diff the selection difference
+     * @param std the standard deviation of the selection difference
+     * @param delta the delta statistic
+     * @param pvalue the p-value of the delta statistic
+     */
+    static void appendText(ResultBuffer out, byte[] popPairPrefix, double diff, double std, double delta, double pvalue) {
+        out.append(popPairPrefix)
+                .append(diff, 6)
+                .append(TAB)
+                .append(std, 6)
+                .append(TAB)
+                .append(diff - 1.96 * std, 6)
+                .append(TAB)
+                .append(diff + 1.96 * std, 6)
+                .append(TAB)
+                .append(TAB)
+                .append(delta, 3)
+                .append(TAB)
+                .append(pvalue, 6)
+                .append(ResultBuffer.LINE_SEPARATOR);
+    }
+
+    /**
+     * Appends the columns of a population pair in the wide format.
+     * The information of the variant is appended once before the columns of the first population pair,
+     * and a line separator after the columns of the last population pair.
+     *
+     * @param out a ResultBuffer instance
+     * @param diff the selection difference
+     * @param std the standard deviation of the selection difference
+     * @param delta the delta statistic
+     * @param pvalue the p-value of the delta statistic
+     */
+    static void appendWide(ResultBuffer out, double diff, double std, double delta, double pvalue) {
+        out.append(TAB)
+                .append(diff, 6)
+                .append(TAB)
+                .append(std, 6)
+                .append(TAB)
+                .append(diff - 1.96 * std, 6)
+                .append(TAB)
+                .append(diff + 1.96 * std, 6)
+                .append(TAB)
+                .append(delta, 3)
+                .append(TAB)
+                .append(pvalue, 6);
+    }
+
+    /**
+     * Appends the header of the binary format.
+     *
+     * @param out a ResultBuffer instance
+     * @param popIds the population IDs
+     * @param popPairs the indexes of the two populations of each population pair
+     */
+    static void appendBinaryHeader(ResultBuffer out, String[] popIds, int[][] popPairs) {
+        out.append(MAGIC).putInt(popIds.length);
+        for (String popId:popIds) {
+            byte[] id = popId.getBytes(StandardCharsets.UTF_8);
+            out.putInt(id.length).append(id);
+        }
+        out.putInt(popPairs.length);
+        for (int[] popPair:popPairs) {
+            out.putInt(popPair[0]).putInt(popPair[1]);
+        }
+    }
+
+    /**
+     * Converts a binary file written by compute-diff into the text format.
+     * Both files can be compressed as in compute-diff.
+     *
+     * @param inputFileName the name of a binary file
+     * @param outputFileName the name of the text file
+     * @return how many variants are converted
+     * @throws IOException
+     */
+    public static long view(String inputFileName, String outputFileName) throws IOException {
+        long snpNum = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Info.openInputStream(inputFileName), 1 << 16));
+             OutputStream out = Estimator.openOutputStream(outputFileName)) {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC))
+                throw new IllegalArgumentException(inputFileName + " is not a binary output of compute-diff.");
+            String[] popIds = new String[readInt(in)];
+            for (int i = 0; i < popIds.length; i++) {
+                byte[] id = new byte[readInt(in)];
+                in.readFully(id);
+                popIds[i] = new String(id, StandardCharsets.UTF_8);
+            }
+            String[][] popPairIds = new String[readInt(in)][];
+            for (int i = 0; i < popPairIds.length; i++) {
+                popPairIds[i] = new String[]{popIds[readInt(in)], popIds[readInt(in)]};
+            }
+            byte[][] prefixes = encodePopPairs(popPairIds);
+            int popPairNum = popPairIds.length;
+
+            out.write(HEADER.getBytes(Charset.defaultCharset()));
+            ResultBuffer buf = new ResultBuffer(1 << 16);
+            byte[] info = new byte[256];
+            byte[] bytes = new byte[32 * popPairNum];
+            double[] values = new double[4 * popPairNum];
+            int first;
+            while ((first = in.read()) != -1) {
+                int length = first | (readInt(in, 3) << 8);
+                if (info.length < length) info = new byte[2 * length];
+                in.readFully(info, 0, length);
+                in.readFully(bytes);
+                ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(values);
+                for (int k = 0; k < popPairNum; k++) {
+                    buf.append(info, 0, length);
+                    appendText(buf, prefixes[k], values[k], values[popPairNum+k],
+                            values[2*popPairNum+k], values[3*popPairNum+k]);
+                }
+                if (buf.length() >= (1 << 16)) {
+                    buf.writeTo(out);
+                    buf.clear();
+                }
+                snpNum++;
+            }
+            buf.writeTo(out);
+        } catch (EOFException e) {
+            throw new IllegalArgumentException(inputFileName + " is truncated.");
+        }
+        return snpNum;
+    }
+
+    /**
+     * Helper function for reading a little-endian integer.
+     *
+     * @param in a DataInputStream instance
+     * @return an integer
+     * @throws IOException
+     */
+    private static int readInt(DataInputStream in) throws IOException {
+        return Integer.reverseBytes(in.readInt());
+    }
+
+    /**
+     * Helper function for reading the remaining bytes of a little-endian integer.
+     *
+     * @param in a DataInputStream instance
+     * @param n the number of bytes
+     * @return the bytes as an integer
+     * @throws IOException
+     */
+    private static int readInt(DataInputStream in, int n) throws IOException {
+        int val = 0;
+        for (int i = 0; i < n; i++) {
+            val |= in.readUnsignedByte() << (8 * i);
+        }
+        return val;
+    }
+
+}
@@ -16,10 +16,16 @@
 package com.xin.popgen.estimators;
 
 import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.StringJoiner;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.List;
 
+import com.xin.popgen.infos.CountInfo;
 import com.xin.popgen.infos.PopVarInfo;
+import com.xin.popgen.infos.RegionInfo;
 import com.xin.popgen.infos.TimeInfo;
 
 /**
@@ -35,9 +41,34 @@ public class SeleDiffEstimator extends Estimator {
     
     // a TimeInfo instance stores divergence times of population pairs
     private final TimeInfo timeInfo;
+
+    // the variance of drift and the divergence time of each population pair
+    private final double[] popVars;
+    private final double[] times;
+
+    // a ModelTable instance stores the logarithms and reciprocals of corrected counts
+    private final ModelTable table;
+
+    // a PairKernel instance of each thread, reused by all the batches analyzed by the thread
+    private final ThreadLocal<PairKernel> kernels;
     
-    // a ChiSquareTable stores p-value of chi-square statistics
+    // a ChiSquareTable computes p-values of chi-square statistics
     private final ChiSquareTable chisq = new ChiSquareTable();
+
+    // the population IDs of each population pair between tabs, encoded as the header
+    private final byte[][] popPairPrefixes;
+
+    // a character indicates the format of the results in {@code ResultFormat}: 't', text; 'w', wide; 'b', binary
+    private char outputFormat = 't';
+
+    // a boolean indicates whether only the results with p-values not larger than maxPvalue
+    // and deltas not smaller than minDelta are written
+    private boolean filtered = false;
+    private double maxPvalue = 1;
+    private double minDelta = 0;
+
+    // a TopResults instance keeps the most significant results, or null if the results are not ranked
+    private TopResults topResults = null;
     
     /**
      * Constructor of class {@code SeleDiffEstimator}.
@@ -49,9 +80,48 @@ public class SeleDiffEstimator extends Estimator {
      */
     SeleDiffEstimator(String genoFileName, String indFileName, String snpFileName,
     		String popVarFileName, String timeFileName, String outputFileName, char format) {
-    	super(genoFileName, indFileName, snpFileName, outputFileName, format);
-        this.popVarInfo = new PopVarInfo(popVarFileName, popInfo);
-        this.timeInfo = new TimeInfo(timeFileName, popInfo);
+        this(genoFileName, indFileName, snpFileName, popVarFileName, timeFileName, outputFileName, format, null);
+    }
+
+    /**
+     * Constructor of class {@code SeleDiffEstimator} analyzing only the SNPs within some regions.
+     *
+     * @param indFileName the name of an EIGENSTRAT IND file
+     * @param snpFileName the name of an EIGENSTRAT SNP file
+     * @param popVarFileName the name of a file stores population variances
+     * @param timeFileName the name of a file stores divergence time between populations
+     * @param regionInfo a RegionInfo instance storing the regions, or null for all the SNPs
+     */
+    SeleDiffEstimator(String genoFileName, String indFileName, String snpFileName,
+    		String popVarFileName, String timeFileName, String outputFileName, char format, RegionInfo regionInfo) {
+        this(genoFileName, indFileName, snpFileName, popVarFileName, timeFileName, outputFileName, format, regionInfo, null);
+    }
+
+    /**
+     * Constructor of class {@code SeleDiffEstimator} analyzing only the SNPs within some regions
+     * and some population pairs.
+     *
+     * @param indFileName the name of an EIGENSTRAT IND file
+     * @param snpFileName the name of an EIGENSTRAT SNP file
+     * @param popVarFileName the name of a file stores population variances
+     * @param timeFileName the name of a file stores divergence time between populations
+     * @param regionInfo a RegionInfo instance storing the regions, or null for all the SNPs
+     * @param pairFileName the name of a file storing the population pairs, or null for all the population pairs
+     */
+    SeleDiffEstimator(String genoFileName, String indFileName, String snpFileName, String popVarFileName,
+            String timeFileName, String outputFileName, char format, RegionInfo regionInfo, String pairFileName) {
+    	super(genoFileName, indFileName, snpFileName, outputFileName, format, regionInfo, pairFileName);
+        this.popVarInfo = new PopVarInfo(popVarFileName, popInfo, popPairs);
+        this.timeInfo = new TimeInfo(timeFileName, popInfo, popPairs);
+        this.popVars = new double[popPairNum];
+        this.times = new double[popPairNum];
+        for (int i = 0; i < popPairNum; i++) {
+            popVars[i] = popVarInfo.getPopVar(popPairs[i][0], popPairs[i][1]);
+            times[i] = timeInfo.getTime(popPairs[i][0], popPairs[i][1]);
+        }
+        this.table = createModelTable();
+        this.kernels = ThreadLocal.withInitial(() -> new PairKernel(popNum, popPairs, popVars, times, table));
+        this.popPairPrefixes = ResultFormat.encodePopPairs(popPairIds);
     }
     
 	@Override
@@ -59,65 +129,290 @@ public class SeleDiffEstimator extends Estimator {
         writeResults();
 	}
 
+    /**
+     * Sets the format of the results defined in {@code ResultFormat}.
+     *
+     * @param outputFormat 't', the text format; 'w', the wide format; 'b', the binary format
+     */
+    void setOutputFormat(char outputFormat) {
+        if ((outputFormat != 't') && (outputFormat != 'w') && (outputFormat != 'b'))
+            throw new IllegalArgumentException("Unsupported output format: " + outputFormat);
+        this.outputFormat = outputFormat;
+    }
+
+    /**
+     * Sets the largest p-value of the results written.
+     *
+     * @param maxPvalue the largest p-value
+     */
+    void setMaxPvalue(double maxPvalue) {
+        this.maxPvalue = maxPvalue;
+        this.filtered = true;
+    }
+
+    /**
+     * Sets the smallest delta of the results written.
+     *
+     * @param minDelta the smallest delta
+     */
+    void setMinDelta(double minDelta) {
+        this.minDelta = minDelta;
+        this.filtered = true;
+    }
+
+    /**
+     * Sets how many of the most significant results are written at the end, ranked by their deltas.
+     *
+     * @param topK the number of results
+     */
+    void setTopK(int topK) {
+        if (outputFormat != 't')
+            throw new IllegalArgumentException("--top-k can only be used with --output-format text.");
+        this.topResults = new TopResults(topK);
+    }
+
+    /**
+     * Helper function for writing the header of the binary format.
+     *
+     * @param out an OutputStream instance to the output file
+     * @throws IOException
+     */
+    private void writeBinaryHeader(OutputStream out) throws IOException {
+        String[] popIds = new String[popNum];
+        for (int i = 0; i < popNum; i++) {
+            popIds[i] = popInfo.getPopId(i);
+        }
+        ResultBuffer header = new ResultBuffer(1024);
+        ResultFormat.appendBinaryHeader(header, popIds, popPairs);
+        header.writeTo(out);
+    }
+
     @Override
-    protected void writeLine(BufferedWriter bw) throws IOException {
-        int snpNum = 0;
-    	int[][] alleleCounts;
-    	while ((alleleCounts = genoInfo.countAlleles()) != null) {
-    	    snpNum++;
-            String snp = genoInfo.getSnpInfo();
-            for (int m = 0; m < alleleCounts.length; m++) {
-                for (int n = m + 1; n < alleleCounts.length; n++) {
-                    int popPairIndex = popInfo.getPopPairIndex(m, n);
-                    double popVar = popVarInfo.getPopVar(popPairIndex);
-                    double time = timeInfo.getTime(popPairIndex);
-                    double logOdds = Model.calLogOdds(alleleCounts[m][0],
-                                alleleCounts[m][1], alleleCounts[n][0], alleleCounts[n][1]);
-                    double varLogOdds = Model.calVarLogOdds(alleleCounts[m][0],
-                                alleleCounts[m][1], alleleCounts[n][0], alleleCounts[n][1]);
-                    double diff = logOdds / time;
-                    double std = Math.sqrt(varLogOdds + popVar)
-                                / time;
-                    String delta = format((logOdds * logOdds / (varLogOdds + popVar)), 3);
-                    double[] vals = new double[]{diff, std, diff - 1.96 * std, diff + 1.96 * std};
-
-                    bw.write(snp);
-                    bw.write("\t");
-                    bw.write(popPairIds[popPairIndex][0]);
-                    bw.write("\t");
-                    bw.write(popPairIds[popPairIndex][1]);
-                    bw.write("\t");
-                    bw.write(format(vals, 6));
-                    bw.write("\t");
-                    bw.write(delta);
-                    bw.write("\t");
-                    bw.write(chisq.getPvalue(delta));
-                    bw.newLine();
-                }
-            }
+    protected void writeLine(BufferedWriter bw, OutputStream out) throws IOException {
+        bw.flush();
+        if (outputFormat == 'b') writeBinaryHeader(out);
+        long snpNum;
+        if (splits > 1) {
+            snpNum = writeRanges(out);
+        }
+        else {
+            BatchPipeline pipeline = new BatchPipeline(genoInfo, popNum, popPairNum, threads);
+            pipeline.run(batch -> analyzeBatch(batch, 0), batch -> batch.writeTo(out));
+            snpNum = pipeline.getSnpNum();
         }
+        if (topResults != null) writeTopResults(out);
         System.out.println(snpNum + " variants are read from " + snpFileName);
     	genoInfo.close();
     }
 
+    /**
+     * Helper function for estimating selection differences in byte ranges of the input in parallel.
+     * The results of the first range are written to the output file directly,
+     * and the results of the other ranges are written to temporary files and appended in order.
+     *
+     * @param out an OutputStream instance to the output file
+     * @return how many variants are read
+     * @throws IOException
+     */
+    private long writeRanges(OutputStream out) throws IOException {
+        CountInfo[] ranges = genoInfo.split(splits);
+        File dir = new File(outputFileName).getAbsoluteFile().getParentFile();
+        File[] parts = new File[ranges.length];
+        try {
+            for (int i = 1; i < ranges.length; i++) {
+                parts[i] = File.createTempFile("seleDiff", ".part", dir);
+                parts[i].deleteOnExit();
+            }
+            List<Long> snpNums = analyzeRanges(ranges, (i, range) -> {
+                BatchPipeline pipeline = new BatchPipeline(range, popNum, popPairNum, threads);
+                if (i == 0) {
+                    pipeline.run(batch -> analyzeBatch(batch, 0), batch -> batch.writeTo(out));
+                }
+                else {
+                    try (OutputStream part = new FileOutputStream(parts[i])) {
+                        pipeline.run(batch -> analyzeBatch(batch, i), batch -> batch.writeTo(part));
+                    }
+                }
+                return pipeline.getSnpNum();
+            });
+            for (int i = 1; i < ranges.length; i++) {
+                Files.copy(parts[i].toPath(), out);
+            }
+            return snpNums.stream().mapToLong(Long::longValue).sum();
+        } finally {
+            for (File part:parts) {
+                if ((part != null) && !part.delete()) part.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Helper function for writing the most significant results, ranked by their deltas.
+     *
+     * @param out an OutputStream instance to the output file
+     * @throws IOException
+     */
+    private void writeTopResults(OutputStream out) throws IOException {
+        ResultBuffer buf = new ResultBuffer(64 * 1024);
+        for (int slot:topResults.rank()) {
+            topResults.appendText(buf, slot, popPairPrefixes);
+            if (buf.length() >= 64 * 1024) {
+                buf.writeTo(out);
+                buf.clear();
+            }
+        }
+        buf.writeTo(out);
+    }
+
+    /**
+     * Helper function for estimating selection differences of the variants in a batch.
+     * This function may be called by several threads at the same time.
+     *
+     * @param batch a VariantBatch instance
+     * @param range the index of the byte range of the input containing the batch
+     */
+    private void analyzeBatch(VariantBatch batch, int range) {
+        PairKernel kernel = kernels.get();
+        for (int i = 0; i < batch.size; i++) {
+            kernel.compute(batch.counts, 2 * popNum * i);
+            if (topResults != null) {
+                // variants are ordered by the byte ranges and then by their orders in the ranges
+                offerTopResults(batch, i, kernel, ((long) range << 40) | (batch.first + i));
+                continue;
+            }
+            switch (outputFormat) {
+                case ('b'): if (isAccepted(kernel)) appendBinary(batch, i, kernel); break;
+                case ('w'): if (isAccepted(kernel)) appendWide(batch, i, kernel); break;
+                default: appendText(batch, i, kernel); break;
+            }
+        }
+    }
+
+    /**
+     * Helper function for checking whether a result passes --max-pvalue and --min-delta,
+     * which are compared with the delta and the p-value as they are written.
+     *
+     * @param delta the delta statistic of a result
+     * @return true, the result is written; false, otherwise
+     */
+    private boolean isAccepted(double delta) {
+        return !filtered || ((round(delta) >= minDelta) && (roundPvalue(getPvalue(delta)) <= maxPvalue));
+    }
+
+    /**
+     * Helper function for checking whether the result of any population pair of a variant is written.
+     *
+     * @param kernel a PairKernel instance storing the results of the variant
+     * @return true, the variant is written; false, otherwise
+     */
+    private boolean isAccepted(PairKernel kernel) {
+        if (!filtered) return true;
+        for (int k = 0; k < popPairNum; k++) {
+            if (isAccepted(kernel.deltas[k])) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Helper function for offering the results of a variant to the most significant results.
+     *
+     * @param batch a VariantBatch instance
+     * @param i the index of the variant in the batch
+     * @param kernel a PairKernel instance storing the results of the variant
+     * @param order the order of the variant in the input
+     */
+    private void offerTopResults(VariantBatch batch, int i, PairKernel kernel, long order) {
+        for (int k = 0; k < popPairNum; k++) {
+            double delta = kernel.deltas[k];
+            if (!topResults.isCandidate(delta) || !isAccepted(delta)) continue;
+            topResults.offer(delta, order, k, kernel.diffs[k], kernel.stds[k], getPvalue(delta),
+                    batch.infoBuffer(), batch.infoStart(i), batch.infoLength(i));
+        }
+    }
+
+    /**
+     * Helper function for appending the results of a variant in the text format.
+     *
+     * @param batch a VariantBatch instance
+     * @param i the index of the variant in the batch
+     * @param kernel a PairKernel instance storing the results of the variant
+     */
+    private void appendText(VariantBatch batch, int i, PairKernel kernel) {
+        for (int k = 0; k < popPairNum; k++) {
+            if (!isAccepted(kernel.deltas[k])) continue;
+            batch.appendSnpInfo(i);
+            ResultFormat.appendText(batch.out, popPairPrefixes[k], kernel.diffs[k], kernel.stds[k],
+                    kernel.deltas[k], getPvalue(kernel.deltas[k]));
+        }
+    }
+
+    /**
+     * Helper function for appending the results of a variant in the wide format.
+     *
+     * @param batch a VariantBatch instance
+     * @param i the index of the variant in the batch
+     * @param kernel a PairKernel instance storing the results of the variant
+     */
+    private void appendWide(VariantBatch batch, int i, PairKernel kernel) {
+        batch.appendSnpInfo(i);
+        for (int k = 0; k < popPairNum; k++) {
+            ResultFormat.appendWide(batch.out, kernel.diffs[k], kernel.stds[k],
+                    kernel.deltas[k], getPvalue(kernel.deltas[k]));
+        }
+        batch.out.append(ResultBuffer.LINE_SEPARATOR);
+    }
+
+    /**
+     * Helper function for appending the results of a variant in the binary format.
+     *
+     * @param batch a VariantBatch instance
+     * @param i the index of the variant in the batch
+     * @param kernel a PairKernel instance storing the results of the variant
+     */
+    private void appendBinary(VariantBatch batch, int i, PairKernel kernel) {
+        ResultBuffer out = batch.out;
+        batch.appendSnpRecord(i);
+        for (int k = 0; k < popPairNum; k++) out.putDouble(kernel.diffs[k]);
+        for (int k = 0; k < popPairNum; k++) out.putDouble(kernel.stds[k]);
+        for (int k = 0; k < popPairNum; k++) out.putDouble(kernel.deltas[k]);
+        for (int k = 0; k < popPairNum; k++) out.putDouble(getPvalue(kernel.deltas[k]));
+    }
+
+    /**
+     * Helper function for computing the p-value of a delta statistic as it is written,
+     * i.e. rounded to 3 decimal points.
+     *
+     * @param delta a delta statistic
+     * @return the p-value
+     */
+    private double getPvalue(double delta) {
+        return chisq.getPvalue(round(delta));
+    }
+
+    /**
+     * Helper function for rounding a delta statistic to 3 decimal points as it is written.
+     *
+     * @param delta a delta statistic
+     * @return the rounded delta statistic
+     */
+    private static double round(double delta) {
+        return (long) (delta * 1000 + 0.5) / 1000d;
+    }
+
+    /**
+     * Helper function for rounding a p-value to 6 decimal points as it is written.
+     *
+     * @param pvalue a p-value
+     * @return the rounded p-value
+     */
+    private static double roundPvalue(double pvalue) {
+        return (long) (pvalue * 1000000 + 0.5) / 1000000d;
+    }
+
     @Override
     protected void writeHeader(BufferedWriter bw) throws IOException {
-        StringJoiner sj = new StringJoiner("\t");
-        sj.add("#CHROMO")
-                .add("POS")
-                .add("ID")
-                .add("Ref")
-                .add("Alt")
-                .add("Population 1")
-                .add("Population 2")
-                .add("Selection difference (Population 1 - Population 2)")
-                .add("Std")
-                .add("Lower bound of 95% CI")
-                .add("Upper bound of 95% CI")
-                .add("Delta")
-                .add("p-value")
-                .add("\n");
-        bw.write(sj.toString());
+        if (outputFormat == 't') bw.write(ResultFormat.HEADER);
+        else if (outputFormat == 'w') bw.write(ResultFormat.wideHeader(popPairIds));
     }
 
 }
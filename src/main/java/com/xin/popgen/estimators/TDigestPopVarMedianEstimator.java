@@ -15,21 +15,40 @@
 */
 package com.xin.popgen.estimators;
 
-import static com.xin.popgen.estimators.Model.calVarOmega;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import com.tdunning.math.stats.ArrayDigest;
-import com.tdunning.math.stats.TDigest;
+import com.xin.popgen.infos.CountInfo;
+import com.xin.popgen.infos.RegionInfo;
 
 /**
  * Class {@code TDigestPopVarMedianEstimator} is a class for estimating median
  * using t-digest.
+ * The population pairs are divided into slices, one for each thread, and the digests of a slice
+ * are stored in its own {@code DigestArena}.
+ * The variances of drift are computed in small blocks of variants, one population pair after another,
+ * so that the allele counts of a block stay in the cache of the CPU,
+ * and staged in a {@code DigestBuffer}, which merges the values of a population pair into its digest
+ * once its buffer is full, however many variants are skipped for the population pair.
+ * Because the digest of a population pair receives its values in the order of the input
+ * whichever thread adds them, the medians do not depend on the number of threads.
  *
  * @author Xin Huang {@code xin.huang07@gmail.com}
  */
 public final class TDigestPopVarMedianEstimator extends PopVarMedianEstimator {
 
-    // an array of ArrayDigest stores empirical distributions of pairwise population variances
-	private final ArrayDigest[] popPairVarDigests;
+    // the number of variants in a block
+    static final int BLOCK_SIZE = 64;
+
+    // the number of variants in a batch read at once
+    private static final int BATCH_SIZE = 1024;
+
+    // a ModelTable instance shared by the caches of all the threads
+    private final ModelTable table;
 
     /**
      * Constructor of {@code TDigestPopVarMedianEstimator}
@@ -38,35 +57,214 @@ public final class TDigestPopVarMedianEstimator extends PopVarMedianEstimator {
      * @param snpFileName an EIGENSTRAT .snp file name
      */
 	TDigestPopVarMedianEstimator(String genoFileName, String indFileName, String snpFileName, String outputFileName, char format) {
-		super(genoFileName, indFileName, snpFileName, outputFileName, format);
-        popPairVarDigests = new ArrayDigest[popPairNum];
-        for (int i = 0; i < popPairNum; i++) {
-        	popPairVarDigests[i] = TDigest.createArrayDigest(100);
-        }
+		this(genoFileName, indFileName, snpFileName, outputFileName, format, null);
+	}
+
+    /**
+     * Constructor of {@code TDigestPopVarMedianEstimator} using only the SNPs within some regions.
+     *
+     * @param indFileName an EIGENSTRAT .ind file name
+     * @param snpFileName an EIGENSTRAT .snp file name
+     * @param regionInfo a RegionInfo instance storing the regions, or null for all the SNPs
+     */
+	TDigestPopVarMedianEstimator(String genoFileName, String indFileName, String snpFileName, String outputFileName, char format,
+								 RegionInfo regionInfo) {
+		this(genoFileName, indFileName, snpFileName, outputFileName, format, regionInfo, null);
+	}
+
+    /**
+     * Constructor of {@code TDigestPopVarMedianEstimator} using only the SNPs within some regions
+     * and estimating only some population pairs.
+     *
+     * @param indFileName an EIGENSTRAT .ind file name
+     * @param snpFileName an EIGENSTRAT .snp file name
+     * @param regionInfo a RegionInfo instance storing the regions, or null for all the SNPs
+     * @param pairFileName the name of a file storing the population pairs, or null for all the population pairs
+     */
+	TDigestPopVarMedianEstimator(String genoFileName, String indFileName, String snpFileName, String outputFileName, char format,
+								 RegionInfo regionInfo, String pairFileName) {
+		super(genoFileName, indFileName, snpFileName, outputFileName, format, regionInfo, pairFileName);
+        table = createModelTable();
 	}
 	
 	@Override
     protected void findMedians() {
-	    int[][] alleleCounts;
-	    int snpNum = 0;
-	    while ((alleleCounts = genoInfo.countAlleles()) != null) {
-	        snpNum++;
-            for (int m = 0; m < popNum; m++) {
-                for (int n = m + 1; n < popNum; n++) {
+	    long snpNum = 0;
+	    try {
+	        // each byte range of the input is added into its own digests,
+	        // which are merged in the order of the input
+	        CountInfo[] ranges = (splits > 1) ? genoInfo.split(splits) : new CountInfo[]{genoInfo};
+	        PairSlice[][] slices = new PairSlice[ranges.length][];
+	        List<Long> snpNums = analyzeRanges(ranges, (i, range) -> {
+	            slices[i] = createSlices();
+	            return addRange(range, slices[i]);
+            });
+	        for (int i = 0; i < ranges.length; i++) {
+	            for (int j = 0; j < slices[i].length; j++) {
+	                if (i > 0) slices[0][j].digests.add(slices[i][j].digests);
+	                caches.add(slices[i][j].cache);
+                }
+	            snpNum += snpNums.get(i);
+            }
+	        for (PairSlice slice:slices[0]) {
+	            for (int k = slice.from; k < slice.to; k++) {
+	                popPairVarMedians[k] = slice.digests.quantile(k - slice.from, 0.5d);
+                }
+            }
+        } catch (IOException e) {
+	        throw new IllegalArgumentException("Cannot read " + snpFileName + ": " + e.getMessage());
+        }
+        System.out.println(snpNum + " variants are read from " + snpFileName);
+        genoInfo.close();
+    }
+
+    /**
+     * Helper function for dividing the population pairs into contiguous slices of similar sizes,
+     * one for each thread.
+     *
+     * @return an array of PairSlice instances
+     */
+    private PairSlice[] createSlices() {
+        int sliceNum = Math.max(1, Math.min(threads, popPairNum));
+        PairSlice[] slices = new PairSlice[sliceNum];
+        for (int i = 0; i < sliceNum; i++) {
+            slices[i] = new PairSlice(i * popPairNum / sliceNum, (i + 1) * popPairNum / sliceNum, table);
+        }
+        return slices;
+    }
+
+    /**
+     * Helper function for adding the variances of drift of the SNPs of a byte range into the digests of some slices,
+     * reading batches of BATCH_SIZE SNPs.
+     * With several slices, each slice of a batch is analyzed by its own thread,
+     * while the calling thread reads the next batch.
+     *
+     * @param range a CountInfo instance reading the range
+     * @param slices the slices of the population pairs, only used for this range
+     * @return how many variants are read
+     * @throws IOException
+     */
+    private long addRange(CountInfo range, PairSlice[] slices) throws IOException {
+        // the counts of the reference and alternative alleles of the i-th population
+        // are stored in alleleCounts[2*i] and alleleCounts[2*i+1]
+        int[] alleleCounts = new int[2*popNum];
+        int[] batch = new int[2 * popNum * BATCH_SIZE];
+        long snpNum = 0;
+        if (slices.length == 1) {
+            int size;
+            while ((size = readBatch(range, alleleCounts, batch)) > 0) {
+                snpNum += size;
+                addVarOmegas(batch, size, slices[0]);
+            }
+        }
+        else {
+            ExecutorService pool = Executors.newFixedThreadPool(slices.length, r -> {
+                Thread t = new Thread(r, "seleDiff-worker");
+                t.setDaemon(true);
+                return t;
+            });
+            try {
+                int[] next = new int[batch.length];
+                int size = readBatch(range, alleleCounts, batch);
+                List<Future<?>> futures = new ArrayList<>();
+                while (size > 0) {
+                    snpNum += size;
+                    int[] counts = batch;
+                    int countNum = size;
+                    for (PairSlice slice:slices) {
+                        futures.add(pool.submit(() -> addVarOmegas(counts, countNum, slice)));
+                    }
+                    size = readBatch(range, alleleCounts, next);
+                    for (Future<?> future:futures) {
+                        BatchPipeline.get(future);
+                    }
+                    futures.clear();
+                    batch = next;
+                    next = counts;
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        for (PairSlice slice:slices) {
+            slice.buffers.flush();
+        }
+        return snpNum;
+    }
+
+    /**
+     * Helper function for reading the allele counts of at most BATCH_SIZE SNPs.
+     *
+     * @param range a CountInfo instance reading the range
+     * @param alleleCounts an integer array with a length of 2 * popNum for reading one SNP
+     * @param batch an integer array storing the allele counts of the SNPs one after another
+     * @return how many SNPs are read
+     */
+    private int readBatch(CountInfo range, int[] alleleCounts, int[] batch) {
+        int size = 0;
+        while ((size < BATCH_SIZE) && range.countAlleles(alleleCounts)) {
+            System.arraycopy(alleleCounts, 0, batch, 2 * popNum * size++, 2 * popNum);
+        }
+        return size;
+    }
+
+    /**
+     * Helper function for staging variances of drift of SNPs for the digests of the population pairs of a slice.
+     * The SNPs are analyzed in blocks of BLOCK_SIZE SNPs, one population pair after another.
+     *
+     * @param counts an integer array storing the allele counts of the SNPs, where the counts of
+     *               the i-th population in the j-th SNP are stored in counts[2*(j*popNum+i)] and counts[2*(j*popNum+i)+1]
+     * @param snpNum the number of SNPs
+     * @param slice a PairSlice instance only used by the calling thread
+     */
+    private void addVarOmegas(int[] counts, int snpNum, PairSlice slice) {
+        int stride = 2 * popNum;
+        for (int start = 0; start < snpNum * stride; start += BLOCK_SIZE * stride) {
+            int end = Math.min(snpNum, start / stride + BLOCK_SIZE) * stride;
+            for (int k = slice.from; k < slice.to; k++) {
+                int m = 2 * popPairs[k][0];
+                int n = 2 * popPairs[k][1];
+                for (int offset = start; offset < end; offset += stride) {
+                    int refM = counts[offset+m];
+                    int altM = counts[offset+m+1];
+                    int refN = counts[offset+n];
+                    int altN = counts[offset+n+1];
                     // Only use SNP neither fix nor lose in any population
-                    if ((alleleCounts[m][0] * alleleCounts[m][1] == 0) || (alleleCounts[n][0] * alleleCounts[n][1] == 0))
+                    if ((refM * altM == 0) || (refN * altN == 0))
                         continue;
-                    int popPairIndex = popInfo.getPopPairIndex(m, n);
-                    popPairVarDigests[popPairIndex].add(calVarOmega(alleleCounts[m][0],
-                                alleleCounts[m][1], alleleCounts[n][0], alleleCounts[n][1]));
+                    slice.buffers.add(k - slice.from, slice.cache.calVarOmega(refM, altM, refN, altN));
                 }
             }
         }
-        for (int i = 0; i < popPairNum; i++) {
-        	popPairVarMedians[i] = popPairVarDigests[i].quantile(0.5d);
+    }
+
+    /**
+     * Class {@code PairSlice} stores the digests, the buffers and the cache of
+     * the population pairs from {@code from} to {@code to - 1}.
+     */
+    private static final class PairSlice {
+
+        // the first population pair and the population pair after the last one of the slice
+        final int from;
+        final int to;
+
+        // the digests of the population pairs of the slice
+        final DigestArena digests;
+
+        // the buffers staging the values of the digests
+        final DigestBuffer buffers;
+
+        // a ModelCache instance only used by the thread of the slice
+        final ModelCache cache;
+
+        PairSlice(int from, int to, ModelTable table) {
+            this.from = from;
+            this.to = to;
+            digests = new DigestArena(to - from, DigestArena.DEFAULT_COMPRESSION);
+            buffers = new DigestBuffer(digests, to - from, DigestBuffer.DEFAULT_CAPACITY);
+            cache = new ModelCache(table, ModelCache.DEFAULT_CAPACITY);
         }
-        System.out.println(snpNum + " variants are read from " + snpFileName);
-        genoInfo.close();
+
     }
 	
 }
@@ -0,0 +1,228 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import java.util.Arrays;
+
+/**
+ * Class {@code TopResults} keeps the most significant results of compute-diff,
+ * i.e. the results of (variant, population pair) with the largest deltas, in a bounded heap.
+ * Results with the same delta are ranked by the order of the input, so the results kept
+ * do not depend on how many threads offer them.
+ * The results are stored in primitive arrays indexed by slots, and the heap only moves the slots,
+ * so that the slot of a removed result is reused without creating objects.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+final class TopResults {
+
+    // an integer stores how many results are kept at most
+    private final int capacity;
+
+    // an integer stores how many results are kept
+    private int size = 0;
+
+    // a min-heap of slots, where the least significant result is at the root
+    private final int[] heap;
+
+    // the results in each slot
+    private final double[] deltas;
+    private final double[] diffs;
+    private final double[] stds;
+    private final double[] pvalues;
+    private final long[] orders;
+    private final int[] popPairs;
+
+    // the information of the variant in each slot
+    private final byte[][] infos;
+    private final int[] infoLengths;
+
+    // the delta of the least significant result once the heap is full, which can be read without locking
+    private volatile double minDelta = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Constructor of {@code TopResults}.
+     *
+     * @param capacity the maximum number of results kept
+     */
+    TopResults(int capacity) {
+        this.capacity = capacity;
+        this.heap = new int[capacity];
+        this.deltas = new double[capacity];
+        this.diffs = new double[capacity];
+        this.stds = new double[capacity];
+        this.pvalues = new double[capacity];
+        this.orders = new long[capacity];
+        this.popPairs = new int[capacity];
+        this.infos = new byte[capacity][];
+        this.infoLengths = new int[capacity];
+    }
+
+    /**
+     * Returns whether a result with a delta may be kept, which is checked before offering it.
+     * Results with a NaN delta are never kept.
+     *
+     * @param delta the delta statistic of a result
+     * @return true, the result may be kept; false, otherwise
+     */
+    boolean isCandidate(double delta) {
+        return delta >= minDelta;
+    }
+
+    /**
+     * Offers a result, which replaces the least significant result if the heap is full.
+     *
+     * @param delta the delta statistic
+     * @param order the order of the variant in the input
+     * @param popPair the index of the population pair
+     * @param diff the selection difference
+     * @param std the standard deviation of the selection difference
+     * @param pvalue the p-value of the delta statistic
+     * @param info a byte array containing the information of the variant
+     * @param infoStart the start of the information in info
+     * @param infoLength the length of the information
+     */
+    synchronized void offer(double delta, long order, int popPair, double diff, double std, double pvalue,
+                            byte[] info, int infoStart, int infoLength) {
+        if (!isCandidate(delta)) return;
+        // a new result is added at the end of the heap, or replaces the root if the heap is full
+        int pos = 0;
+        if (size < capacity) {
+            pos = size++;
+            heap[pos] = pos;
+        }
+        else if (!isLess(heap[0], delta, order, popPair)) return;
+        int slot = heap[pos];
+        deltas[slot] = delta;
+        diffs[slot] = diff;
+        stds[slot] = std;
+        pvalues[slot] = pvalue;
+        orders[slot] = order;
+        popPairs[slot] = popPair;
+        if ((infos[slot] == null) || (infos[slot].length < infoLength)) infos[slot] = new byte[Math.max(64, infoLength)];
+        System.arraycopy(info, infoStart, infos[slot], 0, infoLength);
+        infoLengths[slot] = infoLength;
+        if (pos == 0) siftDown(0);
+        else siftUp(pos);
+        if (size == capacity) minDelta = deltas[heap[0]];
+    }
+
+    /**
+     * Returns how many results are kept.
+     *
+     * @return the number of results
+     */
+    int size() { return size; }
+
+    /**
+     * Returns the slots of the results kept, from the most significant to the least significant.
+     *
+     * @return an integer array of slots
+     */
+    synchronized int[] rank() {
+        int[] slots = Arrays.copyOf(heap, size);
+        int[] ranked = new int[size];
+        // a copy of the heap is emptied from the least significant result
+        for (int n = size; n > 0; n--) {
+            ranked[n-1] = slots[0];
+            slots[0] = slots[n-1];
+            for (int i = 0; ; ) {
+                int min = i;
+                int left = 2 * i + 1;
+                if ((left < n - 1) && isLess(slots[left], slots[min])) min = left;
+                if ((left + 1 < n - 1) && isLess(slots[left+1], slots[min])) min = left + 1;
+                if (min == i) break;
+                swap(slots, i, min);
+                i = min;
+            }
+        }
+        return ranked;
+    }
+
+    /**
+     * Appends the result in a slot in the text format.
+     *
+     * @param out a ResultBuffer instance
+     * @param slot the slot of a result
+     * @param popPairPrefixes the population IDs of each population pair encoded by {@code ResultFormat}
+     */
+    void appendText(ResultBuffer out, int slot, byte[][] popPairPrefixes) {
+        out.append(infos[slot], 0, infoLengths[slot]);
+        ResultFormat.appendText(out, popPairPrefixes[popPairs[slot]], diffs[slot], stds[slot],
+                deltas[slot], pvalues[slot]);
+    }
+
+    /**
+     * Helper function for comparing a slot with a result.
+     *
+     * @return true, the result in the slot is less significant than the other result; false, otherwise
+     */
+    private boolean isLess(int slot, double delta, long order, int popPair) {
+        if (deltas[slot] != delta) return deltas[slot] < delta;
+        if (orders[slot] != order) return orders[slot] > order;
+        return popPairs[slot] > popPair;
+    }
+
+    /**
+     * Helper function for comparing two slots.
+     *
+     * @return true, the result in slot a is less significant than the result in slot b; false, otherwise
+     */
+    private boolean isLess(int a, int b) {
+        return isLess(a, deltas[b], orders[b], popPairs[b]);
+    }
+
+    /**
+     * Helper function for moving a slot towards the root of the heap.
+     *
+     * @param i the position of the slot in the heap
+     */
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!isLess(heap[i], heap[parent])) break;
+            swap(heap, i, parent);
+            i = parent;
+        }
+    }
+
+    /**
+     * Helper function for moving a slot away from the root of the heap.
+     *
+     * @param i the position of the slot in the heap
+     */
+    private void siftDown(int i) {
+        while (true) {
+            int min = i;
+            int left = 2 * i + 1;
+            if ((left < size) && isLess(heap[left], heap[min])) min = left;
+            if ((left + 1 < size) && isLess(heap[left+1], heap[min])) min = left + 1;
+            if (min == i) break;
+            swap(heap, i, min);
+            i = min;
+        }
+    }
+
+    /**
+     * Helper function for swapping two elements in an array.
+     */
+    private static void swap(int[] a, int i, int j) {
+        int tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.xin.popgen.infos.ByteSlice;
+import com.xin.popgen.infos.CountInfo;
+
+/**
+ * Class {@code VariantBatch} stores the allele counts and SNP information of
+ * consecutive variants, so that they can be analyzed apart from the thread reading them.
+ * A batch is reused after its results are written.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+final class VariantBatch {
+
+    // an integer stores how many populations in the sample
+    final int popNum;
+
+    // an integer stores how many variants a batch can hold at most
+    final int capacity;
+
+    // an integer stores how many variants are in the batch
+    int size = 0;
+
+    // a long integer stores the order of the first variant of the batch in the input
+    long first = 0;
+
+    // the counts of the reference and alternative alleles of the i-th population in the j-th variant
+    // are stored in counts[2*(j*popNum+i)] and counts[2*(j*popNum+i)+1]
+    final int[] counts;
+
+    // a byte array stores the information of the variants one after another,
+    // the information of the j-th variant ends at infoEnds[j]
+    private byte[] info;
+    private final int[] infoEnds;
+
+    // a ResultBuffer instance stores the results of the batch
+    final ResultBuffer out = new ResultBuffer(64 * 1024);
+
+    // a ByteSlice instance for obtaining SNP information from a reader
+    private final ByteSlice snpInfo = new ByteSlice();
+
+    /**
+     * Constructor of {@code VariantBatch}.
+     *
+     * @param popNum the number of populations
+     * @param capacity the maximum number of variants in the batch
+     */
+    VariantBatch(int popNum, int capacity) {
+        this.popNum = popNum;
+        this.capacity = capacity;
+        this.counts = new int[2 * popNum * capacity];
+        this.info = new byte[64 * capacity];
+        this.infoEnds = new int[capacity];
+    }
+
+    /**
+     * Reads the next variants from a reader into the batch.
+     *
+     * @param genoInfo a CountInfo instance providing allele counts and SNP information
+     * @param alleleCounts an integer array with a length of 2 * popNum for reading one variant
+     * @return true, some variants were read; false, the end of the input is reached
+     */
+    boolean read(CountInfo genoInfo, int[] alleleCounts) {
+        size = 0;
+        out.clear();
+        int infoLength = 0;
+        while ((size < capacity) && genoInfo.countAlleles(alleleCounts)) {
+            System.arraycopy(alleleCounts, 0, counts, 2 * popNum * size, 2 * popNum);
+            genoInfo.getSnpInfo(snpInfo);
+            int length = snpInfo.length();
+            if (info.length < infoLength + length) {
+                byte[] buf = new byte[2 * (infoLength + length)];
+                System.arraycopy(info, 0, buf, 0, infoLength);
+                info = buf;
+            }
+            System.arraycopy(snpInfo.buffer(), snpInfo.start(), info, infoLength, length);
+            infoLength += length;
+            infoEnds[size++] = infoLength;
+        }
+        return size > 0;
+    }
+
+    /**
+     * Writes the results of the batch.
+     *
+     * @param stream an OutputStream instance
+     * @throws IOException
+     */
+    void writeTo(OutputStream stream) throws IOException {
+        out.writeTo(stream);
+    }
+
+    /**
+     * Appends the length and the information of a variant to the results of the batch in the binary format.
+     *
+     * @param i the index of the variant in the batch
+     */
+    void appendSnpRecord(int i) {
+        out.putInt(infoLength(i)).append(info, infoStart(i), infoLength(i));
+    }
+
+    /**
+     * Appends the information of a variant to the results of the batch.
+     *
+     * @param i the index of the variant in the batch
+     */
+    void appendSnpInfo(int i) {
+        out.append(info, infoStart(i), infoEnds[i] - infoStart(i));
+    }
+
+    /**
+     * Returns the buffer containing the information of the variants in the batch.
+     *
+     * @return a byte array
+     */
+    byte[] infoBuffer() { return info; }
+
+    /**
+     * Returns the start of the information of a variant in {@link #infoBuffer()}.
+     *
+     * @param i the index of the variant in the batch
+     * @return the start of the information
+     */
+    int infoStart(int i) { return (i == 0) ? 0 : infoEnds[i-1]; }
+
+    /**
+     * Returns the length of the information of a variant.
+     *
+     * @param i the index of the variant in the batch
+     * @return the length of the information
+     */
+    int infoLength(int i) { return infoEnds[i] - infoStart(i); }
+
+}
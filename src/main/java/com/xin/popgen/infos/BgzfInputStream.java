@@ -0,0 +1,282 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Class {@code BgzfInputStream} decompresses a BGZF file (e.g. a file compressed by bgzip).
+ * A BGZF file is a series of independent gzip blocks with at most 64 KB of data each,
+ * so the blocks are inflated on a thread pool while they are returned in order.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+final class BgzfInputStream extends InputStream {
+
+    // the length of the header of a BGZF block without extra fields
+    private static final int HEADER_LENGTH = 12;
+
+    // an empty block
+    private static final byte[] EMPTY = new byte[0];
+
+    // an Inflater instance for each worker thread
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    // a RandomAccessFile instance points to the compressed data
+    private final RandomAccessFile file;
+
+    // an ExecutorService instance for inflating blocks
+    private final ExecutorService executor;
+
+    // blocks being inflated, in the order of the file
+    private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+
+    // an integer indicates how many blocks can be inflated ahead of the reader
+    private final int maxPending;
+
+    // an integer indicates how many blocks are currently read ahead,
+    // which grows from 1 to maxPending after each seek
+    private int readAhead;
+
+    // a boolean indicates whether all the blocks have been submitted
+    private boolean eof = false;
+
+    // the current inflated block and the position in it
+    private byte[] block = EMPTY;
+    private int pos = 0;
+
+    /**
+     * Constructor of {@code BgzfInputStream}.
+     *
+     * @param fileName the name of a BGZF file
+     * @param threadNum how many threads are used for inflating blocks
+     * @throws IOException
+     */
+    BgzfInputStream(String fileName, int threadNum) throws IOException {
+        this.file = new RandomAccessFile(fileName, "r");
+        this.maxPending = 4 * threadNum;
+        this.readAhead = maxPending;
+        this.executor = Executors.newFixedThreadPool(threadNum, r -> {
+            Thread thread = new Thread(r, "bgzf-inflater");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Checks whether the beginning of a file is a BGZF block header,
+     * i.e. a gzip header with the extra subfield 'BC'.
+     *
+     * @param header the first bytes of a file
+     * @param length how many bytes in header are valid
+     * @return true, the file is in BGZF format; false, otherwise
+     */
+    static boolean isBgzf(byte[] header, int length) {
+        return (length >= 18)
+                && (header[0] == (byte) 0x1f) && (header[1] == (byte) 0x8b)
+                && (header[2] == 8) && ((header[3] & 4) != 0)
+                && (header[12] == 'B') && (header[13] == 'C');
+    }
+
+    @Override
+    public int read() throws IOException {
+        if ((pos == block.length) && !nextBlock()) return -1;
+        return block[pos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if ((pos == block.length) && !nextBlock()) return -1;
+        int n = Math.min(len, block.length - pos);
+        System.arraycopy(block, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    /**
+     * Moves to a virtual file offset, where the upper 48 bits are the offset of a block
+     * in the compressed file and the lower 16 bits are the offset in the inflated block.
+     *
+     * @param virtualOffset a virtual file offset, e.g. from a tabix index
+     * @throws IOException
+     */
+    void seek(long virtualOffset) throws IOException {
+        for (Future<byte[]> future:pending) {
+            future.cancel(true);
+        }
+        pending.clear();
+        eof = false;
+        readAhead = 1;
+        block = EMPTY;
+        pos = 0;
+        file.seek(virtualOffset >>> 16);
+        int offset = (int) (virtualOffset & 0xffff);
+        if (offset > 0) {
+            if (!nextBlock() || (offset > block.length))
+                throw new IOException("Invalid virtual file offset: " + virtualOffset);
+            pos = offset;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        executor.shutdownNow();
+        file.close();
+    }
+
+    /**
+     * Helper function for moving to the next non-empty block.
+     *
+     * @return true, a block is available; false, the end of the file is reached
+     * @throws IOException
+     */
+    private boolean nextBlock() throws IOException {
+        while (true) {
+            submitBlocks();
+            Future<byte[]> next = pending.poll();
+            if (next == null) return false;
+            readAhead = Math.min(2 * readAhead, maxPending);
+            try {
+                block = next.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while inflating BGZF blocks", e);
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause().getMessage(), e.getCause());
+            }
+            pos = 0;
+            if (block.length > 0) return true;
+        }
+    }
+
+    /**
+     * Helper function for reading compressed blocks and submitting them to the thread pool.
+     *
+     * @throws IOException
+     */
+    private void submitBlocks() throws IOException {
+        while (!eof && (pending.size() < readAhead)) {
+            byte[] raw = readRawBlock();
+            if (raw == null) {
+                eof = true;
+            }
+            else {
+                pending.add(executor.submit(() -> inflate(raw)));
+            }
+        }
+    }
+
+    /**
+     * Helper function for reading a compressed block.
+     *
+     * @return a byte array containing a whole BGZF block, or null if the end of the file is reached
+     * @throws IOException
+     */
+    private byte[] readRawBlock() throws IOException {
+        byte[] header = new byte[HEADER_LENGTH];
+        int n = file.read(header);
+        if (n <= 0) return null;
+        if (n < HEADER_LENGTH) file.readFully(header, n, HEADER_LENGTH - n);
+        if ((header[0] != (byte) 0x1f) || (header[1] != (byte) 0x8b) || ((header[3] & 4) == 0))
+            throw new IOException("Invalid BGZF block header");
+        int xlen = readShort(header, 10);
+        byte[] extra = new byte[xlen];
+        file.readFully(extra);
+        int blockSize = -1;
+        for (int i = 0; i + 4 <= xlen; i += 4 + readShort(extra, i + 2)) {
+            if ((extra[i] == 'B') && (extra[i+1] == 'C')) blockSize = readShort(extra, i + 4) + 1;
+        }
+        if (blockSize == -1)
+            throw new IOException("Cannot find the size of a BGZF block");
+        byte[] raw = new byte[blockSize];
+        System.arraycopy(header, 0, raw, 0, HEADER_LENGTH);
+        System.arraycopy(extra, 0, raw, HEADER_LENGTH, xlen);
+        try {
+            file.readFully(raw, HEADER_LENGTH + xlen, blockSize - HEADER_LENGTH - xlen);
+        } catch (EOFException e) {
+            throw new IOException("Truncated BGZF block", e);
+        }
+        return raw;
+    }
+
+    /**
+     * Helper function for inflating a compressed block.
+     *
+     * @param raw a byte array containing a whole BGZF block
+     * @return a byte array containing the inflated data
+     * @throws IOException
+     */
+    private static byte[] inflate(byte[] raw) throws IOException {
+        int dataStart = HEADER_LENGTH + readShort(raw, 10);
+        int dataEnd = raw.length - 8;
+        int size = readInt(raw, dataEnd + 4);
+        byte[] data = new byte[size];
+        Inflater inflater = INFLATERS.get();
+        inflater.reset();
+        inflater.setInput(raw, dataStart, dataEnd - dataStart);
+        try {
+            int n = 0;
+            while ((n < size) && !inflater.finished()) {
+                int m = inflater.inflate(data, n, size - n);
+                if ((m == 0) && (inflater.needsInput() || inflater.needsDictionary()))
+                    throw new IOException("Truncated BGZF block");
+                n += m;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Invalid BGZF block: " + e.getMessage(), e);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, size);
+        if ((int) crc.getValue() != readInt(raw, dataEnd))
+            throw new IOException("CRC mismatch in BGZF block");
+        return data;
+    }
+
+    /**
+     * Helper function for reading a little-endian unsigned 16-bit integer.
+     *
+     * @param b a byte array
+     * @param i the position of the integer
+     * @return the integer
+     */
+    private static int readShort(byte[] b, int i) {
+        return (b[i] & 0xff) | ((b[i+1] & 0xff) << 8);
+    }
+
+    /**
+     * Helper function for reading a little-endian 32-bit integer.
+     *
+     * @param b a byte array
+     * @param i the position of the integer
+     * @return the integer
+     */
+    private static int readInt(byte[] b, int i) {
+        return (b[i] & 0xff) | ((b[i+1] & 0xff) << 8) | ((b[i+2] & 0xff) << 16) | ((b[i+3] & 0xff) << 24);
+    }
+
+}
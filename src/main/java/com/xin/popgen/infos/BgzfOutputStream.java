@@ -0,0 +1,229 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Class {@code BgzfOutputStream} compresses data into a BGZF file, which can be decompressed
+ * by gzip and bgzip, and indexed by tabix if the lines are sorted by positions.
+ * The data is split into blocks of at most {@link #BLOCK_DATA_LENGTH} bytes as in bgzip,
+ * and the blocks are deflated on a thread pool while they are written in order.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+public final class BgzfOutputStream extends OutputStream {
+
+    // the maximum number of bytes of data in a block, which keeps a deflated block within 64 KB
+    static final int BLOCK_DATA_LENGTH = 0xff00;
+
+    // the maximum size of a compressed block
+    private static final int MAX_BLOCK_SIZE = 1 << 16;
+
+    // the length of the header of a BGZF block with the extra subfield 'BC'
+    private static final int HEADER_LENGTH = 18;
+
+    // the length of the CRC32 and the size of the data at the end of a block
+    private static final int FOOTER_LENGTH = 8;
+
+    // an empty block marking the end of a BGZF file
+    private static final byte[] EOF_BLOCK = {
+            0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 6, 0, 'B', 'C', 2, 0,
+            0x1b, 0, 3, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+
+    // a Deflater instance for each worker thread
+    private static final ThreadLocal<Deflater> DEFLATERS =
+            ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+
+    // an OutputStream instance points to the compressed file
+    private final OutputStream out;
+
+    // an ExecutorService instance for deflating blocks
+    private final ExecutorService executor;
+
+    // blocks being deflated, in the order of the data
+    private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+
+    // an integer indicates how many blocks can be deflated ahead of the writer
+    private final int maxPending;
+
+    // the data of the current block and its length
+    private byte[] block = new byte[BLOCK_DATA_LENGTH];
+    private int pos = 0;
+
+    // a boolean indicates whether the stream is closed
+    private boolean closed = false;
+
+    /**
+     * Constructor of {@code BgzfOutputStream}.
+     *
+     * @param out an OutputStream instance to the compressed file
+     * @param threadNum how many threads are used for deflating blocks
+     */
+    public BgzfOutputStream(OutputStream out, int threadNum) {
+        this.out = out;
+        this.maxPending = 4 * threadNum;
+        this.executor = Executors.newFixedThreadPool(threadNum, r -> {
+            Thread thread = new Thread(r, "bgzf-deflater");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        block[pos++] = (byte) b;
+        if (pos == BLOCK_DATA_LENGTH) submitBlock();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int n = Math.min(len, BLOCK_DATA_LENGTH - pos);
+            System.arraycopy(b, off, block, pos, n);
+            pos += n;
+            off += n;
+            len -= n;
+            if (pos == BLOCK_DATA_LENGTH) submitBlock();
+        }
+    }
+
+    /**
+     * Compresses the data written so far into blocks and writes them,
+     * so that the data before a flush never shares a block with the data after it.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void flush() throws IOException {
+        if (pos > 0) submitBlock();
+        while (!pending.isEmpty()) {
+            writeBlock();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            flush();
+            out.write(EOF_BLOCK);
+        } finally {
+            executor.shutdownNow();
+            out.close();
+        }
+    }
+
+    /**
+     * Helper function for submitting the current block to the thread pool,
+     * and writing the oldest blocks if too many blocks are pending.
+     *
+     * @throws IOException
+     */
+    private void submitBlock() throws IOException {
+        byte[] data = block;
+        int length = pos;
+        pending.add(executor.submit(() -> deflate(data, length)));
+        block = new byte[BLOCK_DATA_LENGTH];
+        pos = 0;
+        while (pending.size() > maxPending) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Helper function for writing the oldest pending block.
+     *
+     * @throws IOException
+     */
+    private void writeBlock() throws IOException {
+        try {
+            out.write(pending.poll().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while deflating BGZF blocks", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Helper function for deflating data into a BGZF block.
+     *
+     * @param data a byte array containing the data
+     * @param length how many bytes in data are valid
+     * @return a byte array containing a whole BGZF block
+     * @throws IOException
+     */
+    static byte[] deflate(byte[] data, int length) throws IOException {
+        byte[] raw = new byte[MAX_BLOCK_SIZE];
+        Deflater deflater = DEFLATERS.get();
+        deflater.reset();
+        deflater.setInput(data, 0, length);
+        deflater.finish();
+        int end = HEADER_LENGTH;
+        int limit = MAX_BLOCK_SIZE - FOOTER_LENGTH;
+        while (!deflater.finished() && (end < limit)) {
+            end += deflater.deflate(raw, end, limit - end);
+        }
+        if (!deflater.finished())
+            throw new IOException("A BGZF block exceeds " + MAX_BLOCK_SIZE + " bytes");
+        int blockSize = end + FOOTER_LENGTH;
+        System.arraycopy(EOF_BLOCK, 0, raw, 0, 16);
+        writeShort(raw, 16, blockSize - 1);
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        writeInt(raw, end, (int) crc.getValue());
+        writeInt(raw, end + 4, length);
+        return Arrays.copyOf(raw, blockSize);
+    }
+
+    /**
+     * Helper function for writing a little-endian unsigned 16-bit integer.
+     *
+     * @param b a byte array
+     * @param i the position of the integer
+     * @param val the integer
+     */
+    private static void writeShort(byte[] b, int i, int val) {
+        b[i] = (byte) val;
+        b[i+1] = (byte) (val >>> 8);
+    }
+
+    /**
+     * Helper function for writing a little-endian 32-bit integer.
+     *
+     * @param b a byte array
+     * @param i the position of the integer
+     * @param val the integer
+     */
+    private static void writeInt(byte[] b, int i, int val) {
+        writeShort(b, i, val);
+        writeShort(b, i + 2, val >>> 16);
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Class {@code ByteLineReader} reads lines of an ASCII file as raw bytes.
+ * The bytes of the current line are kept in a reusable buffer,
+ * so that no String is created for each line.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+class ByteLineReader {
+
+    // an InputStream instance points to the input data
+    private final InputStream in;
+
+    // a byte array stores the bytes read from the input stream
+    private byte[] buf;
+
+    // the start and the end of unread bytes in buf
+    private int pos = 0;
+    private int limit = 0;
+
+    // the start and the length of the current line in buf
+    private int lineStart = 0;
+    private int lineLength = 0;
+
+    // a boolean indicates whether the end of the stream is reached
+    private boolean eof = false;
+
+    /**
+     * Constructor of {@code ByteLineReader}.
+     *
+     * @param in an InputStream instance points to the input data
+     * @param bufferSize the initial size of the buffer
+     */
+    ByteLineReader(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buf = new byte[bufferSize];
+    }
+
+    /**
+     * Reads the next line into the buffer.
+     * The line terminator and trailing whitespaces are not included.
+     *
+     * @return the length of the line, or -1 if the end of the stream is reached
+     * @throws IOException
+     */
+    int readLine() throws IOException {
+        int scan = pos;
+        while (true) {
+            while (scan < limit) {
+                if (buf[scan] == '\n') {
+                    setLine(pos, scan);
+                    pos = scan + 1;
+                    return lineLength;
+                }
+                scan++;
+            }
+            if (eof) {
+                if (pos == limit) return -1;
+                setLine(pos, limit);
+                pos = limit;
+                return lineLength;
+            }
+            scan -= pos;
+            fill();
+        }
+    }
+
+    /**
+     * Returns the buffer containing the current line.
+     *
+     * @return the buffer containing the current line
+     */
+    byte[] buffer() { return buf; }
+
+    /**
+     * Returns the offset of the current line in the buffer.
+     *
+     * @return the offset of the current line in the buffer
+     */
+    int start() { return lineStart; }
+
+    /**
+     * Discards the buffered bytes, e.g. after the underlying stream is repositioned.
+     */
+    void clear() {
+        pos = 0;
+        limit = 0;
+        eof = false;
+    }
+
+    /**
+     * Closes the underlying stream.
+     *
+     * @throws IOException
+     */
+    void close() throws IOException { in.close(); }
+
+    /**
+     * Helper function for recording the position of the current line
+     * without trailing whitespaces.
+     *
+     * @param from the start of the line
+     * @param to the position of the line terminator
+     */
+    private void setLine(int from, int to) {
+        while ((to > from) && (buf[to-1] <= ' ')) to--;
+        lineStart = from;
+        lineLength = to - from;
+    }
+
+    /**
+     * Helper function for moving unread bytes to the front of the buffer
+     * and reading more bytes from the stream.
+     * The buffer is doubled if a line does not fit into it.
+     *
+     * @throws IOException
+     */
+    private void fill() throws IOException {
+        int remaining = limit - pos;
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, remaining);
+        }
+        else if (remaining == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        pos = 0;
+        limit = remaining;
+        int n = in.read(buf, limit, buf.length - limit);
+        if (n == -1) eof = true;
+        else limit += n;
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Class {@code ByteSlice} is a reusable view of ASCII bytes in a buffer owned by a reader,
+ * e.g. the information of the current SNP. The bytes are only valid until the reader moves
+ * to the next SNP.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+public final class ByteSlice {
+
+    // a byte array contains the bytes of the slice
+    private byte[] buf = new byte[0];
+
+    // the start and the length of the slice in buf
+    private int start = 0;
+    private int length = 0;
+
+    /**
+     * Returns the buffer containing the bytes of the slice.
+     *
+     * @return the buffer containing the bytes of the slice
+     */
+    public byte[] buffer() { return buf; }
+
+    /**
+     * Returns the offset of the slice in the buffer.
+     *
+     * @return the offset of the slice in the buffer
+     */
+    public int start() { return start; }
+
+    /**
+     * Returns how many bytes are in the slice.
+     *
+     * @return the length of the slice
+     */
+    public int length() { return length; }
+
+    /**
+     * Points the slice to some bytes in a buffer.
+     *
+     * @param buf a byte array
+     * @param start the offset of the slice in buf
+     * @param length the length of the slice
+     */
+    void set(byte[] buf, int start, int length) {
+        this.buf = buf;
+        this.start = start;
+        this.length = length;
+    }
+
+    @Override
+    public String toString() {
+        return new String(buf, start, length, StandardCharsets.US_ASCII);
+    }
+
+}
@@ -0,0 +1,255 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+/**
+ * Class {@code CacheInfo} is used for counting alleles and obtaining SNP information
+ * from a binary allele count cache written by the convert sub-command.
+ * A cache is a little-endian file with three parts:
+ * <ul>
+ *     <li>a header with the population IDs and the sizes of the columns;</li>
+ *     <li>a column of allele counts, where each SNP has the counts of the reference and
+ *     alternative alleles of each population as 32-bit integers;</li>
+ *     <li>a column of SNP information, one line of CHROMO POS ID REF ALT for each SNP.</li>
+ * </ul>
+ * The column of allele counts is memory-mapped and copied in bulk, while the column of
+ * SNP information is only read if needed.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+public final class CacheInfo extends CountInfo {
+
+    // the first four bytes of a cache
+    private static final byte[] MAGIC = {'S', 'D', 'C', 1};
+
+    // the length of the fixed part of the header
+    private static final int HEADER_LENGTH = 40;
+
+    // the maximum number of bytes in one mapped region
+    private static final long MAX_REGION_SIZE = 1L << 30;
+
+    // a PopInfo instance stores population information
+    private final PopInfo popInfo;
+
+    // a long integer indicates how many SNPs in the cache
+    private final long snpNum;
+
+    // a RandomAccessFile instance points to the cache
+    private final RandomAccessFile file;
+
+    // mapped regions of the column of allele counts, each region contains whole SNPs
+    private final IntBuffer[] regions;
+
+    // an integer indicates how many SNPs are stored in one mapped region
+    private final int snpsPerRegion;
+
+    // a long integer indicates the index of the next SNP
+    private long snpIndex = 0;
+
+    // a ByteLineReader instance points to the column of SNP information
+    private final ByteLineReader infoReader;
+
+    // a long integer indicates how many lines of SNP information have been read
+    private long infoIndex = 0;
+
+    // the length of the last line of SNP information
+    private int infoLength = 0;
+
+    /**
+     * Constructor of {@code CacheInfo}.
+     *
+     * @param cacheFileName the name of a binary allele count cache
+     */
+    public CacheInfo(String cacheFileName) {
+        try {
+            this.file = new RandomAccessFile(cacheFileName, "r");
+            FileChannel channel = file.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.read(header, 0) != HEADER_LENGTH)
+                throw new IllegalArgumentException(cacheFileName + " is not an allele count cache.");
+            header.flip();
+            for (byte b:MAGIC) {
+                if (header.get() != b)
+                    throw new IllegalArgumentException(cacheFileName + " is not an allele count cache.");
+            }
+            this.popNum = header.getInt();
+            this.snpNum = header.getLong();
+            long countsOffset = header.getLong();
+            long infoOffset = header.getLong();
+
+            ByteBuffer ids = ByteBuffer.allocate((int) (countsOffset - HEADER_LENGTH)).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(ids, HEADER_LENGTH);
+            ids.flip();
+            HashMap<String, Integer> popIndex = new HashMap<>();
+            String[] popIds = new String[popNum];
+            for (int i = 0; i < popNum; i++) {
+                byte[] id = new byte[ids.getInt()];
+                ids.get(id);
+                popIds[i] = new String(id, StandardCharsets.UTF_8);
+                popIndex.put(popIds[i], i);
+            }
+            this.popInfo = new PopInfo(popIndex, popIds);
+
+            long rowLength = 8L * popNum;
+            this.snpsPerRegion = (int) Math.max(1, MAX_REGION_SIZE / rowLength);
+            int regionNum = (int) ((snpNum + snpsPerRegion - 1) / snpsPerRegion);
+            this.regions = new IntBuffer[regionNum];
+            for (int i = 0; i < regionNum; i++) {
+                long offset = (long) i * snpsPerRegion;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, countsOffset + offset * rowLength,
+                        Math.min(snpNum - offset, snpsPerRegion) * rowLength)
+                        .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            }
+
+            FileInputStream in = new FileInputStream(cacheFileName);
+            in.getChannel().position(infoOffset);
+            this.infoReader = new ByteLineReader(in, 64 * 1024);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read " + cacheFileName + ": " + e.getMessage());
+        }
+
+        System.out.println(popNum + " populations and " + snpNum + " variants are read from " + cacheFileName);
+    }
+
+    /**
+     * Writes the allele counts and SNP information from a {@code CountInfo} instance into a cache.
+     *
+     * @param countInfo a CountInfo instance providing allele counts and SNP information
+     * @param popInfo a PopInfo instance storing the population information
+     * @param cacheFileName the name of the cache
+     * @return how many SNPs are written
+     * @throws IOException
+     */
+    public static long write(CountInfo countInfo, PopInfo popInfo, String cacheFileName) throws IOException {
+        int popNum = popInfo.getPopNum();
+        File cacheFile = new File(cacheFileName).getAbsoluteFile();
+        // SNP information is written to a temporary file until the size of allele counts is known
+        File infoFile = File.createTempFile("seleDiff", ".info", cacheFile.getParentFile());
+        infoFile.deleteOnExit();
+
+        ByteBuffer ids = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < popNum; i++) {
+            byte[] id = popInfo.getPopId(i).getBytes(StandardCharsets.UTF_8);
+            if (ids.remaining() < 4 + id.length) {
+                ids = ByteBuffer.allocate(2 * ids.capacity() + id.length).order(ByteOrder.LITTLE_ENDIAN)
+                        .put((ByteBuffer) ids.flip());
+            }
+            ids.putInt(id.length).put(id);
+        }
+        ids.flip();
+        // allele counts start at a multiple of 8 bytes
+        long countsOffset = (HEADER_LENGTH + ids.limit() + 7) & ~7L;
+
+        long snpNum = 0;
+        try (RandomAccessFile out = new RandomAccessFile(cacheFile, "rw")) {
+            out.setLength(0);
+            FileChannel channel = out.getChannel();
+            channel.write(ids, HEADER_LENGTH);
+            channel.position(countsOffset);
+
+            // the information file is closed before it is appended to the cache
+            try (OutputStream info = new BufferedOutputStream(new FileOutputStream(infoFile), 64 * 1024)) {
+                ByteBuffer counts = ByteBuffer.allocate(Math.max(64 * 1024, 8 * popNum)).order(ByteOrder.LITTLE_ENDIAN);
+                int[] alleleCounts = new int[2*popNum];
+                ByteSlice snpInfo = new ByteSlice();
+                while (countInfo.countAlleles(alleleCounts)) {
+                    if (counts.remaining() < 8 * popNum) {
+                        counts.flip();
+                        while (counts.hasRemaining()) channel.write(counts);
+                        counts.clear();
+                    }
+                    for (int count:alleleCounts) {
+                        counts.putInt(count);
+                    }
+                    countInfo.getSnpInfo(snpInfo);
+                    info.write(snpInfo.buffer(), snpInfo.start(), snpInfo.length());
+                    info.write('\n');
+                    snpNum++;
+                }
+                counts.flip();
+                while (counts.hasRemaining()) channel.write(counts);
+            }
+
+            long infoOffset = channel.position();
+            try (FileChannel infoChannel = new FileInputStream(infoFile).getChannel()) {
+                long size = infoChannel.size();
+                for (long n = 0; n < size; ) n += infoChannel.transferTo(n, size - n, channel);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+            header.put(MAGIC).putInt(popNum).putLong(snpNum).putLong(countsOffset).putLong(infoOffset)
+                    .putLong(channel.size() - infoOffset);
+            header.flip();
+            channel.write(header, 0);
+        } finally {
+            if (!infoFile.delete()) infoFile.deleteOnExit();
+        }
+        return snpNum;
+    }
+
+    @Override
+    public void close() {
+        try {
+            file.close();
+            infoReader.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public PopInfo getPopInfo() { return popInfo; }
+
+    @Override
+    public void getSnpInfo(ByteSlice snpInfo) {
+        try {
+            // skip SNP information of SNPs whose information was not requested
+            while (infoIndex < snpIndex) {
+                infoLength = infoReader.readLine();
+                infoIndex++;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        snpInfo.set(infoReader.buffer(), infoReader.start(), infoLength);
+    }
+
+    @Override
+    public boolean countAlleles(int[] alleleCounts) {
+        if (snpIndex == snpNum) return false;
+        IntBuffer region = regions[(int) (snpIndex / snpsPerRegion)];
+        region.position((int) (snpIndex % snpsPerRegion) * 2 * popNum);
+        region.get(alleleCounts, 0, 2 * popNum);
+        snpIndex++;
+        info = null;
+        return true;
+    }
+
+}
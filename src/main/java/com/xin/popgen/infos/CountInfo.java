@@ -1,14 +1,18 @@
 package com.xin.popgen.infos;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.StringJoiner;
 import java.util.regex.Pattern;
 
 /**
  * Class {@code CountInfo} is used for counting alleles and obtaining SNP information from a .count file.
+ * Readers of other formats extend this class and provide the same contract:
+ * {@link #countAlleles(int[])} fills a caller-owned array with the allele counts of the next SNP,
+ * and {@link #getSnpInfo(ByteSlice)} points a caller-owned slice to the information of the SNP,
+ * so that no object is created for each SNP.
  *
  * @author Xin Huang {@code <xin.huang07@gmail.com>}
  */
@@ -18,24 +22,46 @@ public class CountInfo implements Info {
     private final Pattern pattern = Pattern.compile("\\s+");
 
     // an integer stores how many populations in the sample
-    private int popNum = 0;
+    int popNum = 0;
 
     // a PopInfo instance stores population information
     private PopInfo popInfo;
 
-    // a BufferedReader instances points to the input data
-    BufferedReader br = null;
+    // a ByteLineReader instance points to the input data
+    private ByteLineReader reader = null;
+
+    // a byte array stores the information of the current SNP if it is not tab-delimited in the file
+    private byte[] infoBuf = new byte[256];
+
+    // a ByteSlice instance points to the information of the current SNP
+    private final ByteSlice infoSlice = new ByteSlice();
 
     // a String stores the information of a SNP
     String info;
 
+    // the name of the input file if it is uncompressed and read as a whole, or null otherwise
+    String splittableFileName = null;
+
     // default constructor
     CountInfo() {}
 
     public CountInfo(String countFileName) {
-        this.br = getBufferedReader(countFileName);
+        this(countFileName, null);
+    }
+
+    /**
+     * Constructor of {@code CountInfo} reading only the SNPs within some regions.
+     *
+     * @param countFileName the name of a .count file
+     * @param regionInfo a RegionInfo instance storing the regions, or null for the whole file
+     */
+    public CountInfo(String countFileName, RegionInfo regionInfo) {
+        this.reader = openReader(countFileName, 1000 * 1024, regionInfo);
+        if (regionInfo == null) this.splittableFileName = uncompressedFileName(countFileName);
         try {
-            String[] elements = pattern.split(br.readLine().trim());
+            int length = reader.readLine();
+            if (length == -1) throw new IllegalArgumentException(countFileName + " is empty.");
+            String[] elements = pattern.split(new String(reader.buffer(), reader.start(), length, StandardCharsets.US_ASCII).trim());
             HashSet<String> popSet = new HashSet<>();
             HashMap<String, Integer> popIndex = new HashMap<>();
             for (int i = 5; i < elements.length; i += 2) {
@@ -60,12 +86,86 @@ public class CountInfo implements Info {
         System.out.println(popNum + " populations are read from " + countFileName);
     }
 
+    /**
+     * Helper function for opening a file as lines of bytes.
+     *
+     * @param fileName the name of a file
+     * @param bufferSize the initial size of the buffer
+     * @param regionInfo a RegionInfo instance storing the regions, or null for the whole file
+     * @return a ByteLineReader instance
+     */
+    ByteLineReader openReader(String fileName, int bufferSize, RegionInfo regionInfo) {
+        try {
+            if (regionInfo == null)
+                return new ByteLineReader(Info.openInputStream(fileName), bufferSize);
+            return RegionLineReader.open(fileName, bufferSize, regionInfo);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot open " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Helper function for checking whether a file is uncompressed.
+     *
+     * @param fileName the name of a file
+     * @return fileName if the file is uncompressed, or null otherwise
+     */
+    static String uncompressedFileName(String fileName) {
+        try {
+            return Info.isGzipped(fileName) ? null : fileName;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether the input can be split into byte ranges by {@link #split(int)},
+     * i.e. it is an uncompressed .count, VCF or .geno file read without regions.
+     *
+     * @return true, the input can be split; false, otherwise
+     */
+    public boolean isSplittable() { return splittableFileName != null; }
+
+    /**
+     * Splits the remaining SNPs into at most n consecutive ranges of similar sizes,
+     * each read by a new instance independent of this one.
+     * Reading the ranges in order gives the same SNPs as reading this instance.
+     *
+     * @param n the number of ranges
+     * @return an array of CountInfo instances, one for each range
+     */
+    public CountInfo[] split(int n) {
+        checkSplittable();
+        try {
+            long[] bounds = FileSplitter.split(splittableFileName, FileSplitter.findDataStart(splittableFileName, 1), n);
+            CountInfo[] ranges = new CountInfo[bounds.length - 1];
+            for (int i = 0; i < ranges.length; i++) {
+                CountInfo range = new CountInfo();
+                range.popNum = popNum;
+                range.popInfo = popInfo;
+                range.reader = new ByteLineReader(FileSplitter.open(splittableFileName, bounds[i], bounds[i+1]), 1000 * 1024);
+                ranges[i] = range;
+            }
+            return ranges;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot split " + splittableFileName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Helper function for checking whether the input can be split.
+     */
+    void checkSplittable() {
+        if (!isSplittable())
+            throw new IllegalArgumentException("Only uncompressed .count, VCF or .geno files read without regions can be split.");
+    }
+
     /**
      * Close the file storing genotype information.
      */
     public void close() {
         try {
-            br.close();
+            reader.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -76,7 +176,24 @@ public class CountInfo implements Info {
      *
      * @return the information of a SNP
      */
-    public String getSnpInfo() { return this.info; }
+    public String getSnpInfo() {
+        if (info == null) {
+            getSnpInfo(infoSlice);
+            info = infoSlice.toString();
+        }
+        return info;
+    }
+
+    /**
+     * Points a caller-owned slice to the information of the current SNP,
+     * i.e. CHROMO, POS, ID, REF and ALT delimited by tabs.
+     * The slice is only valid until the next SNP is read.
+     *
+     * @param snpInfo a ByteSlice instance
+     */
+    public void getSnpInfo(ByteSlice snpInfo) {
+        snpInfo.set(infoSlice.buffer(), infoSlice.start(), infoSlice.length());
+    }
 
     /**
      * Returns a PopInfo instance containing population information.
@@ -91,38 +208,100 @@ public class CountInfo implements Info {
      * @return the counts of alleles
      */
     public int[][] countAlleles() {
+        int[] counts = new int[2*popNum];
+        if (!countAlleles(counts)) return null;
         int[][] alleleCounts = new int[popNum][2];
+        for (int i = 0; i < popNum; i++) {
+            alleleCounts[i][0] = counts[2*i];
+            alleleCounts[i][1] = counts[2*i+1];
+        }
+        return alleleCounts;
+    }
+
+    /**
+     * Counts alleles of the next SNP into a caller-owned array,
+     * where the counts of the reference and alternative alleles of
+     * the i-th population are stored in alleleCounts[2*i] and alleleCounts[2*i+1].
+     *
+     * @param alleleCounts an integer array with a length of 2 * popNum
+     * @return true, a SNP was read; false, the end of the file is reached
+     */
+    public boolean countAlleles(int[] alleleCounts) {
         try {
-            String line = br.readLine();
-            if (line != null)
-                alleleCounts = countAlleles(line.trim());
-            else return null;
+            int length = reader.readLine();
+            if (length == -1) return false;
+            info = null;
+            countAlleles(reader.buffer(), reader.start(), reader.start() + length, alleleCounts);
         } catch (IOException e) {
             e.printStackTrace();
+            return false;
         }
-        return alleleCounts;
+        return true;
     }
 
     /**
      * Helper function for counting alleles.
      *
-     * @param line a String represents one line in the VCF file
-     * @return a 2-D integer array containing counts of each allele
+     * @param line a byte array containing one line in the .count file
+     * @param start the start of the line
+     * @param end the end of the line
+     * @param alleleCounts an integer array for storing counts of each allele
      */
-    private int[][] countAlleles(String line) {
-        int[][] alleleCounts = new int[popNum][2];
-        String[] elements = pattern.split(line);
-        StringJoiner sj = new StringJoiner("\t");
+    private void countAlleles(byte[] line, int start, int end, int[] alleleCounts) {
+        int p = start;
+        while ((p < end) && (line[p] <= ' ')) p++;
+        int infoStart = p;
+        // CHROMO POS ID REF ALT
+        boolean tabDelimited = true;
         for (int i = 0; i < 5; i++) {
-            sj.add(elements[i]);
+            if (i > 0) {
+                int from = p;
+                while ((p < end) && (line[p] <= ' ')) p++;
+                tabDelimited &= (p == from + 1) && (line[from] == '\t');
+            }
+            while ((p < end) && (line[p] > ' ')) p++;
         }
-        this.info = sj.toString();
-        int j = 5;
-        for (int i = 0; i < popNum; i++) {
-            alleleCounts[i][0] = Integer.parseInt(elements[j++]);
-            alleleCounts[i][1] = Integer.parseInt(elements[j++]);
+        if (tabDelimited) infoSlice.set(line, infoStart, p - infoStart);
+        else copyInfo(line, infoStart, p);
+
+        Arrays.fill(alleleCounts, 0);
+        for (int i = 0; i < 2*popNum; i++) {
+            while ((p < end) && (line[p] <= ' ')) p++;
+            if (p >= end)
+                throw new IllegalArgumentException("The column in .count file is not consistent with population number.");
+            int count = 0;
+            while ((p < end) && (line[p] > ' ')) {
+                int digit = line[p++] - '0';
+                if ((digit < 0) || (digit > 9))
+                    throw new NumberFormatException("Invalid allele count in .count file.");
+                count = count * 10 + digit;
+            }
+            alleleCounts[i] = count;
+        }
+    }
+
+    /**
+     * Helper function for copying the information of a SNP delimited by whitespaces
+     * into a tab-delimited buffer.
+     *
+     * @param line a byte array containing one line in the .count file
+     * @param start the start of the information
+     * @param end the end of the information
+     */
+    private void copyInfo(byte[] line, int start, int end) {
+        if (infoBuf.length < end - start) infoBuf = new byte[2 * (end - start)];
+        int n = 0;
+        boolean space = false;
+        for (int p = start; p < end; p++) {
+            if (line[p] <= ' ') {
+                space = true;
+                continue;
+            }
+            if (space) infoBuf[n++] = '\t';
+            space = false;
+            infoBuf[n++] = line[p];
         }
-        return  alleleCounts;
+        infoSlice.set(infoBuf, 0, n);
     }
 
     @Override
@@ -0,0 +1,206 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Class {@code FileSplitter} splits an uncompressed text file into byte ranges
+ * aligned to the starts of lines, so that each range can be read by its own reader.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+final class FileSplitter {
+
+    // the size of the buffer for scanning a file
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private FileSplitter() {}
+
+    /**
+     * Returns the offset of the first line after the header of a file,
+     * i.e. after the first headerLines lines and the following lines starting with '#'.
+     *
+     * @param fileName the name of an uncompressed file
+     * @param headerLines how many lines are always in the header
+     * @return the offset of the first record
+     * @throws IOException
+     */
+    static long findDataStart(String fileName, int headerLines) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+            FileChannel channel = file.getChannel();
+            long size = channel.size();
+            long offset = 0;
+            for (int line = 0; offset < size; line++) {
+                if ((line >= headerLines) && (readByte(channel, offset) != '#')) break;
+                offset = findLineStart(channel, offset);
+            }
+            return offset;
+        }
+    }
+
+    /**
+     * Splits the records of a file into at most n ranges of similar sizes.
+     *
+     * @param fileName the name of an uncompressed file
+     * @param dataStart the offset of the first record
+     * @param n the number of ranges
+     * @return the boundaries of the ranges, the i-th range is [bounds[i], bounds[i+1])
+     * @throws IOException
+     */
+    static long[] split(String fileName, long dataStart, int n) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+            FileChannel channel = file.getChannel();
+            long size = channel.size();
+            long[] bounds = new long[n+1];
+            int k = 0;
+            bounds[k++] = dataStart;
+            for (int i = 1; i < n; i++) {
+                long bound = findLineStart(channel, dataStart + (size - dataStart) * i / n - 1);
+                if ((bound > bounds[k-1]) && (bound < size)) bounds[k++] = bound;
+            }
+            bounds[k++] = size;
+            return Arrays.copyOf(bounds, k);
+        }
+    }
+
+    /**
+     * Finds the offsets of some lines in a file.
+     *
+     * @param fileName the name of an uncompressed file
+     * @param lines the indexes of the lines in ascending order
+     * @return the offsets of the lines, or the size of the file if a line does not exist
+     * @throws IOException
+     */
+    static long[] findLineOffsets(String fileName, long[] lines) throws IOException {
+        long[] offsets = new long[lines.length];
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+            FileChannel channel = file.getChannel();
+            ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+            long offset = 0;
+            long line = 0;
+            int i = 0;
+            while ((i < lines.length) && (lines[i] == 0)) offsets[i++] = 0;
+            while (i < lines.length) {
+                buf.clear();
+                int n = channel.read(buf, offset);
+                if (n == -1) break;
+                for (int p = 0; (p < n) && (i < lines.length); p++) {
+                    if (buf.get(p) != '\n') continue;
+                    line++;
+                    while ((i < lines.length) && (lines[i] == line)) offsets[i++] = offset + p + 1;
+                }
+                offset += n;
+            }
+            while (i < lines.length) offsets[i++] = channel.size();
+        }
+        return offsets;
+    }
+
+    /**
+     * Opens a byte range of a file as a stream.
+     *
+     * @param fileName the name of a file
+     * @param start the start of the range
+     * @param end the end of the range
+     * @return an InputStream instance reading the bytes in [start, end)
+     * @throws IOException
+     */
+    static InputStream open(String fileName, long start, long end) throws IOException {
+        return new RangeInputStream(new RandomAccessFile(fileName, "r"), start, end);
+    }
+
+    /**
+     * Helper function for finding the start of the line after an offset.
+     *
+     * @param channel a FileChannel instance points to a file
+     * @param offset an offset in the file
+     * @return the offset after the next line terminator at or after offset, or the size of the file
+     * @throws IOException
+     */
+    private static long findLineStart(FileChannel channel, long offset) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+        while (true) {
+            buf.clear();
+            int n = channel.read(buf, offset);
+            if (n == -1) return channel.size();
+            for (int p = 0; p < n; p++) {
+                if (buf.get(p) == '\n') return offset + p + 1;
+            }
+            offset += n;
+        }
+    }
+
+    /**
+     * Helper function for reading one byte of a file.
+     *
+     * @param channel a FileChannel instance points to a file
+     * @param offset an offset in the file
+     * @return the byte at offset
+     * @throws IOException
+     */
+    private static byte readByte(FileChannel channel, long offset) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(1);
+        channel.read(buf, offset);
+        return buf.get(0);
+    }
+
+    /**
+     * Class {@code RangeInputStream} reads a byte range of a file.
+     */
+    private static final class RangeInputStream extends InputStream {
+
+        // a RandomAccessFile instance points to the file
+        private final RandomAccessFile file;
+
+        // the next byte and the end of the range
+        private long position;
+        private final long end;
+
+        RangeInputStream(RandomAccessFile file, long start, long end) throws IOException {
+            this.file = file;
+            this.position = start;
+            this.end = end;
+            file.seek(start);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position >= end) return -1;
+            position++;
+            return file.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (position >= end) return -1;
+            int n = file.read(b, off, (int) Math.min(len, end - position));
+            if (n > 0) position += n;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException { file.close(); }
+
+    }
+
+}
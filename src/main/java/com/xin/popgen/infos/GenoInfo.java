@@ -15,7 +15,9 @@
 */
 package com.xin.popgen.infos;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * Class {@code GenoInfo} is used for counting alleles from genotype file in EIGENSTRAT format.
@@ -27,6 +29,12 @@ public final class GenoInfo extends VcfInfo{
     // a SnpInfo instances stores the information of the SNPs
     private final SnpInfo snpInfo;
 
+    // a BufferedReader instances points to the genotype data
+    private final BufferedReader br;
+
+    // a char array stores the genotypes of a SNP
+    private final char[] cbuf;
+
     /**
      * Constructor of {@code GenoInfo}.
      *
@@ -34,7 +42,9 @@ public final class GenoInfo extends VcfInfo{
      * @param sampleInfo a IndInfo instance storing the individual information
      */
     public GenoInfo(String genoFileName, IndInfo sampleInfo, PopInfo popInfo, String snpFileName) {
-        super(genoFileName, sampleInfo, popInfo, false);
+        super(sampleInfo, popInfo);
+        this.br = getBufferedReader(genoFileName);
+        this.cbuf = new char[indNum];
         this.snpInfo = new SnpInfo(snpFileName);
     }
 
@@ -52,47 +62,36 @@ public final class GenoInfo extends VcfInfo{
     public String getSnpInfo() { return snpInfo.get(); }
 
     @Override
-    public int[][] countAlleles() {
-        char[] cbuf = new char[indNum];
-        int[][] alleleCounts = new int[popNum][2];
+    public void getSnpInfo(ByteSlice slice) { snpInfo.next(slice); }
+
+    @Override
+    public boolean countAlleles(int[] alleleCounts) {
         try {
-            if (br.read(cbuf) == -1) return null;
-            alleleCounts = countAlleles(cbuf);
+            if (br.read(cbuf) == -1) return false;
             br.read();
         } catch (IOException e) {
             e.printStackTrace();
+            return false;
         }
-        return alleleCounts;
-    }
-
-    /**
-     * Helper function for counting alleles.
-     *
-     * @param cbuf a char array containing alleles
-     * @return a 2-D integer array containing counts of each allele
-     */
-    private int[][] countAlleles(char[] cbuf) {
-        int[][] alleleCounts = new int[popNum][2];
-        if (indNum != cbuf.length)
-            throw new IllegalArgumentException("The column in .geno file is not consistent with individual number.");
+        Arrays.fill(alleleCounts, 0);
         for (int i = 0; i < indNum; i++) {
-            int popIndex = sampleInfo.getPopIndex(i);
+            int offset = 2*sampleInfo.getPopIndex(i);
             int count = cbuf[i] - 48;
             switch (count) {
                 case 0:
-                    alleleCounts[popIndex][1] += 2;
+                    alleleCounts[offset+1] += 2;
                     break;
                 case 1:
-                    alleleCounts[popIndex][0] += 1;
-                    alleleCounts[popIndex][1] += 1;
+                    alleleCounts[offset] += 1;
+                    alleleCounts[offset+1] += 1;
                     break;
                 case 2:
-                    alleleCounts[popIndex][0] += 2;
+                    alleleCounts[offset] += 2;
                     break;
                 default: break;
             }
         }
-        return alleleCounts;
+        return true;
     }
 
 }
@@ -48,12 +48,27 @@ public final class IndInfo implements Info {
     // a PopInfo instance stores population information
     private final PopInfo popInfo;
 
+    // an integer indicates which column stores population IDs
+    private final int popColumn;
+
     /**
      * Constructor of {@code IndInfo}.
      *
      * @param indFileName the name of a EIGENSTRAT IND file
      */
     public IndInfo(String indFileName) {
+        this(indFileName, 2);
+    }
+
+    /**
+     * Constructor of {@code IndInfo} for files storing population IDs in other columns,
+     * e.g. the family IDs in the first column of a PLINK .fam file.
+     *
+     * @param indFileName the name of a file containing one individual per line
+     * @param popColumn the index of the column storing population IDs
+     */
+    public IndInfo(String indFileName, int popColumn) {
+        this.popColumn = popColumn;
         ind2popQueue = new ArrayList<>();
         popSet = new HashSet<>();
         HashMap<String, Integer> popIndex = new HashMap<>(); // key: pop id; value: pop index
@@ -109,8 +124,8 @@ public final class IndInfo implements Info {
     @Override
     public void parseLine(String line) {
         String[] elements = pattern.split(line.trim());
-        ind2popQueue.add(elements[2]);
-        popSet.add(elements[2]);
+        ind2popQueue.add(elements[popColumn]);
+        popSet.add(elements[popColumn]);
     }
 
 }
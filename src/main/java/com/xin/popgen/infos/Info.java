@@ -19,7 +19,6 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -65,34 +64,91 @@ public interface Info {
      */
     default BufferedReader getBufferedReader(String fileName) {
 	int bufferSize = 1000 * 1024;
+    	InputStream in = getInputStream(fileName);
+    	if (in == null)
+    		return null;
+    	return new BufferedReader(new InputStreamReader(in), bufferSize);
+    }
+
+    /**
+     * Helper function for returning a byte stream from a ungzipped or gzipped file.
+     * Gzipped files are decompressed on the fly.
+     *
+     * @param fileName the name of a file
+     * @return an InputStream instance from a ungzipped or gzipped file
+     */
+    default InputStream getInputStream(String fileName) {
     	if (fileName == null)
     		return null;
-    	InputStream in = null;
     	try {
-			in = new FileInputStream(new File(fileName));
-			byte[] signature = new byte[2];
-			int nread = in.read(signature);
-			if (nread == 2 
-					&& signature[0] == (byte) 0x1f 
-					&& signature[1] == (byte) 0x8b) {
-				GZIPInputStream gzip = new GZIPInputStream(new FileInputStream(fileName));
-				return new BufferedReader(new InputStreamReader(gzip), bufferSize);
-			}
-			else {
-				return new BufferedReader(new FileReader(fileName), bufferSize);
-			}
+			return openInputStream(fileName);
 		} catch (IOException e) {
 			e.printStackTrace();
-		} finally {
-			try {
-				in.close();
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
 		}
     	return null;
     }
-    
+
+    /**
+     * Helper function for opening a ungzipped or gzipped file as a byte stream.
+     * Files compressed by bgzip are inflated block by block on several threads.
+     *
+     * @param fileName the name of a file
+     * @return an InputStream instance from a ungzipped or gzipped file
+     * @throws IOException
+     */
+    static InputStream openInputStream(String fileName) throws IOException {
+    	byte[] header = new byte[18];
+    	int nread = readHeader(fileName, header);
+    	if (BgzfInputStream.isBgzf(header, nread))
+    		return new BgzfInputStream(fileName, Runtime.getRuntime().availableProcessors());
+    	else if (isGzipped(header, nread))
+    		return new GZIPInputStream(new FileInputStream(fileName), 64 * 1024);
+    	else
+    		return new FileInputStream(fileName);
+    }
+
+    /**
+     * Helper function for checking whether a file is compressed by gzip.
+     *
+     * @param fileName the name of a file
+     * @return true, the file starts with the gzip signature; false, otherwise
+     * @throws IOException
+     */
+    static boolean isGzipped(String fileName) throws IOException {
+    	byte[] signature = new byte[2];
+    	return isGzipped(signature, readHeader(fileName, signature));
+    }
+
+    /**
+     * Helper function for checking whether the first bytes of a file are the gzip signature.
+     *
+     * @param header the first bytes of a file
+     * @param length how many bytes in header are valid
+     * @return true, the bytes are the gzip signature; false, otherwise
+     */
+    static boolean isGzipped(byte[] header, int length) {
+    	return (length >= 2)
+    			&& (header[0] == (byte) 0x1f)
+    			&& (header[1] == (byte) 0x8b);
+    }
+
+    /**
+     * Helper function for reading the first bytes of a file.
+     *
+     * @param fileName the name of a file
+     * @param header a byte array for storing the first bytes
+     * @return how many bytes are read
+     * @throws IOException
+     */
+    static int readHeader(String fileName, byte[] header) throws IOException {
+    	try (InputStream in = new FileInputStream(new File(fileName))) {
+    		int n = 0;
+    		int nread;
+    		while ((n < header.length) && ((nread = in.read(header, n, header.length - n)) != -1)) n += nread;
+    		return n;
+    	}
+    }
+
     /**
      * Helper function for parsing a line in a file.
      *
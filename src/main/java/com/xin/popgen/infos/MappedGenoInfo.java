@@ -0,0 +1,260 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Class {@code MappedGenoInfo} is used for counting alleles from an uncompressed genotype file
+ * in EIGENSTRAT format. The file is memory-mapped and each row is read in place,
+ * counting the genotype codes of consecutive individuals in the same population
+ * eight bytes at a time.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+public final class MappedGenoInfo extends VcfInfo {
+
+    // the maximum number of bytes in one mapped region
+    private static final long MAX_REGION_SIZE = 1L << 30;
+
+    private static final long ASCII_ZEROS = 0x3030303030303030L;
+    private static final long ONES = 0x0101010101010101L;
+    private static final long TWOS = 0x0202020202020202L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    private static final String COLUMN_ERROR = "The column in .geno file is not consistent with individual number.";
+
+    // a SnpInfo instances stores the information of the SNPs
+    private final SnpInfo snpInfo;
+
+    // a RandomAccessFile instance points to the genotype data
+    private final RandomAccessFile file;
+
+    // mapped regions of the genotype file, each region contains whole rows
+    private final MappedByteBuffer[] regions;
+
+    // an integer indicates how many rows are stored in one mapped region
+    private final int rowsPerRegion;
+
+    // an integer indicates the length of a row including the line terminator
+    private final int rowLength;
+
+    // a long integer indicates the index of the next row
+    private long row = 0;
+
+    // a long integer indicates the index after the last row to read
+    private final long rowEnd;
+
+    // a String stores the name of the SNP file
+    private final String snpFileName;
+
+    // runs of consecutive individuals from the same population
+    // the individuals of the i-th run are [runStarts[i], runStarts[i+1]) in runPops[i]
+    private final int[] runStarts;
+    private final int[] runPops;
+
+    /**
+     * Constructor of {@code MappedGenoInfo}.
+     *
+     * @param genoFileName the name of the uncompressed file containing genotype data in EIGENSTRAT format
+     * @param sampleInfo a IndInfo instance storing the individual information
+     * @param popInfo a PopInfo instance storing the population information
+     * @param snpFileName the name of the file containing SNP information in EIGENSTRAT format
+     */
+    public MappedGenoInfo(String genoFileName, IndInfo sampleInfo, PopInfo popInfo, String snpFileName) {
+        super(sampleInfo, popInfo);
+        this.snpInfo = new SnpInfo(snpFileName);
+        this.snpFileName = snpFileName;
+        this.splittableFileName = genoFileName;
+
+        ArrayList<Integer> starts = new ArrayList<>();
+        ArrayList<Integer> pops = new ArrayList<>();
+        for (int i = 0; i < indNum; i++) {
+            if ((i == 0) || (sampleInfo.getPopIndex(i) != sampleInfo.getPopIndex(i-1))) {
+                starts.add(i);
+                pops.add(sampleInfo.getPopIndex(i));
+            }
+        }
+        starts.add(indNum);
+        this.runStarts = starts.stream().mapToInt(Integer::intValue).toArray();
+        this.runPops = pops.stream().mapToInt(Integer::intValue).toArray();
+
+        try {
+            this.file = new RandomAccessFile(genoFileName, "r");
+            FileChannel channel = file.getChannel();
+            long size = channel.size();
+            this.rowLength = findRowLength(channel);
+            // every row has the length of the first row, except that the last row may not have a line terminator
+            if ((size % rowLength != 0) && (size % rowLength != indNum))
+                throw new IllegalArgumentException(COLUMN_ERROR);
+            long rowNum = (size + rowLength - 1) / rowLength;
+            this.rowsPerRegion = (int) Math.max(1, MAX_REGION_SIZE / rowLength);
+            int regionNum = (int) ((rowNum + rowsPerRegion - 1) / rowsPerRegion);
+            this.regions = new MappedByteBuffer[regionNum];
+            for (int i = 0; i < regionNum; i++) {
+                long offset = (long) i * rowsPerRegion * rowLength;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                        Math.min(size - offset, (long) rowsPerRegion * rowLength));
+            }
+            this.rowEnd = rowNum;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot map " + genoFileName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Constructor of {@code MappedGenoInfo} reading a range of rows mapped by another instance.
+     *
+     * @param parent a MappedGenoInfo instance mapping the genotype file
+     * @param rowStart the index of the first row to read
+     * @param rowEnd the index after the last row to read
+     * @param snpInfo a SnpInfo instance pointing to the information of the first row
+     */
+    private MappedGenoInfo(MappedGenoInfo parent, long rowStart, long rowEnd, SnpInfo snpInfo) {
+        super(parent.sampleInfo, parent.sampleInfo.getPopInfo());
+        this.snpInfo = snpInfo;
+        this.snpFileName = parent.snpFileName;
+        this.file = parent.file;
+        this.regions = parent.regions;
+        this.rowsPerRegion = parent.rowsPerRegion;
+        this.rowLength = parent.rowLength;
+        this.runStarts = parent.runStarts;
+        this.runPops = parent.runPops;
+        this.row = rowStart;
+        this.rowEnd = rowEnd;
+    }
+
+    @Override
+    public CountInfo[] split(int n) {
+        checkSplittable();
+        int rangeNum = (int) Math.max(1, Math.min(n, rowEnd - row));
+        long[] rows = new long[rangeNum];
+        for (int i = 0; i < rangeNum; i++) {
+            rows[i] = row + (rowEnd - row) * i / rangeNum;
+        }
+        try {
+            // the ranges of the SNP file are found by counting lines if it is uncompressed
+            boolean compressed = Info.isGzipped(snpFileName);
+            long[] offsets = compressed ? null : FileSplitter.findLineOffsets(snpFileName, rows);
+            long size = new File(snpFileName).length();
+            CountInfo[] ranges = new CountInfo[rangeNum];
+            for (int i = 0; i < rangeNum; i++) {
+                SnpInfo rangeSnpInfo;
+                if (compressed) {
+                    rangeSnpInfo = new SnpInfo(snpFileName);
+                    rangeSnpInfo.skip(rows[i]);
+                }
+                else {
+                    rangeSnpInfo = new SnpInfo(FileSplitter.open(snpFileName, offsets[i], size), SnpInfo.COLUMNS);
+                }
+                ranges[i] = new MappedGenoInfo(this, rows[i], (i + 1 < rangeNum) ? rows[i+1] : rowEnd, rangeSnpInfo);
+            }
+            return ranges;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot split " + splittableFileName + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            file.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        snpInfo.close();
+    }
+
+    @Override
+    public String getSnpInfo() { return snpInfo.get(); }
+
+    @Override
+    public void getSnpInfo(ByteSlice slice) { snpInfo.next(slice); }
+
+    @Override
+    public boolean countAlleles(int[] alleleCounts) {
+        if (row == rowEnd) return false;
+        MappedByteBuffer region = regions[(int) (row / rowsPerRegion)];
+        int base = (int) (row % rowsPerRegion) * rowLength;
+        row++;
+        // a row of another length moves the line terminator, except at the end of the file
+        int terminator = base + rowLength - 1;
+        if ((terminator < region.limit()) && (region.get(terminator) != '\n'))
+            throw new IllegalArgumentException(COLUMN_ERROR);
+        Arrays.fill(alleleCounts, 0);
+        for (int r = 0; r < runPops.length; r++) {
+            int i = base + runStarts[r];
+            int end = base + runStarts[r+1];
+            int zeros = 0;
+            int ones = 0;
+            int twos = 0;
+            for (; i + 8 <= end; i += 8) {
+                long word = region.getLong(i) ^ ASCII_ZEROS;
+                zeros += countZeroBytes(word);
+                ones += countZeroBytes(word ^ ONES);
+                twos += countZeroBytes(word ^ TWOS);
+            }
+            for (; i < end; i++) {
+                switch (region.get(i)) {
+                    case '0': zeros++; break;
+                    case '1': ones++; break;
+                    case '2': twos++; break;
+                    default: break;
+                }
+            }
+            alleleCounts[2*runPops[r]] += ones + 2*twos;
+            alleleCounts[2*runPops[r]+1] += 2*zeros + ones;
+        }
+        return true;
+    }
+
+    /**
+     * Helper function for counting how many bytes are zero in a long word.
+     *
+     * @param word a long word containing eight bytes
+     * @return how many bytes are zero
+     */
+    private static int countZeroBytes(long word) {
+        // the highest bit of a byte is set if and only if the byte is zero
+        long nonZero = ((word & LOW_BITS) + LOW_BITS) | word;
+        return Long.bitCount(~(nonZero | LOW_BITS));
+    }
+
+    /**
+     * Helper function for finding the length of a row.
+     *
+     * @param channel a FileChannel instance points to the genotype data
+     * @return the length of a row including the line terminator
+     * @throws IOException
+     */
+    private int findRowLength(FileChannel channel) throws IOException {
+        long size = channel.size();
+        MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, indNum + 2L));
+        int length = 0;
+        while ((length < head.limit()) && (head.get(length) != '\n')) length++;
+        int columns = ((length > 0) && (head.get(length-1) == '\r')) ? length - 1 : length;
+        if (columns != indNum)
+            throw new IllegalArgumentException(COLUMN_ERROR);
+        return length + 1;
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+/**
+ * Class {@code PackedGenoInfo} is used for counting alleles from a genotype file
+ * in packed EIGENSTRAT (PACKEDANCESTRYMAP) format, where each genotype uses 2 bits.
+ * Rows are counted with the lookup tables of {@code PackedGenotypeCounter}.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+public final class PackedGenoInfo extends VcfInfo {
+
+    // copies of the reference allele of each 2-bit code
+    // 0, 1, 2: copies of the reference allele; 3: missing
+    private static final int[] REF_COPIES = {0, 1, 2, -1};
+
+    // a SnpInfo instances stores the information of the SNPs
+    private final SnpInfo snpInfo;
+
+    // a DataInputStream instance points to the genotype data
+    private final DataInputStream in;
+
+    // a byte array stores the genotypes of a SNP
+    private final byte[] row;
+
+    // an integer indicates how many SNPs in the genotype file
+    private final int snpNum;
+
+    // an integer indicates how many SNPs have been read
+    private int snpIndex = 0;
+
+    // a PackedGenotypeCounter instance counts alleles from packed genotypes
+    private final PackedGenotypeCounter counter;
+
+    /**
+     * Constructor of {@code PackedGenoInfo}.
+     *
+     * @param genoFileName the name of the file containing genotype data in packed EIGENSTRAT format
+     * @param sampleInfo a IndInfo instance storing the individual information
+     * @param popInfo a PopInfo instance storing the population information
+     * @param snpFileName the name of the file containing SNP information in EIGENSTRAT format
+     */
+    public PackedGenoInfo(String genoFileName, IndInfo sampleInfo, PopInfo popInfo, String snpFileName) {
+        super(sampleInfo, popInfo);
+        this.snpInfo = new SnpInfo(snpFileName);
+        this.in = new DataInputStream(getInputStream(genoFileName));
+        this.row = new byte[Math.max(48, (indNum + 3) / 4)];
+        try {
+            in.readFully(row);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read the header of " + genoFileName);
+        }
+        String[] header = Pattern.compile("\\s+").split(new String(row, StandardCharsets.US_ASCII).trim());
+        if (!header[0].equals("GENO"))
+            throw new IllegalArgumentException(genoFileName + " is not a packed EIGENSTRAT file.");
+        if (Integer.parseInt(header[1]) != indNum)
+            throw new IllegalArgumentException("The individual number in .geno file is not consistent with .ind file.");
+        this.snpNum = Integer.parseInt(header[2]);
+
+        this.counter = new PackedGenotypeCounter(sampleInfo, REF_COPIES, false);
+    }
+
+    /**
+     * Checks whether a genotype file is in packed EIGENSTRAT format.
+     *
+     * @param genoFileName the name of a genotype file
+     * @return true, the file starts with the packed EIGENSTRAT header; false, otherwise
+     */
+    public static boolean isPacked(String genoFileName) {
+        byte[] magic = new byte[5];
+        try (InputStream is = Info.openInputStream(genoFileName)) {
+            int n = 0;
+            int nread;
+            while ((n < magic.length) && ((nread = is.read(magic, n, magic.length - n)) != -1)) n += nread;
+            return (n == magic.length) && new String(magic, StandardCharsets.US_ASCII).equals("GENO ");
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            in.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        snpInfo.close();
+    }
+
+    @Override
+    public String getSnpInfo() { return snpInfo.get(); }
+
+    @Override
+    public void getSnpInfo(ByteSlice slice) { snpInfo.next(slice); }
+
+    @Override
+    public boolean countAlleles(int[] alleleCounts) {
+        if (snpIndex == snpNum) return false;
+        try {
+            in.readFully(row);
+        } catch (EOFException e) {
+            return false;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        snpIndex++;
+        counter.count(row, 0, alleleCounts);
+        return true;
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Class {@code PackedGenotypeCounter} counts alleles per population from a row of
+ * genotypes packed with 2 bits per individual and four individuals per byte.
+ * Bytes containing four individuals from the same population are counted
+ * with a precomputed 256-entry lookup table.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+final class PackedGenotypeCounter {
+
+    // a lookup table stores counts of alleles in a byte containing four genotypes
+    // the lower 32 bits: counts of the reference allele
+    // the higher 32 bits: counts of the alternative allele
+    private final long[] countTable = new long[256];
+
+    // an integer array stores copies of the reference allele of each 2-bit code, -1 for missing
+    private final int[] refCopies;
+
+    // a boolean indicates whether the first individual of a byte is stored in the lowest 2 bits
+    private final boolean lowBitsFirst;
+
+    // an IndInfo instance stores the individual information
+    private final IndInfo sampleInfo;
+
+    // runs of bytes whose four individuals are from the same population
+    // the bytes of the i-th run are [runStarts[i], runEnds[i]) in runPops[i]
+    private final int[] runStarts;
+    private final int[] runEnds;
+    private final int[] runPops;
+
+    // individuals sharing a byte with other populations
+    private final int[] mixedInds;
+
+    /**
+     * Constructor of {@code PackedGenotypeCounter}.
+     *
+     * @param sampleInfo a IndInfo instance storing the individual information
+     * @param refCopies copies of the reference allele of the 2-bit codes 0 to 3, -1 for missing
+     * @param lowBitsFirst true, the first individual of a byte is stored in the lowest 2 bits;
+     *                     false, the first individual of a byte is stored in the highest 2 bits
+     */
+    PackedGenotypeCounter(IndInfo sampleInfo, int[] refCopies, boolean lowBitsFirst) {
+        this.sampleInfo = sampleInfo;
+        this.refCopies = refCopies;
+        this.lowBitsFirst = lowBitsFirst;
+
+        for (int b = 0; b < 256; b++) {
+            long ref = 0;
+            long alt = 0;
+            for (int slot = 0; slot < 4; slot++) {
+                int copies = refCopies[(b >>> shift(slot)) & 3];
+                if (copies != -1) {
+                    ref += copies;
+                    alt += 2 - copies;
+                }
+            }
+            countTable[b] = (alt << 32) | ref;
+        }
+
+        int indNum = sampleInfo.getIndNum();
+        ArrayList<int[]> runs = new ArrayList<>();
+        ArrayList<Integer> mixed = new ArrayList<>();
+        for (int b = 0; b * 4 < indNum; b++) {
+            int first = b * 4;
+            int pop = sampleInfo.getPopIndex(first);
+            boolean same = first + 4 <= indNum;
+            for (int i = first + 1; same && (i < first + 4); i++) {
+                same = sampleInfo.getPopIndex(i) == pop;
+            }
+            if (!same) {
+                for (int i = first; i < Math.min(first + 4, indNum); i++) mixed.add(i);
+            }
+            else if (!runs.isEmpty() && (runs.get(runs.size()-1)[2] == pop) && (runs.get(runs.size()-1)[1] == b)) {
+                runs.get(runs.size()-1)[1] = b + 1;
+            }
+            else {
+                runs.add(new int[]{b, b + 1, pop});
+            }
+        }
+        this.runStarts = runs.stream().mapToInt(r -> r[0]).toArray();
+        this.runEnds = runs.stream().mapToInt(r -> r[1]).toArray();
+        this.runPops = runs.stream().mapToInt(r -> r[2]).toArray();
+        this.mixedInds = mixed.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Counts alleles of a row of packed genotypes into a caller-owned array.
+     *
+     * @param row a byte array containing packed genotypes
+     * @param offset the offset of the row in the byte array
+     * @param alleleCounts an integer array with a length of 2 * popNum
+     */
+    void count(byte[] row, int offset, int[] alleleCounts) {
+        Arrays.fill(alleleCounts, 0);
+        for (int r = 0; r < runPops.length; r++) {
+            long counts = 0;
+            for (int b = offset + runStarts[r]; b < offset + runEnds[r]; b++) {
+                counts += countTable[row[b] & 0xff];
+            }
+            alleleCounts[2*runPops[r]] += (int) counts;
+            alleleCounts[2*runPops[r]+1] += (int) (counts >>> 32);
+        }
+        for (int i:mixedInds) {
+            int copies = refCopies[(row[offset + (i >>> 2)] >>> shift(i & 3)) & 3];
+            if (copies != -1) {
+                int popOffset = 2*sampleInfo.getPopIndex(i);
+                alleleCounts[popOffset] += copies;
+                alleleCounts[popOffset+1] += 2 - copies;
+            }
+        }
+    }
+
+    /**
+     * Helper function for finding the position of an individual in a byte.
+     *
+     * @param slot the index of an individual in a byte
+     * @return the number of bits to shift
+     */
+    private int shift(int slot) {
+        return lowBitsFirst ? 2*slot : 6 - 2*slot;
+    }
+
+}
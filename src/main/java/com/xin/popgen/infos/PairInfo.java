@@ -0,0 +1,88 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Class {@code PairInfo} stores the population pairs to analyze.
+ * A population pair file is space delimited without header, where each line has
+ * the population IDs of the first and second populations of a population pair.
+ * The population pairs are analyzed in the order of the file,
+ * and the selection difference of a pair is estimated as the first population minus the second population.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+public final class PairInfo implements Info {
+
+    // a PopInfo instance stores population information
+    private final PopInfo popInfo;
+
+    // a List stores the indices of the two populations of each population pair
+    private final List<int[]> popPairs = new ArrayList<>();
+
+    // a HashSet stores the population pair indices of the population pairs read
+    private final HashSet<Integer> popPairIndices = new HashSet<>();
+
+    /**
+     * Constructor of class {@code PairInfo}.
+     *
+     * @param pairFileName the file name of a population pair file
+     * @param popInfo a PopInfo instance
+     */
+    public PairInfo(String pairFileName, PopInfo popInfo) {
+        this.popInfo = popInfo;
+        readFile(getBufferedReader(pairFileName));
+        if (popPairs.isEmpty())
+            throw new IllegalArgumentException("Cannot find any population pair in " + pairFileName);
+
+        System.out.println(popPairs.size() + " population pairs are read from " + pairFileName);
+    }
+
+    /**
+     * Returns the population pairs in the order of the file.
+     *
+     * @return an array of population pairs, each of which has the indices of the first and second populations
+     */
+    public int[][] getPopPairs() {
+        return popPairs.toArray(new int[popPairs.size()][]);
+    }
+
+    @Override
+    public void parseLine(String line) {
+        String[] elements = line.trim().split("\\s+");
+        if (elements[0].isEmpty()) return;
+        if (elements.length < 2)
+            throw new IllegalArgumentException("Cannot find the second population in the line: " + line);
+        // elements[0]: the first population
+        // elements[1]: the second population
+        if (!popInfo.containsPopId(elements[0]))
+            throw new IllegalArgumentException("Cannot find population: " + elements[0]);
+        if (!popInfo.containsPopId(elements[1]))
+            throw new IllegalArgumentException("Cannot find population: " + elements[1]);
+        int i = popInfo.getPopIndex(elements[0]);
+        int j = popInfo.getPopIndex(elements[1]);
+        if (i == j)
+            throw new IllegalArgumentException("The population pair {" + elements[0] + "," + elements[1]
+                    + "} should have two different populations");
+        if (!popPairIndices.add(popInfo.getPopPairIndex(i, j)))
+            throw new IllegalArgumentException("Duplicated population pair {" + elements[0] + "," + elements[1] + "}");
+        popPairs.add(new int[]{i, j});
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Class {@code PlinkInfo} is used for counting alleles and obtaining SNP information
+ * from PLINK binary files (.bed, .bim and .fam).
+ * The .bed file must be SNP-major, and each block of a SNP is counted with the
+ * lookup tables of {@code PackedGenotypeCounter}.
+ * The second allele (A2) in the .bim file is treated as the reference allele.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+public final class PlinkInfo extends VcfInfo {
+
+    // copies of A2 of each 2-bit code
+    // 00: homozygous A1; 01: missing; 10: heterozygous; 11: homozygous A2
+    private static final int[] REF_COPIES = {0, -1, 1, 2};
+
+    // the columns of the chromosome, position, SNP ID, A2 and A1 in a .bim file
+    private static final int[] BIM_COLUMNS = {0, 3, 1, 5, 4};
+
+    // a SnpInfo instances stores the information of the SNPs
+    private final SnpInfo snpInfo;
+
+    // a DataInputStream instance points to the .bed file
+    private final DataInputStream in;
+
+    // a byte array stores the genotypes of a SNP
+    private final byte[] block;
+
+    // a PackedGenotypeCounter instance counts alleles from packed genotypes
+    private final PackedGenotypeCounter counter;
+
+    /**
+     * Constructor of {@code PlinkInfo}.
+     *
+     * @param bfileName the prefix of PLINK binary files
+     * @param sampleInfo a IndInfo instance storing the individual information
+     * @param popInfo a PopInfo instance storing the population information
+     */
+    public PlinkInfo(String bfileName, IndInfo sampleInfo, PopInfo popInfo) {
+        super(sampleInfo, popInfo);
+        this.snpInfo = new SnpInfo(bfileName + ".bim", BIM_COLUMNS);
+        this.in = new DataInputStream(getInputStream(bfileName + ".bed"));
+        this.block = new byte[(indNum + 3) / 4];
+        byte[] magic = new byte[3];
+        try {
+            in.readFully(magic);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read the header of " + bfileName + ".bed");
+        }
+        if ((magic[0] != 0x6c) || (magic[1] != 0x1b))
+            throw new IllegalArgumentException(bfileName + ".bed is not a PLINK binary file.");
+        if (magic[2] != 0x01)
+            throw new IllegalArgumentException(bfileName + ".bed is not in SNP-major mode.");
+        this.counter = new PackedGenotypeCounter(sampleInfo, REF_COPIES, true);
+    }
+
+    @Override
+    public void close() {
+        try {
+            in.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        snpInfo.close();
+    }
+
+    @Override
+    public String getSnpInfo() { return snpInfo.get(); }
+
+    @Override
+    public void getSnpInfo(ByteSlice slice) { snpInfo.next(slice); }
+
+    @Override
+    public boolean countAlleles(int[] alleleCounts) {
+        try {
+            in.readFully(block);
+        } catch (EOFException e) {
+            return false;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        counter.count(block, 0, alleleCounts);
+        return true;
+    }
+
+}
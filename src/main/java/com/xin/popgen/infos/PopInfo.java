@@ -57,7 +57,7 @@ public class PopInfo {
      * @param i a population index
      * @return the population ID
      */
-    private String getPopId(int i) { return popIds[i]; }
+    public String getPopId(int i) { return popIds[i]; }
 
     /**
      * Returns the population index of a population ID.
@@ -65,7 +65,7 @@ public class PopInfo {
      * @param popId a population ID
      * @return the population index
      */
-    private int getPopIndex(String popId) {
+    int getPopIndex(String popId) {
         return popIndex.get(popId);
     }
 
@@ -85,6 +85,21 @@ public class PopInfo {
         return k;
     }
 
+    /**
+     * Returns the indices of all the population pairs {i, j} with i < j in the order of population pair indices.
+     *
+     * @return an array of population pairs, each of which has the indices of the first and second populations
+     */
+    public int[][] getPopPairs() {
+        int[][] popPairs = new int[popNum * (popNum - 1) / 2][];
+        for (int i = 0, k = 0; i < popNum; i++) {
+            for (int j = i + 1; j < popNum; j++, k++) {
+                popPairs[k] = new int[]{i, j};
+            }
+        }
+        return popPairs;
+    }
+
     /**
      * Returns the IDs of a population pair given a population pair index.
      *
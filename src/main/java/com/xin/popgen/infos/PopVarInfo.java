@@ -35,13 +35,24 @@ public final class PopVarInfo implements Info {
      * @param popInfo a PopInfo instance containing population information
      */
     public PopVarInfo(String popVarFileName, PopInfo popInfo) {
+        this(popVarFileName, popInfo, popInfo.getPopPairs());
+    }
+
+    /**
+     * Constructor of class {@code PopVarInfo} requiring variances of Omega of some population pairs.
+     *
+     * @param popVarFileName the file name of a file containing variances of Omega between populations
+     * @param popInfo a PopInfo instance containing population information
+     * @param popPairs the indices of the two populations of each population pair required
+     */
+    public PopVarInfo(String popVarFileName, PopInfo popInfo, int[][] popPairs) {
         this.popInfo = popInfo;
         int popPairNum = popInfo.getPopNum() * (popInfo.getPopNum() - 1)/2;
         popVars = new Double[popPairNum];
         readFile(getBufferedReader(popVarFileName));
-        checkPopPairs();
+        checkPopPairs(popPairs);
 
-        System.out.println(popPairNum + " population pairs with variances of Omega are read from "
+        System.out.println(popPairs.length + " population pairs with variances of Omega are read from "
         		+ popVarFileName);
     }
 
@@ -55,16 +66,28 @@ public final class PopVarInfo implements Info {
         return popVars[i];
     }
 
+    /**
+     * Returns the variance of Omega of a population pair given two population indices.
+     *
+     * @param i the index of the first population
+     * @param j the index of the second population
+     * @return the variance of Omega
+     */
+    public double getPopVar(int i, int j) {
+        return popVars[popInfo.getPopPairIndex(i, j)];
+    }
+
     /**
      * Helper function for checking whether variances of Omega of
-     * all the population pairs exist.
+     * the required population pairs exist.
+     *
+     * @param popPairs the indices of the two populations of each population pair required
      */
-    private void checkPopPairs() {
-        for (int k = 0; k < popVars.length; k++) {
-            if (popVars[k] == null) {
-                String[] popPair = popInfo.getPopPair(k);
+    private void checkPopPairs(int[][] popPairs) {
+        for (int[] popPair:popPairs) {
+            if (popVars[popInfo.getPopPairIndex(popPair[0], popPair[1])] == null) {
                 throw new IllegalArgumentException("Cannot find the variance of Omega of the population pair {"
-                        + popPair[0] + "," + popPair[1] + "}");
+                        + popInfo.getPopId(popPair[0]) + "," + popInfo.getPopId(popPair[1]) + "}");
             }
         }
     }
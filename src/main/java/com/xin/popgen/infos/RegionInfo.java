@@ -0,0 +1,237 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Class {@code RegionInfo} stores genomic regions for restricting the input to a few loci.
+ * A region is written as "chr", "chr:pos" or "chr:start-end" on the command line,
+ * or as "chr:start-end" or "chr start end" in each line of a regions file.
+ * Positions are 1-based and inclusive. Overlapping regions on a chromosome are merged.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+public final class RegionInfo implements Info {
+
+    // a Pattern for splitting lines
+    private final Pattern pattern = Pattern.compile("\\s+");
+
+    // a LinkedHashMap stores the intervals of each chromosome in the order of input
+    private final LinkedHashMap<String, ArrayList<int[]>> intervals = new LinkedHashMap<>();
+
+    // the chromosome, start and end of each merged region
+    private String[] chroms;
+    private byte[][] chromBytes;
+    private int[] starts;
+    private int[] ends;
+
+    // the regions on the i-th chromosome are [chromFirst[i], chromFirst[i+1])
+    private int[] chromFirst;
+
+    /**
+     * Constructor of {@code RegionInfo}.
+     *
+     * @param regions comma-separated regions, or null
+     * @param regionsFileName the name of a file containing one region per line, or null
+     */
+    public RegionInfo(String regions, String regionsFileName) {
+        if (regions != null) {
+            for (String region:regions.split(",")) {
+                if (!region.trim().isEmpty()) addRegion(region.trim());
+            }
+        }
+        if (regionsFileName != null) readFile(getBufferedReader(regionsFileName));
+        if (intervals.isEmpty())
+            throw new IllegalArgumentException("Cannot find any region in --region or --regions-file.");
+        merge();
+    }
+
+    @Override
+    public void parseLine(String line) {
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) return;
+        String[] elements = pattern.split(line);
+        if (elements.length == 1) addRegion(elements[0]);
+        else if (elements.length == 2) addRegion(elements[0], elements[1], elements[1]);
+        else addRegion(elements[0], elements[1], elements[2]);
+    }
+
+    /**
+     * Returns how many regions remain after merging.
+     *
+     * @return the number of regions
+     */
+    public int getRegionNum() { return starts.length; }
+
+    /**
+     * Returns the chromosome of a region.
+     *
+     * @param i the index of a region
+     * @return the chromosome of the region
+     */
+    public String getChrom(int i) { return chroms[i]; }
+
+    /**
+     * Returns the 1-based start of a region.
+     *
+     * @param i the index of a region
+     * @return the start of the region
+     */
+    public int getStart(int i) { return starts[i]; }
+
+    /**
+     * Returns the 1-based inclusive end of a region.
+     *
+     * @param i the index of a region
+     * @return the end of the region
+     */
+    public int getEnd(int i) { return ends[i]; }
+
+    /**
+     * Checks whether the chromosome of a region equals a chromosome name stored in a byte array.
+     *
+     * @param i the index of a region
+     * @param buf a byte array containing the name of a chromosome
+     * @param from the start of the name
+     * @param length the length of the name
+     * @return true, the names are the same; false, otherwise
+     */
+    boolean isChrom(int i, byte[] buf, int from, int length) {
+        byte[] chrom = chromBytes[i];
+        if (chrom.length != length) return false;
+        for (int k = 0; k < length; k++) {
+            if (chrom[k] != buf[from + k]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a position is in any region.
+     *
+     * @param buf a byte array containing the name of a chromosome
+     * @param from the start of the name
+     * @param length the length of the name
+     * @param pos a 1-based position
+     * @return true, the position is in a region; false, otherwise
+     */
+    boolean contains(byte[] buf, int from, int length, int pos) {
+        for (int c = 0; c < chromFirst.length - 1; c++) {
+            int first = chromFirst[c];
+            if (!isChrom(first, buf, from, length)) continue;
+            // binary search the last region starting at or before pos
+            int lo = first;
+            int hi = chromFirst[c+1] - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (starts[mid] <= pos) lo = mid;
+                else hi = mid - 1;
+            }
+            return (starts[lo] <= pos) && (pos <= ends[lo]);
+        }
+        return false;
+    }
+
+    /**
+     * Helper function for parsing a region like "chr", "chr:pos" or "chr:start-end".
+     *
+     * @param region a String represents a region
+     */
+    private void addRegion(String region) {
+        int colon = region.lastIndexOf(':');
+        if (colon == -1) {
+            addInterval(region, 1, Integer.MAX_VALUE);
+            return;
+        }
+        String range = region.substring(colon + 1);
+        int dash = range.indexOf('-');
+        if (dash == -1) addRegion(region.substring(0, colon), range, range);
+        else if (dash == range.length() - 1) addRegion(region.substring(0, colon), range.substring(0, dash), null);
+        else addRegion(region.substring(0, colon), range.substring(0, dash), range.substring(dash + 1));
+    }
+
+    /**
+     * Helper function for parsing the start and end of a region.
+     *
+     * @param chrom the chromosome of a region
+     * @param start the 1-based start of a region
+     * @param end the 1-based inclusive end of a region, or null if the region ends at the end of the chromosome
+     */
+    private void addRegion(String chrom, String start, String end) {
+        try {
+            int s = Integer.parseInt(start);
+            int e = (end == null) ? Integer.MAX_VALUE : Integer.parseInt(end);
+            if ((s < 1) || (e < s)) throw new NumberFormatException();
+            addInterval(chrom, s, e);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid region: " + chrom + ":" + start + "-" + (end == null ? "" : end));
+        }
+    }
+
+    /**
+     * Helper function for storing a region.
+     *
+     * @param chrom the chromosome of a region
+     * @param start the 1-based start of a region
+     * @param end the 1-based inclusive end of a region
+     */
+    private void addInterval(String chrom, int start, int end) {
+        if (chrom.isEmpty()) throw new IllegalArgumentException("Invalid region without chromosome.");
+        intervals.computeIfAbsent(chrom, k -> new ArrayList<>()).add(new int[]{start, end});
+    }
+
+    /**
+     * Helper function for sorting and merging the regions of each chromosome.
+     */
+    private void merge() {
+        ArrayList<String> mergedChroms = new ArrayList<>();
+        ArrayList<int[]> merged = new ArrayList<>();
+        chromFirst = new int[intervals.size() + 1];
+        int c = 0;
+        for (String chrom:intervals.keySet()) {
+            chromFirst[c++] = merged.size();
+            ArrayList<int[]> list = intervals.get(chrom);
+            list.sort((a, b) -> Integer.compare(a[0], b[0]));
+            int[] last = null;
+            for (int[] interval:list) {
+                if ((last != null) && ((long) interval[0] <= (long) last[1] + 1)) {
+                    last[1] = Math.max(last[1], interval[1]);
+                }
+                else {
+                    last = new int[]{interval[0], interval[1]};
+                    merged.add(last);
+                    mergedChroms.add(chrom);
+                }
+            }
+        }
+        chromFirst[c] = merged.size();
+
+        int n = merged.size();
+        chroms = mergedChroms.toArray(new String[n]);
+        chromBytes = new byte[n][];
+        starts = new int[n];
+        ends = new int[n];
+        for (int i = 0; i < n; i++) {
+            chromBytes[i] = chroms[i].getBytes(StandardCharsets.US_ASCII);
+            starts[i] = merged.get(i)[0];
+            ends[i] = merged.get(i)[1];
+        }
+    }
+
+}
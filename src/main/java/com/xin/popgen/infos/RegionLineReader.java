@@ -0,0 +1,169 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.stream.IntStream;
+
+/**
+ * Class {@code RegionLineReader} reads the lines of a VCF or .count file within some regions.
+ * Header lines starting with '#' before the first record are returned as they are.
+ * If the file is compressed by bgzip and indexed by tabix (.tbi or .csi),
+ * the reader jumps to each region with the index in the order of the file;
+ * otherwise, the whole file is scanned and records outside the regions are skipped.
+ * Either way, the records are returned in the order of the file.
+ * The first and second columns of a record should be the chromosome and position.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+final class RegionLineReader extends ByteLineReader {
+
+    // a RegionInfo instance stores the regions
+    private final RegionInfo regionInfo;
+
+    // a TabixIndex instance for the input file, or null if the file is scanned
+    private final TabixIndex index;
+
+    // a BgzfInputStream instance points to the input file if it is indexed
+    private final BgzfInputStream bgzf;
+
+    // a boolean indicates whether the first record has been found
+    private boolean started = false;
+
+    // the regions in the order of the file
+    private final int[] order;
+
+    // the index of the current region in order and whether the reader should move to it
+    private int next = 0;
+    private int region = -1;
+    private boolean seekNeeded = true;
+
+    /**
+     * Constructor of {@code RegionLineReader}.
+     *
+     * @param in an InputStream instance points to the input data
+     * @param bufferSize the initial size of the buffer
+     * @param regionInfo a RegionInfo instance storing the regions
+     * @param index a TabixIndex instance of the input file, or null
+     */
+    private RegionLineReader(InputStream in, int bufferSize, RegionInfo regionInfo, TabixIndex index) {
+        super(in, bufferSize);
+        this.regionInfo = regionInfo;
+        this.index = index;
+        this.bgzf = (index == null) ? null : (BgzfInputStream) in;
+        if (index == null) {
+            this.order = null;
+        }
+        else {
+            // regions on the same chromosome are already sorted by start
+            this.order = IntStream.range(0, regionInfo.getRegionNum()).boxed()
+                    .filter(i -> index.getSeqIndex(regionInfo.getChrom(i)) != -1)
+                    .sorted((a, b) -> Integer.compare(index.getSeqIndex(regionInfo.getChrom(a)),
+                            index.getSeqIndex(regionInfo.getChrom(b))))
+                    .mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Opens a file for reading the lines within some regions.
+     *
+     * @param fileName the name of a VCF or .count file
+     * @param bufferSize the initial size of the buffer
+     * @param regionInfo a RegionInfo instance storing the regions
+     * @return a RegionLineReader instance
+     * @throws IOException
+     */
+    static RegionLineReader open(String fileName, int bufferSize, RegionInfo regionInfo) throws IOException {
+        byte[] header = new byte[18];
+        int nread = Info.readHeader(fileName, header);
+        if (BgzfInputStream.isBgzf(header, nread)) {
+            for (String suffix:new String[]{".tbi", ".csi"}) {
+                if (new File(fileName + suffix).exists()) {
+                    TabixIndex index = new TabixIndex(fileName + suffix);
+                    BgzfInputStream in = new BgzfInputStream(fileName, Runtime.getRuntime().availableProcessors());
+                    return new RegionLineReader(in, bufferSize, regionInfo, index);
+                }
+            }
+        }
+        System.err.println("Cannot find the index of " + fileName + ", scanning the whole file for regions");
+        return new RegionLineReader(Info.openInputStream(fileName), bufferSize, regionInfo, null);
+    }
+
+    @Override
+    int readLine() throws IOException {
+        while (true) {
+            if (started && seekNeeded && (index != null) && !seekRegion()) return -1;
+            int length = super.readLine();
+            if (length == -1) {
+                if (!started || (index == null)) return -1;
+                seekNeeded = true;
+                continue;
+            }
+            byte[] buf = buffer();
+            int start = start();
+            if ((length == 0) || (buf[start] == '#')) {
+                if (!started) return length;
+                continue;
+            }
+            if (!started) {
+                started = true;
+                if (index != null) continue;
+            }
+
+            int end = start + length;
+            int chromEnd = start;
+            while ((chromEnd < end) && (buf[chromEnd] > ' ')) chromEnd++;
+            int p = chromEnd;
+            while ((p < end) && (buf[p] <= ' ')) p++;
+            int pos = 0;
+            while ((p < end) && (buf[p] >= '0') && (buf[p] <= '9')) pos = pos * 10 + (buf[p++] - '0');
+
+            if (index == null) {
+                if (regionInfo.contains(buf, start, chromEnd - start, pos)) return length;
+                continue;
+            }
+            if (!regionInfo.isChrom(region, buf, start, chromEnd - start) || (pos > regionInfo.getEnd(region))) {
+                seekNeeded = true;
+                continue;
+            }
+            if (pos >= regionInfo.getStart(region)) return length;
+        }
+    }
+
+    /**
+     * Helper function for moving to the next region that may contain records.
+     *
+     * @return true, the reader moved to a region; false, no region is left
+     * @throws IOException
+     */
+    private boolean seekRegion() throws IOException {
+        while (next < order.length) {
+            region = order[next++];
+            long offset = index.getStartOffset(regionInfo.getChrom(region),
+                    regionInfo.getStart(region), regionInfo.getEnd(region));
+            if (offset != -1) {
+                bgzf.seek(offset);
+                clear();
+                seekNeeded = false;
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -15,10 +15,9 @@
 */
 package com.xin.popgen.infos;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.util.StringJoiner;
-import java.util.regex.Pattern;
+import java.io.InputStream;
+import java.util.Arrays;
 
 /**
  * Class {@code SnpInfo} stores the number of SNPs
@@ -28,11 +27,26 @@ import java.util.regex.Pattern;
  */
 public class SnpInfo implements Info {
 	
-	// a Pattern instance for splitting lines
-    private final Pattern pattern = Pattern.compile("\\s+");
+    // the columns of the chromosome, position, SNP ID, reference allele and alternative allele
+    // in an EIGENSTRAT SNP file
+    static final int[] COLUMNS = {1, 3, 0, 4, 5};
 
-    // a BufferedReader instance points to an EIGENSTRAT SNP file
-    private BufferedReader br = null;
+    // a ByteLineReader instance points to an EIGENSTRAT SNP file
+    private ByteLineReader reader = null;
+
+    // an integer array stores the columns of the chromosome, position, SNP ID,
+    // reference allele and alternative allele
+    private final int[] columns;
+
+    // the start and the end of each column in the current line
+    private final int[] columnStarts;
+    private final int[] columnEnds;
+
+    // a byte array stores the tab-delimited information of the current SNP
+    private byte[] buf = new byte[256];
+
+    // a ByteSlice instance used by get()
+    private final ByteSlice slice = new ByteSlice();
 
 	/**
 	 * Constructor of {@code SnpInfo}.
@@ -40,16 +54,72 @@ public class SnpInfo implements Info {
 	 * @param snpFileName the name of an EIGENSTRAT SNP file
 	 */
 	public SnpInfo(String snpFileName) {
-        this.br = getBufferedReader(snpFileName);
+        this(snpFileName, COLUMNS);
         //System.out.println(snpNum + " variants are read from " + snpFileName);
 	}
 
+	/**
+	 * Constructor of {@code SnpInfo} for SNP files with other column orders,
+	 * e.g. PLINK .bim files.
+	 *
+	 * @param snpFileName the name of a SNP file
+	 * @param columns the columns of the chromosome, position, SNP ID,
+	 *                reference allele and alternative allele
+	 */
+	SnpInfo(String snpFileName, int[] columns) {
+        this(open(snpFileName), columns);
+	}
+
+	/**
+	 * Constructor of {@code SnpInfo} reading SNP information from a stream.
+	 *
+	 * @param in an InputStream instance points to the SNP information
+	 * @param columns the columns of the chromosome, position, SNP ID,
+	 *                reference allele and alternative allele
+	 */
+	SnpInfo(InputStream in, int[] columns) {
+        this.reader = new ByteLineReader(in, 64 * 1024);
+        this.columns = columns;
+        int columnNum = 0;
+        for (int column:columns) columnNum = Math.max(columnNum, column + 1);
+        this.columnStarts = new int[columnNum];
+        this.columnEnds = new int[columnNum];
+	}
+
+    /**
+     * Helper function for opening a SNP file.
+     *
+     * @param snpFileName the name of a SNP file
+     * @return an InputStream instance from the file, or null if the file cannot be opened
+     */
+    private static InputStream open(String snpFileName) {
+        try {
+            return Info.openInputStream(snpFileName);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Skips the information of some SNPs.
+     *
+     * @param snpNum the number of SNPs to skip
+     */
+    void skip(long snpNum) {
+        try {
+            for (long i = 0; (i < snpNum) && (reader.readLine() != -1); i++);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
      * Close the file storing SNP information.
      */
 	public void close() {
         try {
-            this.br.close();
+            this.reader.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -60,17 +130,43 @@ public class SnpInfo implements Info {
      * @return the SNP ID, the reference allele, and the alternative allele
      */
     public String get() {
-        StringJoiner sj = new StringJoiner("\t");
+        next(slice);
+        return slice.toString();
+    }
+
+    /**
+     * Reads the information of the next SNP into a reusable buffer,
+     * and points a caller-owned slice to it.
+     * The slice is empty if the end of the file is reached.
+     *
+     * @param snpInfo a ByteSlice instance
+     */
+    void next(ByteSlice snpInfo) {
+        int n = 0;
         try {
-        	String line = br.readLine();
-        	if (line != null) {
-                String[] snpInfo = pattern.split(line.trim());
-                sj.add(snpInfo[1]).add(snpInfo[3]).add(snpInfo[0]).add(snpInfo[4]).add(snpInfo[5]);
+            int length = reader.readLine();
+            if (length > 0) {
+                byte[] line = reader.buffer();
+                int p = reader.start();
+                int end = p + length;
+                for (int c = 0; c < columnStarts.length; c++) {
+                    while ((p < end) && (line[p] <= ' ')) p++;
+                    columnStarts[c] = p;
+                    while ((p < end) && (line[p] > ' ')) p++;
+                    columnEnds[c] = p;
+                }
+                for (int column:columns) {
+                    int size = columnEnds[column] - columnStarts[column];
+                    if (buf.length < n + size + 1) buf = Arrays.copyOf(buf, 2 * (n + size + 1));
+                    if (n > 0) buf[n++] = '\t';
+                    System.arraycopy(line, columnStarts[column], buf, n, size);
+                    n += size;
+                }
             }
         } catch (IOException e) {
             e.printStackTrace();
         }
-        return sj.toString();
+        snpInfo.set(buf, 0, n);
     }
 
 	@Override
@@ -0,0 +1,231 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class {@code TabixIndex} reads a tabix (.tbi) or CSI (.csi) index of a BGZF file,
+ * and finds the virtual file offset where the records overlapping a region start.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+final class TabixIndex {
+
+    // a HashMap stores the index of each sequence name
+    private final HashMap<String, Integer> seqIndex = new HashMap<>();
+
+    // the number of bits of the smallest bin and the levels of bins
+    private final int minShift;
+    private final int depth;
+
+    // the chunks of each bin of each sequence
+    // each chunk is stored as two longs: the start and the end virtual offsets
+    private final List<Map<Integer, long[]>> bins;
+
+    // the smallest virtual offset of records in each bin of each sequence (CSI only)
+    private final List<Map<Integer, Long>> binOffsets;
+
+    // the linear index of each sequence (tabix only)
+    private final long[][] linearIndex;
+
+    /**
+     * Constructor of {@code TabixIndex}.
+     *
+     * @param indexFileName the name of a .tbi or .csi file
+     * @throws IOException
+     */
+    TabixIndex(String indexFileName) throws IOException {
+        try (DataInputStream in = new DataInputStream(Info.openInputStream(indexFileName))) {
+            byte[] magic = new byte[4];
+            in.readFully(magic);
+            boolean csi;
+            int refNum;
+            if ((magic[0] == 'T') && (magic[1] == 'B') && (magic[2] == 'I') && (magic[3] == 1)) {
+                csi = false;
+                minShift = 14;
+                depth = 5;
+                refNum = readInt(in);
+                readNames(in);
+            }
+            else if ((magic[0] == 'C') && (magic[1] == 'S') && (magic[2] == 'I') && (magic[3] == 1)) {
+                csi = true;
+                minShift = readInt(in);
+                depth = readInt(in);
+                int auxLength = readInt(in);
+                if (auxLength >= 28) readNames(in);
+                else in.readFully(new byte[auxLength]);
+                refNum = readInt(in);
+            }
+            else throw new IOException(indexFileName + " is not a tabix or CSI index.");
+
+            bins = new ArrayList<>(refNum);
+            binOffsets = new ArrayList<>(refNum);
+            linearIndex = new long[refNum][];
+            for (int r = 0; r < refNum; r++) {
+                int binNum = readInt(in);
+                bins.add(new HashMap<>());
+                binOffsets.add(new HashMap<>());
+                for (int b = 0; b < binNum; b++) {
+                    int bin = readInt(in);
+                    if (csi) binOffsets.get(r).put(bin, readLong(in));
+                    int chunkNum = readInt(in);
+                    long[] chunks = new long[2*chunkNum];
+                    for (int c = 0; c < 2*chunkNum; c++) {
+                        chunks[c] = readLong(in);
+                    }
+                    bins.get(r).put(bin, chunks);
+                }
+                if (!csi) {
+                    int intervalNum = readInt(in);
+                    linearIndex[r] = new long[intervalNum];
+                    for (int i = 0; i < intervalNum; i++) {
+                        linearIndex[r][i] = readLong(in);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the index of a sequence in the indexed file, which is the order of the sequence in the file.
+     *
+     * @param chrom the name of a sequence
+     * @return the index of the sequence, or -1 if the sequence is not in the file
+     */
+    int getSeqIndex(String chrom) {
+        Integer r = seqIndex.get(chrom);
+        return (r == null) ? -1 : r;
+    }
+
+    /**
+     * Returns the smallest virtual file offset of records that may overlap a region.
+     * Records before the region may be found after this offset and must be skipped by the caller.
+     *
+     * @param chrom the chromosome of a region
+     * @param start the 1-based start of a region
+     * @param end the 1-based inclusive end of a region
+     * @return the virtual file offset, or -1 if no record overlaps the region
+     */
+    long getStartOffset(String chrom, int start, int end) {
+        Integer r = seqIndex.get(chrom);
+        if (r == null) return -1;
+        long maxPos = (1L << (minShift + 3*depth)) - 1;
+        long beg = Math.min(start - 1, maxPos);
+        long last = Math.min(end - 1, maxPos);
+
+        long minOffset = 0;
+        if (linearIndex[r] != null) {
+            int n = linearIndex[r].length;
+            if (n > 0) minOffset = linearIndex[r][(int) Math.min(beg >> minShift, n - 1)];
+        }
+        else {
+            // the smallest offset of the deepest existing bin containing the start
+            int bin = firstBin(depth) + (int) (beg >> minShift);
+            for (int level = depth; level >= 0; level--) {
+                Long offset = binOffsets.get(r).get(bin);
+                if (offset != null) {
+                    minOffset = offset;
+                    break;
+                }
+                bin = (bin - 1) >> 3;
+            }
+        }
+
+        long result = -1;
+        for (int level = 0; level <= depth; level++) {
+            int shift = minShift + 3*(depth - level);
+            int first = firstBin(level);
+            for (long b = beg >> shift; b <= last >> shift; b++) {
+                long[] chunks = bins.get(r).get(first + (int) b);
+                if (chunks == null) continue;
+                for (int c = 0; c < chunks.length; c += 2) {
+                    if (Long.compareUnsigned(chunks[c+1], minOffset) <= 0) continue;
+                    if ((result == -1) || (Long.compareUnsigned(chunks[c], result) < 0)) result = chunks[c];
+                }
+            }
+        }
+        if ((result != -1) && (Long.compareUnsigned(result, minOffset) < 0)) result = minOffset;
+        return result;
+    }
+
+    /**
+     * Helper function for reading the sequence names in the header of an index.
+     *
+     * @param in a DataInputStream instance points to an index
+     * @throws IOException
+     */
+    private void readNames(DataInputStream in) throws IOException {
+        // format, columns of sequence, start and end, meta character and lines to skip
+        for (int i = 0; i < 6; i++) {
+            readInt(in);
+        }
+        byte[] names = new byte[readInt(in)];
+        in.readFully(names);
+        int from = 0;
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] == 0) {
+                seqIndex.put(new String(names, from, i - from, StandardCharsets.US_ASCII), seqIndex.size());
+                from = i + 1;
+            }
+        }
+    }
+
+    /**
+     * Helper function for finding the first bin of a level.
+     *
+     * @param level a level of bins, 0 is the root
+     * @return the first bin of the level
+     */
+    private static int firstBin(int level) {
+        return ((1 << (3*level)) - 1) / 7;
+    }
+
+    /**
+     * Helper function for reading a little-endian 32-bit integer.
+     *
+     * @param in an InputStream instance
+     * @return the integer
+     * @throws IOException
+     */
+    private static int readInt(InputStream in) throws IOException {
+        int b0 = in.read();
+        int b1 = in.read();
+        int b2 = in.read();
+        int b3 = in.read();
+        if ((b0 | b1 | b2 | b3) < 0) throw new IOException("Truncated index");
+        return b0 | (b1 << 8) | (b2 << 16) | (b3 << 24);
+    }
+
+    /**
+     * Helper function for reading a little-endian 64-bit integer.
+     *
+     * @param in an InputStream instance
+     * @return the integer
+     * @throws IOException
+     */
+    private static long readLong(InputStream in) throws IOException {
+        return (readInt(in) & 0xffffffffL) | ((long) readInt(in) << 32);
+    }
+
+}
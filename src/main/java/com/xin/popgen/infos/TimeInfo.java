@@ -42,13 +42,24 @@ public final class TimeInfo implements Info {
      * @param popInfo a PopInfo instance
      */
     public TimeInfo(String timeFileName, PopInfo popInfo) {
+        this(timeFileName, popInfo, popInfo.getPopPairs());
+    }
+
+    /**
+     * Constructor of class {@code TimeInfo} requiring divergence times of some population pairs.
+     *
+     * @param timeFileName the file name of a divergence time file
+     * @param popInfo a PopInfo instance
+     * @param popPairs the indices of the two populations of each population pair required
+     */
+    public TimeInfo(String timeFileName, PopInfo popInfo, int[][] popPairs) {
         this.popInfo = popInfo;
         int popPairNum = (popInfo.getPopNum()*(popInfo.getPopNum()-1))/2;
         times = new Integer[popPairNum];
         readFile(getBufferedReader(timeFileName));
-        checkPopPairs();
+        checkPopPairs(popPairs);
 
-        System.out.println(popPairNum + " population pairs with divergence times are read from "
+        System.out.println(popPairs.length + " population pairs with divergence times are read from "
                 + timeFileName);
     }
 
@@ -62,16 +73,28 @@ public final class TimeInfo implements Info {
     	return times[k];
     }
 
+    /**
+     * Returns the divergence time of a population pair given two population indices.
+     *
+     * @param i the index of the first population
+     * @param j the index of the second population
+     * @return the divergence time of the population pair
+     */
+    public int getTime(int i, int j) {
+        return times[popInfo.getPopPairIndex(i, j)];
+    }
+
     /**
      * Helper function for checking whether divergence times of
-     * all the population pairs exist.
+     * the required population pairs exist.
+     *
+     * @param popPairs the indices of the two populations of each population pair required
      */
-    private void checkPopPairs() {
-        for (int k = 0; k < times.length; k++) {
-            if (times[k] == null) {
-                String[] popPair = popInfo.getPopPair(k);
+    private void checkPopPairs(int[][] popPairs) {
+        for (int[] popPair:popPairs) {
+            if (times[popInfo.getPopPairIndex(popPair[0], popPair[1])] == null) {
                 throw new IllegalArgumentException("Cannot find the divergence time of the population pair {"
-                        + popPair[0] + "," + popPair[1] + "}");
+                        + popInfo.getPopId(popPair[0]) + "," + popInfo.getPopId(popPair[1]) + "}");
             }
         }
     }
@@ -15,11 +15,13 @@
 */
 package com.xin.popgen.infos;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * Class {@code VcfInfo} is used for counting alleles and obtaining SNP information from a VCF file.
+ * Records are parsed as raw ASCII bytes from a reusable buffer,
+ * and a String with the SNP information is only created on request.
  *
  * @author Xin Huang {@code <xin.huang07@gmail.com>}
  */
@@ -31,11 +33,11 @@ public class VcfInfo extends CountInfo {
     // an integer indicates how many individuals in the sample
     final int indNum;
 
-    // an integer indicates how many populations in the sample
-    final int popNum;
+    // a ByteLineReader instance points to the genotype data
+    private ByteLineReader reader = null;
 
-    // a BufferedReader instances points to the genotype data
-    BufferedReader br = null;
+    // the end of the ALT column of the current record in the buffer of reader
+    private int infoEnd = 0;
 
     /**
      * Constructor of {@code VcfInfo}.
@@ -44,16 +46,28 @@ public class VcfInfo extends CountInfo {
      * @param sampleInfo   a IndInfo instance storing the individual information
      */
     public VcfInfo(String genoFileName, IndInfo sampleInfo, PopInfo popInfo, boolean skip) {
-        this.sampleInfo = sampleInfo;
-        this.indNum = sampleInfo.getIndNum();
-        this.popNum = popInfo.getPopNum();
-        this.br = getBufferedReader(genoFileName);
+        this(genoFileName, sampleInfo, popInfo, skip, null);
+    }
+
+    /**
+     * Constructor of {@code VcfInfo} reading only the records within some regions.
+     *
+     * @param genoFileName the name of the file containing genotype data in VCF format
+     * @param sampleInfo   a IndInfo instance storing the individual information
+     * @param regionInfo   a RegionInfo instance storing the regions, or null for the whole file
+     */
+    public VcfInfo(String genoFileName, IndInfo sampleInfo, PopInfo popInfo, boolean skip, RegionInfo regionInfo) {
+        this(sampleInfo, popInfo);
+        this.reader = openReader(genoFileName, 1024 * 1024, regionInfo);
+        if ((regionInfo == null) && skip) this.splittableFileName = uncompressedFileName(genoFileName);
         if (skip) {
-            String line;
             try {
-                while ((line = br.readLine()) != null) {
+                int length;
+                while ((length = reader.readLine()) != -1) {
                     // skip header
-                    if (!line.startsWith("##")) break;
+                    byte[] buf = reader.buffer();
+                    int start = reader.start();
+                    if ((length < 2) || (buf[start] != '#') || (buf[start+1] != '#')) break;
                 }
             } catch (IOException e) {
                 e.printStackTrace();
@@ -61,6 +75,35 @@ public class VcfInfo extends CountInfo {
         }
     }
 
+    /**
+     * Constructor of {@code VcfInfo} for subclasses reading genotypes from other formats.
+     *
+     * @param sampleInfo a IndInfo instance storing the individual information
+     * @param popInfo a PopInfo instance storing the population information
+     */
+    VcfInfo(IndInfo sampleInfo, PopInfo popInfo) {
+        this.sampleInfo = sampleInfo;
+        this.indNum = sampleInfo.getIndNum();
+        this.popNum = popInfo.getPopNum();
+    }
+
+    @Override
+    public CountInfo[] split(int n) {
+        checkSplittable();
+        try {
+            long[] bounds = FileSplitter.split(splittableFileName, FileSplitter.findDataStart(splittableFileName, 0), n);
+            CountInfo[] ranges = new CountInfo[bounds.length - 1];
+            for (int i = 0; i < ranges.length; i++) {
+                VcfInfo range = new VcfInfo(sampleInfo, sampleInfo.getPopInfo());
+                range.reader = new ByteLineReader(FileSplitter.open(splittableFileName, bounds[i], bounds[i+1]), 1024 * 1024);
+                ranges[i] = range;
+            }
+            return ranges;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot split " + splittableFileName + ": " + e.getMessage());
+        }
+    }
+
     @Override
     public void parseLine(String line) {}
 
@@ -69,54 +112,65 @@ public class VcfInfo extends CountInfo {
      */
     public void close() {
         try {
-            br.close();
+            reader.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     @Override
-    public int[][] countAlleles() {
-        int[][] alleleCounts = new int[popNum][2];
+    public void getSnpInfo(ByteSlice snpInfo) {
+        // CHROMO POS ID REF ALT
+        snpInfo.set(reader.buffer(), reader.start(), infoEnd - reader.start());
+    }
+
+    @Override
+    public boolean countAlleles(int[] alleleCounts) {
         try {
-            String line = br.readLine();
-            if (line != null)
-                alleleCounts = countAlleles(line.trim());
-            else return null;
+            int length = reader.readLine();
+            if (length == -1) return false;
+            info = null;
+            countAlleles(reader.buffer(), reader.start(), reader.start() + length, alleleCounts);
         } catch (IOException e) {
             e.printStackTrace();
+            return false;
         }
-        return alleleCounts;
+        return true;
     }
 
     /**
      * Helper function for counting alleles.
      *
-     * @param line a String represents one line in the VCF file
-     * @return a 2-D integer array containing counts of each allele
+     * @param line a byte array containing one line in the VCF file
+     * @param start the start of the line
+     * @param end the end of the line
+     * @param alleleCounts an integer array for storing counts of each allele
      */
-    private int[][] countAlleles(String line) {
-        int[][] alleleCounts = new int[popNum][2];
-        int end = 0;
-        for (int i = 0; i < 2; i++) {
-            end = line.indexOf("\t", end+1);
-        }
-        //int start = end + 1;
-        for (int i = 0; i < 3; i++) {
-            end = line.indexOf("\t", end+1);
-        }
-        // CHROMO POS ID REF ALT
-        this.info = line.substring(0, end);
-        for (int i = 0; i < 4; i++) {
-            end = line.indexOf("\t", end+1);
+    private void countAlleles(byte[] line, int start, int end, int[] alleleCounts) {
+        Arrays.fill(alleleCounts, 0);
+        int p = start;
+        // CHROMO POS ID REF ALT QUAL FILTER INFO FORMAT
+        for (int tabs = 0; tabs < 9; p++) {
+            if (p >= end)
+                throw new IllegalArgumentException("Cannot find genotypes in the VCF record.");
+            if (line[p] == '\t') {
+                if (++tabs == 5) infoEnd = p;
+            }
         }
         for (int i = 0; i < indNum; i++) {
-            int popIndex = sampleInfo.getPopIndex(i);
-            int allele1 = line.charAt(4*i+end+1) - 48;
-            int allele2 = line.charAt(4*i+end+3) - 48;
-            if (allele1 >= 0) alleleCounts[popIndex][allele1]++;
-            if (allele2 >= 0) alleleCounts[popIndex][allele2]++;
+            if (p >= end)
+                throw new IllegalArgumentException("The column in VCF file is not consistent with individual number.");
+            int offset = 2*sampleInfo.getPopIndex(i);
+            int allele1 = line[p++] - '0';
+            if ((allele1 & ~1) == 0) alleleCounts[offset+allele1]++;
+            if ((p + 1 < end) && ((line[p] == '|') || (line[p] == '/'))) {
+                int allele2 = line[p+1] - '0';
+                if ((allele2 & ~1) == 0) alleleCounts[offset+allele2]++;
+                p += 2;
+            }
+            // skip other fields of the genotype column
+            while ((p < end) && (line[p] != '\t')) p++;
+            p++;
         }
-        return alleleCounts;
     }
 }
@@ -0,0 +1,67 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.main;
+
+import com.beust.jcommander.IParameterValidator;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+
+/**
+ * Class {@code AnalysisOptions} is the base class for parsing the command line arguments
+ * shared by sub-commands compute-var and compute-diff in SeleDiff.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+public abstract class AnalysisOptions extends InputOptions {
+
+    @Parameter(names = "--splits",
+            description = "The number of byte ranges of an uncompressed --count, --vcf or --geno file "
+                    + "read and analyzed in parallel. The results of the ranges are merged in order.",
+            validateWith = PositiveIntegerValidator.class)
+    public int splits = 1;
+
+    @Parameter(names = "--threads",
+            description = "The number of threads analyzing variants. Variants are read by an additional thread. "
+                    + "compute-diff writes the results by another thread in the same order as the input; "
+                    + "compute-var divides the population pairs among the threads, giving the same medians as one thread.",
+            validateWith = PositiveIntegerValidator.class)
+    public int threads = 1;
+
+    @Parameter(names = "--pairs",
+            description = "The file stores population pairs to analyze, one pair per line as two population IDs "
+                    + "delimited by spaces. Only these pairs are analyzed and written in the order of the file, "
+                    + "and variances of Omega and divergence times are only needed for these pairs.",
+            validateWith = FileValidator.class)
+    public String pairFileName;
+
+    /**
+     * Validates whether a value is a positive integer.
+     */
+    public static class PositiveIntegerValidator implements IParameterValidator {
+
+        @Override
+        public void validate(String name, String value) throws ParameterException {
+            try {
+                if (Integer.parseInt(value) > 0) return;
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+            throw new ParameterException("Parameter " + name + " should be a positive integer (found " + value + ")");
+        }
+
+    }
+
+}
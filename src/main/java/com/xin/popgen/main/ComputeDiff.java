@@ -15,7 +15,9 @@
 */
 package com.xin.popgen.main;
 
+import com.beust.jcommander.IParameterValidator;
 import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
 import com.beust.jcommander.Parameters;
 
 /**
@@ -25,7 +27,7 @@ import com.beust.jcommander.Parameters;
  * @author Xin Huang {@code <xin.huang07@gmail.com>}
  */
 @Parameters(commandDescription = "Sub-command for estimating selection differences of loci")
-public final class ComputeDiff extends ComputeVar {
+public final class ComputeDiff extends AnalysisOptions {
 
     @Parameter(names = "--time", required = true,
             description = "The file stores divergence times between populations. " +
@@ -46,4 +48,77 @@ public final class ComputeDiff extends ComputeVar {
             validateWith = FileValidator.class)
     public String popVarFileName;
 
+    @Parameter(names = "--output-format",
+            description = "The format of the output file: text, tab-delimited lines for each variant and population pair; "
+                    + "wide, a tab-delimited line for each variant with columns for each population pair; "
+                    + "binary, a compact binary file, which can be converted into text by the view sub-command.",
+            validateWith = OutputFormatValidator.class)
+    public String outputFormat = "text";
+
+    @Parameter(names = "--max-pvalue",
+            description = "Only output the results with p-values not larger than this value. "
+                    + "With --output-format wide or binary, a variant is written if the result of any population pair is kept.",
+            validateWith = ProbabilityValidator.class)
+    public Double maxPvalue;
+
+    @Parameter(names = "--min-delta",
+            description = "Only output the results with delta statistics not smaller than this value. "
+                    + "With --output-format wide or binary, a variant is written if the result of any population pair is kept.",
+            validateWith = NonNegativeNumberValidator.class)
+    public Double minDelta;
+
+    @Parameter(names = "--top-k",
+            description = "Only output the K results of (variant, population pair) with the largest delta statistics, "
+                    + "ranked from the most significant. Only used with --output-format text.",
+            validateWith = PositiveIntegerValidator.class)
+    public Integer topK;
+
+    /**
+     * Validates whether a value is a number between 0 and 1.
+     */
+    public static class ProbabilityValidator implements IParameterValidator {
+
+        @Override
+        public void validate(String name, String value) throws ParameterException {
+            try {
+                double p = Double.parseDouble(value);
+                if ((p >= 0) && (p <= 1)) return;
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+            throw new ParameterException("Parameter " + name + " should be between 0 and 1 (found " + value + ")");
+        }
+
+    }
+
+    /**
+     * Validates whether a value is a non-negative number.
+     */
+    public static class NonNegativeNumberValidator implements IParameterValidator {
+
+        @Override
+        public void validate(String name, String value) throws ParameterException {
+            try {
+                if (Double.parseDouble(value) >= 0) return;
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+            throw new ParameterException("Parameter " + name + " should be a non-negative number (found " + value + ")");
+        }
+
+    }
+
+    /**
+     * Validates whether an output format is supported.
+     */
+    public static class OutputFormatValidator implements IParameterValidator {
+
+        @Override
+        public void validate(String name, String value) throws ParameterException {
+            if (!value.equals("text") && !value.equals("wide") && !value.equals("binary"))
+                throw new ParameterException("Parameter " + name + " should be text, wide or binary (found " + value + ")");
+        }
+
+    }
+
 }
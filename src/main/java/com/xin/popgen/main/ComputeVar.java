@@ -15,10 +15,6 @@
 */
 package com.xin.popgen.main;
 
-import java.io.File;
-import java.util.ArrayList;
-import java.util.List;
-
 import com.beust.jcommander.IParameterValidator;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParameterException;
@@ -31,61 +27,25 @@ import com.beust.jcommander.Parameters;
  * @author Xin Huang {@code <xin.huang07@gmail.com>}
  */
 @Parameters(commandDescription = "Sub-command for estimating variances of Omega")
-public class ComputeVar {
-
-    @Parameter(names = "--count",
-            description = "The COUNT file stores SNP information and allele counts of SNPs",
-            validateWith = FileValidator.class)
-    public String countFileName;
-
-	@Parameter(names = "--vcf",
-            description = "The VCF file stores SNP information and genotype data.",
-            validateWith = FileValidator.class)
-    public String vcfFileName;
+public final class ComputeVar extends AnalysisOptions {
 
-    @Parameter(names = "--geno",
-			description = "The EIGENSTRAT GENO file stores allele counts: "
-					+ "0, zero copy of the reference allele; 1, one copy of the reference allele "
-					+ "and one copy of the alternative allele; 2, two copies of the reference allele; "
-					+ "9, missing values.", 
-            validateWith = FileValidator.class)
-    public String genoFileName;
-    
-    @Parameter(names = "--snp",
-    		description = "The EIGENSTRAT SNP file stores information of variants.", 
-    		validateWith = FileValidator.class)
-    public String snpFileName;
-    
-    @Parameter(names = "--ind",
-    		description = "The EIGENSTRAT IND file stores information of individuals and populations.", 
-    		validateWith = FileValidator.class)
-    public String indFileName;
+    @Parameter(names = "--median-method",
+            description = "The method for estimating medians of variances of Omega: tdigest, approximate medians "
+                    + "from t-digests in one pass; exact, exact medians in two or more passes over the input, "
+                    + "storing only the values close to the medians; "
+                    + "histogram, approximate medians with a relative error of at most 0.5% from log histograms in one pass.",
+            validateWith = MedianMethodValidator.class)
+    public String medianMethod = "tdigest";
 
-    @Parameter(names = "--output", required = true,
-            description = "The output file.", validateWith = FileValidator.class)
-    public String outputFileName;
-    
     /**
-     * Validates whether a file exists and whether a path is a directory.
+     * Validates whether a method for estimating medians is supported.
      */
-    public static class FileValidator implements IParameterValidator {
+    public static class MedianMethodValidator implements IParameterValidator {
 
         @Override
         public void validate(String name, String value) throws ParameterException {
-            File f = new File(value);
-            
-            if (name.equals("--output")) {
-                String path = f.getPath();
-                if (path.lastIndexOf(File.separator) > 0) {
-                    path = path.substring(0, path.lastIndexOf(File.separator));
-                    if (!new File(path).exists())
-                        throw new ParameterException("Parameter " + name + ": Path " + path + " does not exist");
-                }
-            }
-            else if (!f.exists()) 
-            	throw new ParameterException("Parameter " + name + ": File " + value + " does not exist");
-            else if (f.isDirectory()) 
-            	throw new ParameterException("Parameter " + name + ": " + value + " is a directory");
+            if (!value.equals("tdigest") && !value.equals("exact") && !value.equals("histogram"))
+                throw new ParameterException("Parameter " + name + " should be tdigest, exact or histogram (found " + value + ")");
         }
 
     }
@@ -0,0 +1,28 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.main;
+
+import com.beust.jcommander.Parameters;
+
+/**
+ * Class {@code Convert} is the class for parsing command line arguments
+ * for sub-command convert in SeleDiff.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+@Parameters(commandDescription = "Sub-command for converting genotypes into a binary allele count cache, "
+        + "which can be used with --cache by compute-var and compute-diff")
+public final class Convert extends InputOptions {}
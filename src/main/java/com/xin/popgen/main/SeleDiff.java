@@ -15,6 +15,8 @@
 */
 package com.xin.popgen.main;
 
+import java.io.IOException;
+
 import com.beust.jcommander.JCommander;
 import com.xin.popgen.estimators.*;
 
@@ -29,9 +31,13 @@ public final class SeleDiff {
     	
         ComputeVar var = new ComputeVar();
         ComputeDiff diff = new ComputeDiff();
+        Convert convert = new Convert();
+        View view = new View();
         JCommander jc = JCommander.newBuilder()
                 .addCommand("compute-var", var)
                 .addCommand("compute-diff", diff)
+                .addCommand("convert", convert)
+                .addCommand("view", view)
                 .build();
         jc.setProgramName("SeleDiff");
 
@@ -40,8 +46,21 @@ public final class SeleDiff {
         }
         else {
             jc.parse(args);
-            Estimator estimator = EstimatorFactory.create(jc, var, diff);
-            estimator.analyze();
+            if ("view".equals(jc.getParsedCommand())) {
+                try {
+                    long snpNum = ResultFormat.view(view.inputFileName, view.outputFileName);
+                    System.out.println(snpNum + " variants are written into " + view.outputFileName);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            else if ("convert".equals(jc.getParsedCommand())) {
+                EstimatorFactory.createConverter(convert).convert();
+            }
+            else {
+                Estimator estimator = EstimatorFactory.create(jc, var, diff);
+                estimator.analyze();
+            }
         }
         
     }
@@ -0,0 +1,39 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.main;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+
+/**
+ * Class {@code View} is the class for parsing command line arguments
+ * for sub-command view in SeleDiff.
+ *
+ * @author Xin Huang {@code <xin.huang07@gmail.com>}
+ */
+@Parameters(commandDescription = "Sub-command for converting the binary output of compute-diff into text")
+public final class View {
+
+    @Parameter(names = "--input", required = true,
+            description = "The binary output of compute-diff with --output-format binary.",
+            validateWith = InputOptions.FileValidator.class)
+    public String inputFileName;
+
+    @Parameter(names = "--output", required = true,
+            description = "The output file.", validateWith = InputOptions.FileValidator.class)
+    public String outputFileName;
+
+}
@@ -0,0 +1,77 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import com.xin.popgen.infos.CountInfo;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class BatchPipelineTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private static String run(String countFileName, int threads) throws IOException {
+        CountInfo countInfo = new CountInfo(countFileName);
+        // one line per variant and small batches, so that many batches are in flight
+        BatchPipeline pipeline = new BatchPipeline(countInfo, 3, 16 * 1024 / 7, threads);
+        StringBuilder sb = new StringBuilder();
+        pipeline.run(batch -> {
+            for (int i = 0; i < batch.size; i++) {
+                batch.appendSnpInfo(i);
+                batch.out.append((byte) '\t')
+                        .append(String.valueOf(batch.counts[6*i] + batch.counts[6*i+1]).getBytes(StandardCharsets.US_ASCII))
+                        .append((byte) '\n');
+            }
+        }, batch -> sb.append(batch.out));
+        countInfo.close();
+        assertEquals(20309, pipeline.getSnpNum());
+        return sb.toString();
+    }
+
+    @Test
+    public void testRun() throws IOException {
+        String expected = run("examples/data/example.count", 1);
+        assertEquals("1\t908247\trs13303118\tT\tG\t290\n", expected.substring(0, expected.indexOf('\n') + 1));
+        assertEquals(expected, run("examples/data/example.count", 2));
+        assertEquals(expected, run("examples/data/example.count", 4));
+    }
+
+    @Test
+    public void testRunWithInvalidInput() throws IOException {
+        File file = File.createTempFile("example", ".count");
+        file.deleteOnExit();
+        try (PrintWriter pw = new PrintWriter(file)) {
+            pw.println("#CHROMO\tPOS\tID\tREF\tALT\tYRI\tYRI\tCEU\tCEU");
+            pw.println("1\t908247\trs13303118\tT\tG\t33\t257\t140\t84");
+            pw.println("1\t1357056\trs35958305\tT\tG\t0\t290");
+        }
+        CountInfo countInfo = new CountInfo(file.getPath());
+        BatchPipeline pipeline = new BatchPipeline(countInfo, 2, 1, 3);
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The column in .count file is not consistent with population number.");
+        pipeline.run(batch -> {}, batch -> {});
+    }
+
+}
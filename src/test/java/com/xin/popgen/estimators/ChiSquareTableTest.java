@@ -18,6 +18,7 @@ package com.xin.popgen.estimators;
 import static org.junit.Assert.*;
 
 import org.apache.commons.math3.distribution.ChiSquaredDistribution;
+import org.apache.commons.math3.special.Erf;
 import org.junit.Test;
 
 public class ChiSquareTableTest {
@@ -27,8 +28,37 @@ public class ChiSquareTableTest {
 
 	@Test
 	public void testGetPvalue() {
-		assertEquals("0.000000", table.getPvalue("100"));
-		assertEquals(table.getPvalue("1.333"), String.format("%.6f", 1-chisq.cumulativeProbability(1.333)));
+		assertEquals(1, table.getPvalue(0), 0);
+		assertEquals(1, table.getPvalue(-1), 0);
+		assertTrue(Double.isNaN(table.getPvalue(Double.NaN)));
+		assertEquals(0, table.getPvalue(Double.POSITIVE_INFINITY), 0);
+		assertEquals(1-chisq.cumulativeProbability(1.333), table.getPvalue(1.333), 1e-13);
+		for (double x = 0.0001; x < ChiSquareTable.MAX_STATISTIC; x += 0.0123) {
+			assertEquals(1-chisq.cumulativeProbability(x), table.getPvalue(x), 1e-13);
+		}
+	}
+
+	@Test
+	public void testGetPvalueOfLargeStatistics() {
+		// 1 - cdf loses precision for large statistics
+		assertEquals(1.523971e-23, table.getPvalue(100), 1e-29);
+		for (double x = ChiSquareTable.MAX_STATISTIC; x < 1000; x += 0.37) {
+			double expected = Erf.erfc(Math.sqrt(x / 2));
+			assertEquals(expected, table.getPvalue(x), expected * 1e-12);
+		}
+	}
+
+	@Test
+	public void testGetPvalueOfRoundedStatistics() {
+		// the same as String.format("%.6f", 1-chisq.cumulativeProbability(x)) for statistics with 3 decimal points
+		double x = 0;
+		for (int i = 0; i < 30000; i++, x += 0.001) {
+			String expected = String.format("%.6f", 1-chisq.cumulativeProbability(x));
+			double pvalue = table.getPvalue(i / 1000d);
+			long lval = (long) (pvalue * 1000000 + 0.5);
+			assertEquals(expected, String.format("%d.%06d", lval / 1000000, lval % 1000000));
+		}
+		assertEquals(0, (long) (table.getPvalue(30) * 1000000 + 0.5));
 	}
 
 }
@@ -0,0 +1,114 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DigestArenaTest {
+
+    @Test
+    public void testQuantile() {
+        Random random = new Random(1);
+        DigestArena arena = new DigestArena(3, DigestArena.DEFAULT_COMPRESSION);
+        double[][] values = new double[3][];
+        for (int k = 0; k < 3; k++) {
+            values[k] = new double[10000 + 5000 * k];
+            for (int i = 0; i < values[k].length; i++) {
+                values[k][i] = (k == 1) ? random.nextGaussian() : Math.exp(random.nextGaussian());
+            }
+            double[] batch = values[k].clone();
+            for (int i = 0; i < batch.length; i += 100) {
+                arena.add(k, batch, i, Math.min(batch.length, i + 100));
+            }
+        }
+        for (int k = 0; k < 3; k++) {
+            double[] sorted = values[k].clone();
+            Arrays.sort(sorted);
+            assertEquals(sorted.length, arena.size(k));
+            assertRank(sorted, arena.quantile(k, 0.5), 0.5, 0.002);
+            assertRank(sorted, arena.quantile(k, 0.25), 0.25, 0.02);
+            assertEquals(sorted[0], arena.quantile(k, 0), 0);
+            assertEquals(sorted[sorted.length - 1], arena.quantile(k, 1), 0);
+        }
+    }
+
+    @Test
+    public void testUpperQuantiles() {
+        // the brackets of the exact medians use the upper quantiles as well as the lower ones
+        Random random = new Random(3);
+        DigestArena arena = new DigestArena(1, DigestArena.DEFAULT_COMPRESSION);
+        double[] values = new double[100000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian();
+        }
+        double[] batch = values.clone();
+        for (int i = 0; i < batch.length; i += DigestBuffer.DEFAULT_CAPACITY) {
+            arena.add(0, batch, i, Math.min(batch.length, i + DigestBuffer.DEFAULT_CAPACITY));
+        }
+        Arrays.sort(values);
+        assertRank(values, arena.quantile(0, 0.75), 0.75, 0.002);
+        assertRank(values, arena.quantile(0, 0.9), 0.9, 0.005);
+        assertRank(values, arena.quantile(0, 0.99), 0.99, 0.005);
+        assertRank(values, arena.quantile(0, 0.1), 0.1, 0.005);
+    }
+
+    @Test
+    public void testAddArena() {
+        Random random = new Random(2);
+        DigestArena arena = new DigestArena(2, DigestArena.DEFAULT_COMPRESSION);
+        DigestArena other = new DigestArena(2, DigestArena.DEFAULT_COMPRESSION);
+        double[] values = new double[20000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextDouble();
+        }
+        double[] batch = values.clone();
+        arena.add(1, batch, 0, 10000);
+        other.add(1, batch, 10000, 20000);
+        arena.add(other);
+        Arrays.sort(values);
+        assertEquals(20000, arena.size(1));
+        assertEquals(0, arena.size(0));
+        assertTrue(Double.isNaN(arena.quantile(0, 0.5)));
+        assertRank(values, arena.quantile(1, 0.5), 0.5, 0.002);
+    }
+
+    @Test
+    public void testSingleValue() {
+        DigestArena arena = new DigestArena(1, DigestArena.DEFAULT_COMPRESSION);
+        arena.add(0, new double[]{1.5}, 0, 1);
+        assertEquals(1.5, arena.quantile(0, 0.5), 0);
+    }
+
+    @Test
+    public void testByteSize() {
+        // the arrays of an arena grow linearly with the number of digests
+        assertEquals(1000 * DigestArena.byteSize(1, 100), DigestArena.byteSize(1000, 100));
+        // a digest of compression 100 stores at most 202 centroids
+        assertEquals(16 * 202 + 4 + 3 * 8, DigestArena.byteSize(1, 100));
+    }
+
+    private static void assertRank(double[] sorted, double value, double q, double error) {
+        int rank = Arrays.binarySearch(sorted, value);
+        if (rank < 0) rank = -rank - 1;
+        assertEquals(q, (double) rank / sorted.length, error);
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DigestBufferTest {
+
+    @Test
+    public void testAdd() {
+        Random random = new Random(1);
+        DigestArena arena = new DigestArena(2, DigestArena.DEFAULT_COMPRESSION);
+        DigestArena expected = new DigestArena(2, DigestArena.DEFAULT_COMPRESSION);
+        DigestBuffer buffer = new DigestBuffer(arena, 2, 100);
+        double[] values = new double[1050];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian();
+            buffer.add(1, values[i]);
+        }
+        // the staged values are only added into the digest once the buffer is full
+        assertEquals(1000, arena.size(1));
+        buffer.flush();
+        assertEquals(1050, arena.size(1));
+        assertEquals(0, arena.size(0));
+        assertTrue(Double.isNaN(arena.quantile(0, 0.5)));
+
+        // the same as adding batches of the buffer capacity into the digest
+        for (int i = 0; i < values.length; i += 100) {
+            expected.add(1, values, i, Math.min(values.length, i + 100));
+        }
+        for (double q:new double[]{0, 0.25, 0.5, 0.75, 1}) {
+            assertEquals(expected.quantile(1, q), arena.quantile(1, q), 0);
+        }
+        assertSame(arena, buffer.getArena());
+    }
+
+    @Test
+    public void testFlush() {
+        DigestArena arena = new DigestArena(3, DigestArena.DEFAULT_COMPRESSION);
+        DigestBuffer buffer = new DigestBuffer(arena, 3, 4);
+        buffer.add(0, 2.0);
+        buffer.add(2, 1.0);
+        buffer.add(2, 3.0);
+        buffer.flush();
+        // flushing twice adds nothing
+        buffer.flush();
+        assertEquals(1, arena.size(0));
+        assertEquals(0, arena.size(1));
+        assertEquals(2, arena.size(2));
+        assertEquals(2.0, arena.quantile(0, 0.5), 0);
+        assertEquals(1.0, arena.quantile(2, 0), 0);
+        assertEquals(3.0, arena.quantile(2, 1), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new DigestBuffer(new DigestArena(1, DigestArena.DEFAULT_COMPRESSION), 1, 0);
+    }
+
+    @Test
+    public void testByteSize() {
+        // the arrays of a buffer grow linearly with the number of digests
+        assertEquals(1000 * DigestBuffer.byteSize(1, 256), DigestBuffer.byteSize(1000, 256));
+        assertEquals(8 * 256 + 4, DigestBuffer.byteSize(1, 256));
+    }
+
+}
@@ -16,12 +16,22 @@
 package com.xin.popgen.estimators;
 
 import com.beust.jcommander.JCommander;
+import com.beust.jcommander.ParameterException;
+import com.xin.popgen.infos.CacheInfo;
+import com.xin.popgen.infos.MappedGenoInfo;
+import com.xin.popgen.infos.PackedGenoInfo;
+import com.xin.popgen.infos.PlinkInfo;
 import com.xin.popgen.main.ComputeDiff;
 import com.xin.popgen.main.ComputeVar;
+import com.xin.popgen.main.Convert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class EstimatorFactoryTest {
@@ -71,7 +81,7 @@ public class EstimatorFactoryTest {
                 .addCommand("compute-var", var)
                 .addCommand("compute-diff", diff)
                 .build();
-        thrown.expectMessage("Cannot find --count, --vcf or --geno to specify the allele count/genotype file.");
+        thrown.expectMessage("Cannot find --count, --vcf, --geno, --bfile or --cache to specify the allele count/genotype file.");
         jc.parse("compute-var",
                 "--ind", "examples/data/example.ind",
                 "--snp", "examples/data/example.snp",
@@ -195,4 +205,233 @@ public class EstimatorFactoryTest {
         assertTrue(estimator instanceof SeleDiffEstimator);
     }
 
+    @Test
+    public void testCreateSeleDiffEstimatorWithPackedEigenStrat() {
+        ComputeVar var = new ComputeVar();
+        ComputeDiff diff = new ComputeDiff();
+        JCommander jc = JCommander.newBuilder()
+                .addCommand("compute-var", var)
+                .addCommand("compute-diff", diff)
+                .build();
+        jc.parse("compute-diff",
+                "--geno", "examples/data/example.candidates.packed.geno",
+                "--ind", "examples/data/example.candidates.ind",
+                "--snp", "examples/data/example.candidates.snp",
+                "--var", "examples/results/example.var",
+                "--time", "examples/data/example.time",
+                "--output", "examples/data/example.diff");
+        Estimator estimator = EstimatorFactory.create(jc, var, diff);
+        assertTrue(estimator instanceof SeleDiffEstimator);
+        assertTrue(estimator.genoInfo instanceof PackedGenoInfo);
+    }
+
+    @Test
+    public void testCheckParameters7() {
+        ComputeVar var = new ComputeVar();
+        ComputeDiff diff = new ComputeDiff();
+        JCommander jc = JCommander.newBuilder()
+                .addCommand("compute-var", var)
+                .addCommand("compute-diff", diff)
+                .build();
+        thrown.expectMessage("Cannot use --bfile with --count, --vcf or --geno.");
+        jc.parse("compute-var",
+                "--bfile", "examples/data/example.candidates",
+                "--count", "examples/data/example.count",
+                "--output", "examples/data/example.var");
+        EstimatorFactory.create(jc, var, diff);
+    }
+
+    @Test
+    public void testCreateSeleDiffEstimatorWithPlink() {
+        ComputeVar var = new ComputeVar();
+        ComputeDiff diff = new ComputeDiff();
+        JCommander jc = JCommander.newBuilder()
+                .addCommand("compute-var", var)
+                .addCommand("compute-diff", diff)
+                .build();
+        jc.parse("compute-diff",
+                "--bfile", "examples/data/example.candidates",
+                "--var", "examples/results/example.var",
+                "--time", "examples/data/example.time",
+                "--output", "examples/data/example.diff");
+        Estimator estimator = EstimatorFactory.create(jc, var, diff);
+        assertTrue(estimator instanceof SeleDiffEstimator);
+        assertTrue(estimator.genoInfo instanceof PlinkInfo);
+    }
+
+    @Test
+    public void testCheckParameters8() {
+        ComputeVar var = new ComputeVar();
+        ComputeDiff diff = new ComputeDiff();
+        JCommander jc = JCommander.newBuilder()
+                .addCommand("compute-var", var)
+                .addCommand("compute-diff", diff)
+                .build();
+        thrown.expectMessage("--region and --regions-file can only be used with --count or --vcf.");
+        jc.parse("compute-var",
+                "--bfile", "examples/data/example.candidates",
+                "--region", "15",
+                "--output", "examples/data/example.var");
+        EstimatorFactory.create(jc, var, diff);
+    }
+
+    @Test
+    public void testCreateSeleDiffEstimatorWithRegion() {
+        ComputeVar var = new ComputeVar();
+        ComputeDiff diff = new ComputeDiff();
+        JCommander jc = JCommander.newBuilder()
+                .addCommand("compute-var", var)
+                .addCommand("compute-diff", diff)
+                .build();
+        jc.parse("compute-diff",
+                "--count", "examples/compressed_data/example.regions.count.gz",
+                "--region", "22:20000000-25000000",
+                "--var", "examples/results/example.var",
+                "--time", "examples/data/example.time",
+                "--output", "examples/data/example.diff");
+        Estimator estimator = EstimatorFactory.create(jc, var, diff);
+        assertTrue(estimator instanceof SeleDiffEstimator);
+        int snpNum = 0;
+        while (estimator.genoInfo.countAlleles() != null) snpNum++;
+        estimator.genoInfo.close();
+        assertEquals(37, snpNum);
+    }
+
+    @Test
+    public void testCheckParameters9() {
+        ComputeVar var = new ComputeVar();
+        ComputeDiff diff = new ComputeDiff();
+        JCommander jc = JCommander.newBuilder()
+                .addCommand("compute-var", var)
+                .addCommand("compute-diff", diff)
+                .build();
+        thrown.expectMessage("Cannot use --cache with --count, --vcf, --geno or --bfile.");
+        jc.parse("compute-var",
+                "--cache", "examples/data/example.count",
+                "--count", "examples/data/example.count",
+                "--output", "examples/data/example.var");
+        EstimatorFactory.create(jc, var, diff);
+    }
+
+    @Test
+    public void testConvertAndCreateWithCache() throws IOException {
+        File cache = File.createTempFile("example.candidates", ".cache");
+        cache.deleteOnExit();
+        ComputeVar var = new ComputeVar();
+        ComputeDiff diff = new ComputeDiff();
+        Convert convert = new Convert();
+        JCommander jc = JCommander.newBuilder()
+                .addCommand("compute-var", var)
+                .addCommand("compute-diff", diff)
+                .addCommand("convert", convert)
+                .build();
+        jc.parse("convert",
+                "--geno", "examples/data/example.candidates.geno",
+                "--ind", "examples/data/example.candidates.ind",
+                "--snp", "examples/data/example.candidates.snp",
+                "--output", cache.getPath());
+        CacheConverter converter = EstimatorFactory.createConverter(convert);
+        assertTrue(converter.genoInfo instanceof MappedGenoInfo);
+        converter.convert();
+
+        jc.parse("compute-diff",
+                "--cache", cache.getPath(),
+                "--var", "examples/results/example.var",
+                "--time", "examples/data/example.time",
+                "--output", "examples/data/example.diff");
+        Estimator estimator = EstimatorFactory.create(jc, var, diff);
+        assertTrue(estimator instanceof SeleDiffEstimator);
+        assertTrue(estimator.genoInfo instanceof CacheInfo);
+        assertTrue(estimator.genoInfo.countAlleles() != null);
+        assertEquals("15\t25903913\trs1800407\tC\tT", estimator.genoInfo.getSnpInfo());
+        estimator.genoInfo.close();
+    }
+
+    @Test
+    public void testCreateExactMedianEstimator() {
+        ComputeVar var = new ComputeVar();
+        ComputeDiff diff = new ComputeDiff();
+        JCommander jc = JCommander.newBuilder()
+                .addCommand("compute-var", var)
+                .addCommand("compute-diff", diff)
+                .build();
+        jc.parse("compute-var",
+                "--count", "examples/data/example.count",
+                "--median-method", "exact",
+                "--output", "examples/data/example.var");
+        Estimator estimator = EstimatorFactory.create(jc, var, diff);
+        assertTrue(estimator instanceof ExactPopVarMedianEstimator);
+        estimator.genoInfo.close();
+    }
+
+    @Test
+    public void testCheckMedianMethod() {
+        ComputeVar var = new ComputeVar();
+        ComputeDiff diff = new ComputeDiff();
+        JCommander jc = JCommander.newBuilder()
+                .addCommand("compute-var", var)
+                .addCommand("compute-diff", diff)
+                .build();
+        thrown.expectMessage("--threads and --splits can only be used with --median-method tdigest.");
+        jc.parse("compute-var",
+                "--count", "examples/data/example.count",
+                "--median-method", "exact",
+                "--threads", "2",
+                "--output", "examples/data/example.var");
+        EstimatorFactory.create(jc, var, diff);
+    }
+
+    @Test
+    public void testConvertWithoutThreads() {
+        ComputeVar var = new ComputeVar();
+        ComputeDiff diff = new ComputeDiff();
+        Convert convert = new Convert();
+        JCommander jc = JCommander.newBuilder()
+                .addCommand("compute-var", var)
+                .addCommand("compute-diff", diff)
+                .addCommand("convert", convert)
+                .build();
+        // convert only accepts the input and output options
+        thrown.expect(ParameterException.class);
+        thrown.expectMessage("--threads");
+        jc.parse("convert",
+                "--count", "examples/data/example.count",
+                "--threads", "2",
+                "--output", "examples/data/example.cache");
+    }
+
+    @Test
+    public void testCheckSplits1() {
+        ComputeVar var = new ComputeVar();
+        ComputeDiff diff = new ComputeDiff();
+        JCommander jc = JCommander.newBuilder()
+                .addCommand("compute-var", var)
+                .addCommand("compute-diff", diff)
+                .build();
+        thrown.expectMessage("--splits can only be used with --count, --vcf or --geno.");
+        jc.parse("compute-var",
+                "--bfile", "examples/data/example.candidates",
+                "--splits", "2",
+                "--output", "examples/data/example.var");
+        EstimatorFactory.create(jc, var, diff);
+    }
+
+    @Test
+    public void testCheckSplits2() {
+        ComputeVar var = new ComputeVar();
+        ComputeDiff diff = new ComputeDiff();
+        JCommander jc = JCommander.newBuilder()
+                .addCommand("compute-var", var)
+                .addCommand("compute-diff", diff)
+                .build();
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("--splits can only be used with uncompressed --count, --vcf or --geno files without --region.");
+        jc.parse("compute-var",
+                "--vcf", "examples/compressed_data/example.candidates.vcf.gz",
+                "--ind", "examples/data/example.candidates.ind",
+                "--splits", "2",
+                "--output", "examples/data/example.var");
+        EstimatorFactory.create(jc, var, diff);
+    }
+
 }
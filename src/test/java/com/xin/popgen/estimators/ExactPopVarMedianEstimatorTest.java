@@ -0,0 +1,87 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+public class ExactPopVarMedianEstimatorTest {
+
+	// the medians of all the variances of drift, found by sorting them
+	private static final double[] MEDIANS = {1.541482, 1.634988, 0.987835};
+
+	@Test
+	public void testFindMedians() {
+		ExactPopVarMedianEstimator exact = new ExactPopVarMedianEstimator("examples/data/example.geno",
+				"examples/data/example.ind", "examples/data/example.snp", "examples/results/example.var", 'e',
+				null, null);
+		exact.findMedians();
+		assertArrayEquals(MEDIANS, exact.popPairVarMedians, 0.000001);
+	}
+
+	@Test
+	public void testFindMediansWithFewValues() {
+		// the brackets hold too few values to contain the medians, so they are read in more passes
+		for (int maxValues:new int[]{1, 7, 100}) {
+			ExactPopVarMedianEstimator exact = new ExactPopVarMedianEstimator("examples/data/example.count", null,
+					"examples/data/example.count", "examples/results/example.var", 'c', null, null);
+			exact.setMaxValues(maxValues);
+			exact.findMedians();
+			assertArrayEquals(MEDIANS, exact.popPairVarMedians, 0.000001);
+		}
+	}
+
+	@Test
+	public void testFindMediansWithEqualValues() throws IOException {
+		// most variants have the same allele counts, so most variances of drift are equal
+		File file = File.createTempFile("exact", ".count");
+		try (PrintWriter pw = new PrintWriter(file)) {
+			pw.println("#CHROMO\tPOS\tID\tREF\tALT\tA\tA\tB\tB");
+			for (int i = 0; i < 1000; i++) {
+				int count = (i % 3 == 0) ? 10 + i % 50 : 30;
+				pw.println("1\t" + (i + 1) + "\trs" + i + "\tA\tG\t" + count + "\t20\t40\t" + (60 - i % 2));
+			}
+		}
+		try {
+			double[] medians = null;
+			for (int maxValues:new int[]{ExactPopVarMedianEstimator.MAX_VALUES, 1, 5}) {
+				ExactPopVarMedianEstimator exact = new ExactPopVarMedianEstimator(file.getPath(), null,
+						file.getPath(), "examples/results/example.var", 'c', null, null);
+				exact.setMaxValues(maxValues);
+				exact.findMedians();
+				if (medians != null) assertArrayEquals(medians, exact.popPairVarMedians, 0);
+				medians = exact.popPairVarMedians.clone();
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testFindMediansWithPairs() {
+		ExactPopVarMedianEstimator exact = new ExactPopVarMedianEstimator("examples/data/example.count", null,
+				"examples/data/example.count", "examples/results/example.var", 'c',
+				null, "examples/data/example.pairs");
+		exact.findMedians();
+		assertArrayEquals(new double[]{MEDIANS[1], MEDIANS[0]}, exact.popPairVarMedians, 0.000001);
+	}
+
+}
@@ -0,0 +1,37 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LogHistogramPopVarMedianEstimatorTest {
+
+	@Test
+	public void testFindMedians() {
+		LogHistogramPopVarMedianEstimator histogram = new LogHistogramPopVarMedianEstimator("examples/data/example.geno",
+				"examples/data/example.ind", "examples/data/example.snp", "examples/results/example.var", 'e',
+				null, null);
+		histogram.findMedians();
+		// the medians have a relative error of at most 0.5% to the exact medians
+		double[] medians = {1.541482, 1.634988, 0.987835};
+		for (int i = 0; i < medians.length; i++) {
+			assertEquals(medians[i], histogram.popPairVarMedians[i], medians[i] * LogHistogram.DEFAULT_ACCURACY);
+		}
+	}
+
+}
@@ -0,0 +1,75 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LogHistogramTest {
+
+    @Test
+    public void testMedian() {
+        Random random = new Random(1);
+        for (int t = 0; t < 100; t++) {
+            int size = 1 + random.nextInt(2000);
+            double[] values = new double[size];
+            LogHistogram histogram = new LogHistogram(LogHistogram.DEFAULT_ACCURACY);
+            for (int i = 0; i < size; i++) {
+                // drift variances can be negative, and rounded values can be zeros
+                values[i] = (random.nextInt(20) == 0) ? 0 : Math.exp(1.5 * random.nextGaussian()) - 0.3;
+                histogram.add(values[i]);
+            }
+            Arrays.sort(values);
+            assertEquals(size, histogram.size());
+            assertMedian(values[(size - 1) / 2], values[size / 2], histogram.median());
+        }
+    }
+
+    @Test
+    public void testMedianOfEmptyHistogram() {
+        assertTrue(Double.isNaN(new LogHistogram(LogHistogram.DEFAULT_ACCURACY).median()));
+    }
+
+    @Test
+    public void testMergeSmallestBins() {
+        LogHistogram histogram = new LogHistogram(LogHistogram.DEFAULT_ACCURACY);
+        for (int i = 0; i < 1000; i++) {
+            histogram.add(1e-30);
+            histogram.add(2.5);
+            histogram.add(1e3);
+        }
+        assertTrue(histogram.capacity() <= LogHistogram.MAX_BINS);
+        // the smallest values are merged into one bin, but the medians are still accurate
+        assertEquals(2.5, histogram.median(), 2.5 * LogHistogram.DEFAULT_ACCURACY);
+        for (int i = 0; i < 1000; i++) {
+            histogram.add(-1e-30);
+            histogram.add(-2.5);
+            histogram.add(-1e3);
+        }
+        assertEquals(6000, histogram.size());
+        assertEquals(0, histogram.median(), 1e-20);
+    }
+
+    private static void assertMedian(double lower, double upper, double median) {
+        double error = LogHistogram.DEFAULT_ACCURACY * Math.max(Math.abs(lower), Math.abs(upper));
+        assertEquals((lower + upper) / 2, median, error + 1e-12);
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ModelCacheTest {
+
+    @Test
+    public void testCalVarOmega() {
+        ModelCache cache = new ModelCache(new ModelTable(1000), 16);
+        // rs1800407 YRI-CEU
+        assertEquals(30.7390, cache.calVarOmega(290, 0, 207, 17), 0.0001);
+        assertEquals(30.7390, cache.calVarOmega(290, 0, 207, 17), 0.0001);
+        // rs1800407 CEU-CHS
+        assertEquals(10.1820, cache.calVarOmega(207, 17, 486, 4), 0.0001);
+        assertEquals(3, cache.getLookups());
+        assertEquals(1, cache.getHits());
+        // counts larger than 65535 are not cached
+        assertEquals(Model.calVarOmega(70000, 1, 2, 3), cache.calVarOmega(70000, 1, 2, 3), 0);
+        assertEquals(Model.calVarOmega(70000, 1, 2, 3), cache.calVarOmega(70000, 1, 2, 3), 0);
+        assertEquals(1, cache.getHits());
+        assertEquals("20.00% of 5 population pairs are found in the model cache",
+                ModelCache.report(Arrays.asList(cache, new ModelCache(new ModelTable(10), 16))));
+    }
+
+    @Test
+    public void testConsistentWithModel() {
+        // a small cache evicts keys frequently
+        ModelCache cache = new ModelCache(new ModelTable(100), 256);
+        Random random = new Random(1);
+        for (int i = 0; i < 200000; i++) {
+            int aw = random.nextInt(30);
+            int am = random.nextInt(30);
+            int bw = random.nextInt(30);
+            int bm = random.nextInt(30);
+            assertEquals(Double.doubleToLongBits(Model.calVarOmega(aw, am, bw, bm)),
+                    Double.doubleToLongBits(cache.calVarOmega(aw, am, bw, bm)));
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ModelTableTest {
+
+    @Test
+    public void testCalLogOdds() {
+        ModelTable table = new ModelTable(1000);
+        // rs1800407 YRI-CEU
+        assertEquals(-3.863523, table.calLogOdds(290, 0, 207, 17), 0.000001);
+        // rs1800407 YRI-CHS
+        assertEquals(-1.680897, table.calLogOdds(290, 0, 486, 4), 0.000001);
+        // rs1800407 CEU-CHS
+        assertEquals(2.182626, table.calLogOdds(207, 17, 486, 4), 0.000001);
+    }
+
+    @Test
+    public void testCalVarOmega() {
+        ModelTable table = new ModelTable(1000);
+        // rs1800407 YRI-CEU
+        assertEquals(30.7390, table.calVarOmega(290, 0, 207, 17), 0.0001);
+        // rs1800407 CEU-CHS
+        assertEquals(10.1820, table.calVarOmega(207, 17, 486, 4), 0.0001);
+    }
+
+    @Test
+    public void testIsSafe() {
+        assertTrue(ModelTable.isSafe(1.2345674));
+        assertTrue(ModelTable.isSafe(-1.2345676));
+        assertFalse(ModelTable.isSafe(1.2345675));
+        assertFalse(ModelTable.isSafe(-1.2345675));
+        assertFalse(ModelTable.isSafe(Double.NaN));
+        assertFalse(ModelTable.isSafe(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    public void testConsistentWithModel() {
+        // counts larger than the table are computed without it
+        ModelTable table = new ModelTable(30);
+        for (int aw = 0; aw < 40; aw++) {
+            for (int am = 0; am < 40; am++) {
+                for (int bw = 0; bw < 40; bw += 3) {
+                    for (int bm = 0; bm < 40; bm += 3) {
+                        assertSame(aw, am, bw, bm, table);
+                    }
+                }
+            }
+        }
+        table = new ModelTable(2000);
+        Random random = new Random(1);
+        for (int i = 0; i < 200000; i++) {
+            assertSame(random.nextInt(2000), random.nextInt(2000), random.nextInt(2000), random.nextInt(2000), table);
+        }
+    }
+
+    private void assertSame(int aw, int am, int bw, int bm, ModelTable table) {
+        assertEquals(Double.doubleToLongBits(Model.calLogOdds(aw, am, bw, bm)),
+                Double.doubleToLongBits(table.calLogOdds(aw, am, bw, bm)));
+        assertEquals(Double.doubleToLongBits(Model.calVarLogOdds(aw, am, bw, bm)),
+                Double.doubleToLongBits(table.calVarLogOdds(aw, am, bw, bm)));
+        assertEquals(Double.doubleToLongBits(Model.calVarOmega(aw, am, bw, bm)),
+                Double.doubleToLongBits(table.calVarOmega(aw, am, bw, bm)));
+    }
+
+}
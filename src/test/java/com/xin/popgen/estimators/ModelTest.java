@@ -17,6 +17,8 @@ package com.xin.popgen.estimators;
 
 import org.junit.Test;
 
+import java.util.Random;
+
 import static org.junit.Assert.assertEquals;
 
 public class ModelTest {
@@ -51,4 +53,27 @@ public class ModelTest {
         assertEquals(10.1820, Model.calVarOmega(207, 17, 486, 4), 0.0001);
     }
 
+    @Test
+    public void testRound() {
+        assertEquals(Double.doubleToLongBits(Double.NaN), Double.doubleToLongBits(Model.round(Double.NaN)));
+        assertEquals(1.0, Model.round(0.9999995), 0);
+        assertEquals(-0.000001, Model.round(-0.0000015), 0);
+        Random random = new Random(1);
+        double[] values = new double[100000];
+        for (int i = 0; i < values.length; i++) {
+            // half of the values are close to the midpoint of two rounded values
+            values[i] = (i % 2 == 0) ? (random.nextDouble() - 0.5) * 100
+                    : (random.nextInt(2000001) - 1000000 + 0.5) / 1000000d;
+        }
+        for (double value:new double[]{0, -0.0, 0.49999999999999994 / 1000000d, 1e20, -1e20, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY}) {
+            assertEquals(Double.doubleToLongBits(Math.round(value * 1000000d) / 1000000d),
+                    Double.doubleToLongBits(Model.round(value)));
+        }
+        for (double value:values) {
+            // the same as rounding with Math.round
+            assertEquals(Double.doubleToLongBits(Math.round(value * 1000000d) / 1000000d),
+                    Double.doubleToLongBits(Model.round(value)));
+        }
+    }
+
 }
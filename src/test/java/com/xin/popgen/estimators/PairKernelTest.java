@@ -0,0 +1,111 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class PairKernelTest {
+
+    @Test
+    public void testCompute() {
+        // rs1800407
+        int[] alleleCounts = {290, 0, 207, 17, 486, 4};
+        PairKernel kernel = new PairKernel(3, new double[]{1.542796, 1.633976, 0.988984}, new double[]{5000, 5000, 3000},
+                new ModelTable(1000));
+        kernel.compute(alleleCounts, 0);
+        // YRI-CEU
+        assertEquals(-0.000773, kernel.diffs[0], 0.000001);
+        assertEquals(0.000380, kernel.stds[0], 0.000001);
+        assertEquals(4.135, kernel.deltas[0], 0.001);
+    }
+
+    @Test
+    public void testConsistentWithModel() {
+        Random random = new Random(1);
+        int popNum = 12;
+        int popPairNum = popNum * (popNum - 1) / 2;
+        double[] popVars = new double[popPairNum];
+        double[] times = new double[popPairNum];
+        for (int k = 0; k < popPairNum; k++) {
+            popVars[k] = random.nextDouble() * 2;
+            times[k] = 1000 + random.nextInt(9000);
+        }
+        PairKernel kernel = new PairKernel(popNum, popVars, times, new ModelTable(200));
+        int[] alleleCounts = new int[4 * popNum];
+        for (int t = 0; t < 1000; t++) {
+            for (int i = 0; i < alleleCounts.length; i++) {
+                // small counts are corrected for continuity
+                alleleCounts[i] = random.nextInt((t % 2 == 0) ? 10 : 500);
+            }
+            int offset = (t % 2) * 2 * popNum;
+            kernel.compute(alleleCounts, offset);
+            for (int m = 0, k = 0; m < popNum; m++) {
+                for (int n = m + 1; n < popNum; n++, k++) {
+                    int refM = alleleCounts[offset+2*m];
+                    int altM = alleleCounts[offset+2*m+1];
+                    int refN = alleleCounts[offset+2*n];
+                    int altN = alleleCounts[offset+2*n+1];
+                    double logOdds = Model.calLogOdds(refM, altM, refN, altN);
+                    double varLogOdds = Model.calVarLogOdds(refM, altM, refN, altN);
+                    double diff = logOdds / times[k];
+                    double std = Math.sqrt(varLogOdds + popVars[k]) / times[k];
+                    // the results should be exactly the same
+                    assertEquals(Double.doubleToLongBits(diff), Double.doubleToLongBits(kernel.diffs[k]));
+                    assertEquals(Double.doubleToLongBits(std), Double.doubleToLongBits(kernel.stds[k]));
+                    assertEquals(Double.doubleToLongBits(logOdds * logOdds / (varLogOdds + popVars[k])),
+                            Double.doubleToLongBits(kernel.deltas[k]));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSelectedPairs() {
+        Random random = new Random(2);
+        int popNum = 8;
+        int[][] popPairs = {{5, 1}, {0, 7}, {3, 2}, {1, 2}};
+        double[] popVars = new double[popPairs.length];
+        double[] times = new double[popPairs.length];
+        for (int k = 0; k < popPairs.length; k++) {
+            popVars[k] = random.nextDouble() * 2;
+            times[k] = 1000 + random.nextInt(9000);
+        }
+        PairKernel kernel = new PairKernel(popNum, popPairs, popVars, times, new ModelTable(200));
+        int[] alleleCounts = new int[2 * popNum];
+        for (int t = 0; t < 1000; t++) {
+            for (int i = 0; i < alleleCounts.length; i++) {
+                alleleCounts[i] = random.nextInt((t % 2 == 0) ? 10 : 500);
+            }
+            kernel.compute(alleleCounts, 0);
+            for (int k = 0; k < popPairs.length; k++) {
+                int m = popPairs[k][0];
+                int n = popPairs[k][1];
+                double logOdds = Model.calLogOdds(alleleCounts[2*m], alleleCounts[2*m+1], alleleCounts[2*n], alleleCounts[2*n+1]);
+                double varLogOdds = Model.calVarLogOdds(alleleCounts[2*m], alleleCounts[2*m+1], alleleCounts[2*n], alleleCounts[2*n+1]);
+                assertEquals(Double.doubleToLongBits(logOdds / times[k]), Double.doubleToLongBits(kernel.diffs[k]));
+                assertEquals(Double.doubleToLongBits(Math.sqrt(varLogOdds + popVars[k]) / times[k]),
+                        Double.doubleToLongBits(kernel.stds[k]));
+                assertEquals(Double.doubleToLongBits(logOdds * logOdds / (varLogOdds + popVars[k])),
+                        Double.doubleToLongBits(kernel.deltas[k]));
+            }
+        }
+    }
+
+}
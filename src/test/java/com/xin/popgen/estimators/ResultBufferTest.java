@@ -0,0 +1,75 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ResultBufferTest {
+
+    @Test
+    public void testAppend() throws IOException {
+        ResultBuffer buf = new ResultBuffer(1);
+        buf.append("YRI".getBytes(StandardCharsets.US_ASCII))
+                .append((byte) '\t')
+                .append(-0.0007726, 6)
+                .append((byte) '\t')
+                .append(4.1349, 3)
+                .append((byte) '\t')
+                .append(0.9999996, 6)
+                .append("xCEUx".getBytes(StandardCharsets.US_ASCII), 1, 3);
+        assertEquals("YRI\t-0.000773\t4.135\t1.000000CEU", buf.toString());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        buf.writeTo(out);
+        assertEquals(buf.toString(), out.toString("US-ASCII"));
+        buf.clear();
+        assertEquals(0, buf.length());
+        buf.append(Double.NaN, 6).append(1e300, 1);
+        assertEquals("0.000000" + Long.MAX_VALUE / 10 + ".7", buf.toString());
+    }
+
+    @Test
+    public void testConsistentWithFormat() {
+        Random random = new Random(1);
+        ResultBuffer buf = new ResultBuffer(16);
+        for (int i = 0; i < 100000; i++) {
+            double val = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12) - 6);
+            int precision = 1 + random.nextInt(6);
+            buf.clear();
+            assertEquals(Estimator.format(val, precision), buf.append(val, precision).toString());
+        }
+    }
+
+    @Test
+    public void testPut() {
+        ResultBuffer buf = new ResultBuffer(1);
+        buf.putInt(0x01020304).putInt(-1).putDouble(1.5);
+        ByteBuffer bytes = ByteBuffer.wrap(buf.toString().getBytes(StandardCharsets.ISO_8859_1)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(16, bytes.remaining());
+        assertEquals(0x01020304, bytes.getInt());
+        assertEquals(-1, bytes.getInt());
+        assertEquals(1.5, bytes.getDouble(), 0);
+    }
+
+}
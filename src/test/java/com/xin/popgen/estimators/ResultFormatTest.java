@@ -0,0 +1,153 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResultFormatTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private static SeleDiffEstimator create(String outputFileName) {
+        return new SeleDiffEstimator("examples/data/example.count", null,
+                "examples/data/example.count", "examples/results/example.var", "examples/data/example.time",
+                outputFileName, 'c');
+    }
+
+    @Test
+    public void testView() throws IOException {
+        File text = new File("selediff.format.results");
+        File binary = new File("selediff.format.bin");
+        File view = new File("selediff.format.view");
+        try {
+            create(text.getPath()).analyze();
+            SeleDiffEstimator estimator = create(binary.getPath());
+            estimator.setOutputFormat('b');
+            estimator.setThreads(2);
+            estimator.setSplits(3);
+            estimator.analyze();
+            assertTrue(binary.length() < text.length());
+            assertEquals(20309, ResultFormat.view(binary.getPath(), view.getPath()));
+            assertArrayEquals(Files.readAllBytes(text.toPath()), Files.readAllBytes(view.toPath()));
+        } finally {
+            text.delete();
+            binary.delete();
+            view.delete();
+        }
+    }
+
+    @Test
+    public void testWide() throws IOException {
+        File text = new File("selediff.format.results");
+        File wide = new File("selediff.format.wide");
+        try {
+            create(text.getPath()).analyze();
+            SeleDiffEstimator estimator = create(wide.getPath());
+            estimator.setOutputFormat('w');
+            estimator.setThreads(2);
+            estimator.setSplits(3);
+            estimator.analyze();
+            assertTrue(wide.length() < text.length());
+            List<String> lines = Files.readAllLines(text.toPath());
+            List<String> rows = Files.readAllLines(wide.toPath());
+            String[] header = rows.get(0).split("\t");
+            int popPairNum = (header.length - 5) / 6;
+            assertEquals(20309, rows.size() - 1);
+            assertEquals((lines.size() - 1) / popPairNum, rows.size() - 1);
+            assertEquals("#CHROMO", header[0]);
+            for (int i = 1; i < rows.size(); i++) {
+                String[] row = rows.get(i).split("\t");
+                assertEquals(5 + 6 * popPairNum, row.length);
+                for (int k = 0; k < popPairNum; k++) {
+                    String[] line = lines.get(1 + (i - 1) * popPairNum + k).split("\t");
+                    for (int j = 0; j < 5; j++) assertEquals(line[j], row[j]);
+                    assertEquals(header[5 + 6 * k], "Selection difference (" + line[5] + " - " + line[6] + ")");
+                    for (int j = 0; j < 4; j++) assertEquals(line[7 + j], row[5 + 6 * k + j]);
+                    assertEquals(line[12], row[9 + 6 * k]);
+                    assertEquals(line[13], row[10 + 6 * k]);
+                }
+            }
+        } finally {
+            text.delete();
+            wide.delete();
+        }
+    }
+
+    @Test
+    public void testWideHeader() {
+        String[][] popPairIds = {{"YRI", "CEU"}, {"YRI", "CHB"}};
+        assertEquals("#CHROMO\tPOS\tID\tRef\tAlt"
+                + "\tSelection difference (YRI - CEU)\tStd (YRI - CEU)\tLower bound of 95% CI (YRI - CEU)"
+                + "\tUpper bound of 95% CI (YRI - CEU)\tDelta (YRI - CEU)\tp-value (YRI - CEU)"
+                + "\tSelection difference (YRI - CHB)\tStd (YRI - CHB)\tLower bound of 95% CI (YRI - CHB)"
+                + "\tUpper bound of 95% CI (YRI - CHB)\tDelta (YRI - CHB)\tp-value (YRI - CHB)"
+                + System.lineSeparator(), ResultFormat.wideHeader(popPairIds));
+    }
+
+    @Test
+    public void testViewCompressed() throws IOException {
+        File text = new File("selediff.format.results");
+        File binary = new File("selediff.format.bin.gz");
+        File view = new File("selediff.format.view.gz");
+        try {
+            create(text.getPath()).analyze();
+            SeleDiffEstimator estimator = create(binary.getPath());
+            estimator.setOutputFormat('b');
+            estimator.analyze();
+            assertEquals(20309, ResultFormat.view(binary.getPath(), view.getPath()));
+            try (InputStream in = new GZIPInputStream(new FileInputStream(view))) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buf = new byte[1 << 16];
+                int n;
+                while ((n = in.read(buf)) != -1) out.write(buf, 0, n);
+                assertArrayEquals(Files.readAllBytes(text.toPath()), out.toByteArray());
+            }
+        } finally {
+            text.delete();
+            binary.delete();
+            view.delete();
+        }
+    }
+
+    @Test
+    public void testViewWithInvalidInput() throws IOException {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("examples/data/example.time is not a binary output of compute-diff.");
+        File view = new File("selediff.format.view");
+        try {
+            ResultFormat.view("examples/data/example.time", view.getPath());
+        } finally {
+            view.delete();
+        }
+    }
+
+}
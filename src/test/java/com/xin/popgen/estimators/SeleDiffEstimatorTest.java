@@ -18,8 +18,14 @@ package com.xin.popgen.estimators;
 import org.junit.Test;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class SeleDiffEstimatorTest {
 
@@ -49,4 +55,175 @@ public class SeleDiffEstimatorTest {
         }
     }
 
+    @Test
+    public void testAnalyzeWithThreadsAndSplits() throws IOException {
+        SeleDiffEstimator estimator = new SeleDiffEstimator("examples/data/example.count", null,
+                "examples/data/example.count", "examples/results/example.var", "examples/data/example.time",
+                "selediff.threads.results", 'c');
+        estimator.analyze();
+        File expected = new File("selediff.threads.results");
+        byte[] bytes = Files.readAllBytes(expected.toPath());
+        estimator = new SeleDiffEstimator("examples/data/example.count", null,
+                "examples/data/example.count", "examples/results/example.var", "examples/data/example.time",
+                "selediff.threads.results", 'c');
+        estimator.setThreads(3);
+        estimator.analyze();
+        assertArrayEquals(bytes, Files.readAllBytes(expected.toPath()));
+        estimator = new SeleDiffEstimator("examples/data/example.count", null,
+                "examples/data/example.count", "examples/results/example.var", "examples/data/example.time",
+                "selediff.threads.results", 'c');
+        estimator.setSplits(4);
+        estimator.analyze();
+        assertArrayEquals(bytes, Files.readAllBytes(expected.toPath()));
+        expected.delete();
+    }
+
+    @Test
+    public void testAnalyzeWithCompressedOutput() throws IOException {
+        SeleDiffEstimator estimator = new SeleDiffEstimator("examples/data/example.count", null,
+                "examples/data/example.count", "examples/results/example.var", "examples/data/example.time",
+                "selediff.compressed.results", 'c');
+        estimator.analyze();
+        File expected = new File("selediff.compressed.results");
+        File compressed = new File("selediff.compressed.results.gz");
+        estimator = new SeleDiffEstimator("examples/data/example.count", null,
+                "examples/data/example.count", "examples/results/example.var", "examples/data/example.time",
+                compressed.getPath(), 'c');
+        estimator.setThreads(2);
+        estimator.setSplits(3);
+        estimator.analyze();
+        try (InputStream in = new GZIPInputStream(new FileInputStream(compressed))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[1 << 16];
+            int n;
+            while ((n = in.read(buf)) != -1) out.write(buf, 0, n);
+            assertArrayEquals(Files.readAllBytes(expected.toPath()), out.toByteArray());
+            assertTrue(compressed.length() < expected.length() / 2);
+        } finally {
+            expected.delete();
+            compressed.delete();
+        }
+    }
+
+    @Test
+    public void testAnalyzeWithFilters() throws IOException {
+        File file = new File("selediff.filtered.results");
+        try {
+            createCountEstimator(file.getPath()).analyze();
+            List<String> lines = Files.readAllLines(file.toPath());
+            SeleDiffEstimator estimator = createCountEstimator(file.getPath());
+            estimator.setMaxPvalue(0.05);
+            estimator.setMinDelta(4);
+            estimator.setThreads(2);
+            estimator.analyze();
+            List<String> expected = new ArrayList<>();
+            expected.add(lines.get(0));
+            for (String line:lines.subList(1, lines.size())) {
+                String[] elements = line.split("\t");
+                if ((Double.parseDouble(elements[12]) >= 4) && (Double.parseDouble(elements[13]) <= 0.05))
+                    expected.add(line);
+            }
+            assertTrue(expected.size() > 1);
+            assertTrue(expected.size() < lines.size());
+            assertEquals(expected, Files.readAllLines(file.toPath()));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testAnalyzeWithRoundedPvalue() throws IOException {
+        // a p-value just above --max-pvalue, e.g. 0.0010004, is written as 0.001000 and accepted
+        File file = new File("selediff.rounded.results");
+        try {
+            createCountEstimator(file.getPath()).analyze();
+            List<String> lines = Files.readAllLines(file.toPath());
+            ChiSquareTable chisq = new ChiSquareTable();
+            String rounded = null;
+            for (String line:lines.subList(1, lines.size())) {
+                String[] elements = line.split("\t");
+                double pvalue = Double.parseDouble(elements[13]);
+                if ((pvalue > 0) && (pvalue < 0.01) && (chisq.getPvalue(Double.parseDouble(elements[12])) > pvalue)) {
+                    rounded = line;
+                    break;
+                }
+            }
+            assertTrue(rounded != null);
+            SeleDiffEstimator estimator = createCountEstimator(file.getPath());
+            estimator.setMaxPvalue(Double.parseDouble(rounded.split("\t")[13]));
+            estimator.analyze();
+            assertTrue(Files.readAllLines(file.toPath()).contains(rounded));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testAnalyzeWithTopK() throws IOException {
+        File file = new File("selediff.top.results");
+        try {
+            createCountEstimator(file.getPath()).analyze();
+            List<String> lines = Files.readAllLines(file.toPath());
+            SeleDiffEstimator estimator = createCountEstimator(file.getPath());
+            estimator.setTopK(50);
+            estimator.analyze();
+            List<String> top = Files.readAllLines(file.toPath());
+            assertEquals(51, top.size());
+            assertEquals(lines.get(0), top.get(0));
+            assertTrue(lines.containsAll(top));
+            for (int i = 2; i < top.size(); i++) {
+                assertTrue(delta(top.get(i-1)) >= delta(top.get(i)));
+            }
+            double last = delta(top.get(50));
+            assertEquals(50, lines.subList(1, lines.size()).stream().filter(l -> delta(l) > last).count()
+                    + top.stream().skip(1).filter(l -> delta(l) == last).count());
+
+            estimator = createCountEstimator(file.getPath());
+            estimator.setTopK(50);
+            estimator.setThreads(3);
+            estimator.setSplits(3);
+            estimator.analyze();
+            assertEquals(top, Files.readAllLines(file.toPath()));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testAnalyzeWithPairs() throws IOException {
+        File file = new File("selediff.pairs.results");
+        try {
+            createCountEstimator(file.getPath()).analyze();
+            List<String> lines = Files.readAllLines(file.toPath());
+            // the variance of Omega of {CEU,CHS} is not needed
+            new SeleDiffEstimator("examples/data/example.count", null, "examples/data/example.count",
+                    "examples/data/example.test.var", "examples/data/example.time", file.getPath(), 'c',
+                    null, "examples/data/example.pairs").analyze();
+            List<String> pairs = Files.readAllLines(file.toPath());
+            assertEquals(lines.get(0), pairs.get(0));
+            assertEquals(1 + 2 * 20309, pairs.size());
+            for (int i = 0, j = 1; i < 20309; i++, j += 3) {
+                String[] yriChs = lines.get(j+1).split("\\t");
+                String[] chsYri = pairs.get(1 + 2*i).split("\\t");
+                assertEquals("CHS\tYRI", chsYri[5] + "\t" + chsYri[6]);
+                assertEquals(yriChs[8], chsYri[8]);
+                assertEquals(yriChs[12], chsYri[12]);
+                assertEquals(yriChs[13], chsYri[13]);
+                assertEquals(lines.get(j), pairs.get(2 + 2*i));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static SeleDiffEstimator createCountEstimator(String outputFileName) {
+        return new SeleDiffEstimator("examples/data/example.count", null,
+                "examples/data/example.count", "examples/results/example.var", "examples/data/example.time",
+                outputFileName, 'c');
+    }
+
+    private static double delta(String line) {
+        return Double.parseDouble(line.split("\t")[12]);
+    }
+
 }
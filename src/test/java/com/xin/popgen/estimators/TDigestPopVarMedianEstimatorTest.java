@@ -30,9 +30,9 @@ public class TDigestPopVarMedianEstimatorTest {
                                               "examples/data/example.snp",
                                               "examples/results/example.var", 'e');
 		td.findMedians();
-		assertEquals(1.542796, td.popPairVarMedians[0], 0.000001);
-		assertEquals(1.633976, td.popPairVarMedians[1], 0.000001);
-		assertEquals(0.988984, td.popPairVarMedians[2], 0.000001);
+		assertEquals(1.541522, td.popPairVarMedians[0], 0.000001);
+		assertEquals(1.633709, td.popPairVarMedians[1], 0.000001);
+		assertEquals(0.988482, td.popPairVarMedians[2], 0.000001);
 	}
 
 	@Test
@@ -44,7 +44,7 @@ public class TDigestPopVarMedianEstimatorTest {
         td.analyze();
         try (BufferedReader br = new BufferedReader(new FileReader("selediff.var"))) {
             String line = br.readLine().trim();
-            assertEquals("YRI\tCEU\t1.542796", line);
+            assertEquals("YRI\tCEU\t1.541522", line);
             br.close();
             File file = new File("selediff.var");
             file.delete();
@@ -55,4 +55,61 @@ public class TDigestPopVarMedianEstimatorTest {
         }
     }
 
+	@Test
+	public void testFindMediansWithSplits() {
+		// the digests of the ranges are merged in order, so the medians are the same in every run
+		// and within the accuracy of t-digest, the exact medians are 1.541482, 1.634988 and 0.987835
+		double[] medians = null;
+		for (int run = 0; run < 2; run++) {
+			TDigestPopVarMedianEstimator td = new TDigestPopVarMedianEstimator("examples/data/example.count", null,
+					"examples/data/example.count", "examples/results/example.var", 'c');
+			td.setSplits(3);
+			td.findMedians();
+			assertEquals(1.541482, td.popPairVarMedians[0], 0.015);
+			assertEquals(1.634988, td.popPairVarMedians[1], 0.015);
+			assertEquals(0.987835, td.popPairVarMedians[2], 0.01);
+			if (medians != null) assertArrayEquals(medians, td.popPairVarMedians, 0);
+			medians = td.popPairVarMedians.clone();
+		}
+	}
+
+	@Test
+	public void testFindMediansWithThreads() {
+		// each population pair is added by one thread in the order of the input,
+		// so the medians are the same in every run and the same as with one thread
+		for (int splits = 1; splits <= 3; splits += 2) {
+			TDigestPopVarMedianEstimator serial = new TDigestPopVarMedianEstimator("examples/data/example.count", null,
+					"examples/data/example.count", "examples/results/example.var", 'c');
+			serial.setSplits(splits);
+			serial.findMedians();
+			for (int run = 0; run < 2; run++) {
+				TDigestPopVarMedianEstimator td = new TDigestPopVarMedianEstimator("examples/data/example.count", null,
+						"examples/data/example.count", "examples/results/example.var", 'c');
+				td.setThreads(2 + run);
+				td.setSplits(splits);
+				td.findMedians();
+				assertArrayEquals(serial.popPairVarMedians, td.popPairVarMedians, 0);
+			}
+		}
+		TDigestPopVarMedianEstimator td = new TDigestPopVarMedianEstimator("examples/data/example.count", null,
+				"examples/data/example.count", "examples/results/example.var", 'c');
+		td.setThreads(3);
+		td.findMedians();
+		assertEquals(1.541522, td.popPairVarMedians[0], 0.000001);
+		assertEquals(1.633709, td.popPairVarMedians[1], 0.000001);
+		assertEquals(0.988482, td.popPairVarMedians[2], 0.000001);
+	}
+
+	@Test
+	public void testFindMediansWithPairs() {
+		TDigestPopVarMedianEstimator td = new TDigestPopVarMedianEstimator("examples/data/example.geno",
+				"examples/data/example.ind", "examples/data/example.snp", "examples/results/example.var", 'e',
+				null, "examples/data/example.pairs");
+		td.findMedians();
+		assertEquals(2, td.popPairVarMedians.length);
+		assertArrayEquals(new String[]{"CHS", "YRI"}, td.popPairIds[0]);
+		assertEquals(1.633709, td.popPairVarMedians[0], 0.000001);
+		assertEquals(1.541522, td.popPairVarMedians[1], 0.000001);
+	}
+
 }
@@ -0,0 +1,81 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.estimators;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TopResultsTest {
+
+    private static final byte[][] PREFIXES = {"\tA\tB\t".getBytes(StandardCharsets.US_ASCII),
+            "\tA\tC\t".getBytes(StandardCharsets.US_ASCII)};
+
+    @Test
+    public void testRank() {
+        Random random = new Random(1);
+        int n = 10000;
+        double[] deltas = new double[n];
+        for (int i = 0; i < n; i++) {
+            // many ties
+            deltas[i] = random.nextInt(500) / 10.0;
+        }
+        TopResults top = new TopResults(100);
+        byte[] info = "1\t100\trs1\tA\tG".getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < n; i++) {
+            if (top.isCandidate(deltas[i])) top.offer(deltas[i], i / 2, i % 2, i, 0, 0, info, 0, info.length);
+        }
+        top.offer(Double.NaN, n, 0, 0, 0, 0, info, 0, info.length);
+        assertEquals(100, top.size());
+
+        Integer[] expected = new Integer[n];
+        for (int i = 0; i < n; i++) expected[i] = i;
+        Arrays.sort(expected, Comparator.comparingDouble((Integer i) -> -deltas[i]).thenComparingInt(i -> i));
+        ResultBuffer out = new ResultBuffer(16);
+        int[] ranked = top.rank();
+        assertEquals(100, ranked.length);
+        for (int r = 0; r < ranked.length; r++) {
+            out.clear();
+            top.appendText(out, ranked[r], PREFIXES);
+            String[] line = out.toString().split("\t");
+            assertEquals(expected[r] % 2 == 0 ? "B" : "C", line[6]);
+            assertEquals(String.format("%.6f", (double) expected[r]), line[7]);
+        }
+    }
+
+    @Test
+    public void testIsCandidate() {
+        TopResults top = new TopResults(2);
+        byte[] info = new byte[0];
+        assertTrue(top.isCandidate(0));
+        assertFalse(top.isCandidate(Double.NaN));
+        top.offer(3, 0, 0, 0, 0, 0, info, 0, 0);
+        top.offer(5, 1, 0, 0, 0, 0, info, 0, 0);
+        assertFalse(top.isCandidate(2));
+        assertTrue(top.isCandidate(3));
+        top.offer(4, 2, 0, 0, 0, 0, info, 0, 0);
+        assertFalse(top.isCandidate(3.5));
+        assertEquals(2, top.size());
+    }
+
+}
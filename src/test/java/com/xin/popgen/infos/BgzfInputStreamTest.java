@@ -0,0 +1,74 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BgzfInputStreamTest {
+
+    private final String bgzfFileName = "examples/compressed_data/example.candidates.bgzf.vcf.gz";
+
+    @Test
+    public void testIsBgzf() throws IOException {
+        byte[] header = new byte[18];
+        assertTrue(BgzfInputStream.isBgzf(header, Info.readHeader(bgzfFileName, header)));
+        assertFalse(BgzfInputStream.isBgzf(header,
+                Info.readHeader("examples/compressed_data/example.candidates.vcf.gz", header)));
+        assertFalse(BgzfInputStream.isBgzf(header,
+                Info.readHeader("examples/data/example.candidates.vcf", header)));
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        byte[] expected = Files.readAllBytes(Paths.get("examples/data/example.candidates.vcf"));
+        // more blocks than the number of pending blocks
+        assertArrayEquals(expected, readAll(new BgzfInputStream(bgzfFileName, 1)));
+        assertArrayEquals(expected, readAll(new BgzfInputStream(bgzfFileName, 4)));
+        assertArrayEquals(expected, readAll(Info.openInputStream(bgzfFileName)));
+    }
+
+    @Test
+    public void testCountAlleles() {
+        IndInfo indInfo = new IndInfo("examples/data/example.candidates.ind");
+        VcfInfo vcfInfo = new VcfInfo(bgzfFileName, indInfo, indInfo.getPopInfo(), true);
+        int[][] alleleCounts = vcfInfo.countAlleles();
+        assertEquals(207, alleleCounts[1][0]);
+        assertEquals(17, alleleCounts[1][1]);
+        assertEquals("15\t25903913\trs1800407\tC\tT", vcfInfo.getSnpInfo());
+        vcfInfo.close();
+    }
+
+    private byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[100];
+        int n;
+        while ((n = in.read(buf)) != -1) out.write(buf, 0, n);
+        in.close();
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BgzfOutputStreamTest {
+
+    @Test
+    public void testWrite() throws IOException {
+        byte[] vcf = Files.readAllBytes(Paths.get("examples/data/example.candidates.vcf"));
+        // more blocks than the number of pending blocks, with incompressible data
+        byte[] expected = new byte[20 * BgzfOutputStream.BLOCK_DATA_LENGTH + 123];
+        new Random(1).nextBytes(expected);
+        System.arraycopy(vcf, 0, expected, 0, vcf.length);
+        File file = new File("selediff.bgzf.gz");
+        try {
+            for (int threadNum:new int[]{1, 4}) {
+                try (BgzfOutputStream out = new BgzfOutputStream(new FileOutputStream(file), threadNum)) {
+                    out.write(expected, 0, vcf.length);
+                    out.flush();
+                    for (int i = vcf.length; i < vcf.length + 1000; i++) out.write(expected[i]);
+                    out.write(expected, vcf.length + 1000, expected.length - vcf.length - 1000);
+                }
+                byte[] header = new byte[18];
+                assertTrue(BgzfInputStream.isBgzf(header, Info.readHeader(file.getPath(), header)));
+                assertArrayEquals(expected, readAll(new BgzfInputStream(file.getPath(), 2)));
+                assertArrayEquals(expected, readAll(new GZIPInputStream(new FileInputStream(file))));
+                byte[] bytes = Files.readAllBytes(file.toPath());
+                assertEquals(27, bytes[bytes.length - 28 + 16]);
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testWriteEmpty() throws IOException {
+        File file = new File("selediff.bgzf.gz");
+        try {
+            new BgzfOutputStream(new FileOutputStream(file), 2).close();
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            assertEquals(28, bytes.length);
+            assertEquals(0, readAll(Info.openInputStream(file.getPath())).length);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testDeflate() throws IOException {
+        byte[] data = new byte[BgzfOutputStream.BLOCK_DATA_LENGTH];
+        Arrays.fill(data, (byte) 'A');
+        byte[] block = BgzfOutputStream.deflate(data, data.length);
+        assertEquals(block.length - 1, (block[16] & 0xff) | ((block[17] & 0xff) << 8));
+        new Random(2).nextBytes(data);
+        assertTrue(BgzfOutputStream.deflate(data, data.length).length <= 1 << 16);
+    }
+
+    private byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[100];
+        int n;
+        while ((n = in.read(buf)) != -1) out.write(buf, 0, n);
+        in.close();
+        return out.toByteArray();
+    }
+
+}
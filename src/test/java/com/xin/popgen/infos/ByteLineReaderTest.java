@@ -0,0 +1,46 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class ByteLineReaderTest {
+
+    @Test
+    public void testReadLine() throws IOException {
+        byte[] data = "first line\r\n\nthe third line is longer than the buffer  \nlast"
+                .getBytes(StandardCharsets.US_ASCII);
+        ByteLineReader reader = new ByteLineReader(new ByteArrayInputStream(data), 8);
+        assertEquals("first line", readLine(reader));
+        assertEquals("", readLine(reader));
+        assertEquals("the third line is longer than the buffer", readLine(reader));
+        assertEquals("last", readLine(reader));
+        assertEquals(-1, reader.readLine());
+        reader.close();
+    }
+
+    private String readLine(ByteLineReader reader) throws IOException {
+        int length = reader.readLine();
+        return new String(reader.buffer(), reader.start(), length, StandardCharsets.US_ASCII);
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CacheInfoTest {
+
+    private static String cacheFileName;
+
+    @BeforeClass
+    public static void writeCache() throws IOException {
+        File file = File.createTempFile("example", ".cache");
+        file.deleteOnExit();
+        cacheFileName = file.getPath();
+        CountInfo countInfo = new CountInfo("examples/data/example.count");
+        assertEquals(20309, CacheInfo.write(countInfo, countInfo.getPopInfo(), cacheFileName));
+        countInfo.close();
+    }
+
+    @Test
+    public void testGetPopInfo() {
+        CacheInfo cacheInfo = new CacheInfo(cacheFileName);
+        CountInfo countInfo = new CountInfo("examples/data/example.count");
+        PopInfo popInfo = cacheInfo.getPopInfo();
+        assertEquals(3, popInfo.getPopNum());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(countInfo.getPopInfo().getPopId(i), popInfo.getPopId(i));
+        }
+        cacheInfo.close();
+        countInfo.close();
+    }
+
+    @Test
+    public void testCountAlleles() {
+        CacheInfo cacheInfo = new CacheInfo(cacheFileName);
+        CountInfo countInfo = new CountInfo("examples/data/example.count");
+        int[][] expected;
+        int snpNum = 0;
+        while ((expected = countInfo.countAlleles()) != null) {
+            int[][] alleleCounts = cacheInfo.countAlleles();
+            for (int i = 0; i < expected.length; i++) {
+                assertArrayEquals(expected[i], alleleCounts[i]);
+            }
+            assertEquals(countInfo.getSnpInfo(), cacheInfo.getSnpInfo());
+            snpNum++;
+        }
+        assertEquals(20309, snpNum);
+        assertTrue(cacheInfo.countAlleles() == null);
+        cacheInfo.close();
+        countInfo.close();
+    }
+
+    @Test
+    public void testSkipSnpInfo() {
+        CacheInfo cacheInfo = new CacheInfo(cacheFileName);
+        int[] alleleCounts = new int[6];
+        // SNP information is only read when requested
+        for (int i = 0; i < 3; i++) {
+            assertTrue(cacheInfo.countAlleles(alleleCounts));
+        }
+        assertEquals("1\t1437188\trs6690515\tG\tA", cacheInfo.getSnpInfo());
+        for (int i = 3; i < 20309; i++) {
+            assertTrue(cacheInfo.countAlleles(alleleCounts));
+        }
+        assertFalse(cacheInfo.countAlleles(alleleCounts));
+        cacheInfo.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotCache() {
+        new CacheInfo("examples/data/example.count");
+    }
+
+}
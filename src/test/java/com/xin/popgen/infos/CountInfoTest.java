@@ -1,8 +1,14 @@
 package com.xin.popgen.infos;
 
 import org.junit.Test;
+import java.io.PrintWriter;
+import java.io.IOException;
+import java.io.File;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
 
 public class CountInfoTest {
 
@@ -33,4 +39,68 @@ public class CountInfoTest {
         countInfo.close();
     }
 
+    @Test
+    public void testCountAllelesInRegion() {
+        CountInfo regionCountInfo = new CountInfo("examples/compressed_data/example.regions.count.gz",
+                new RegionInfo("22:20000000-25000000", null));
+        int snpNum = 0;
+        while (regionCountInfo.countAlleles() != null) {
+            String[] info = regionCountInfo.getSnpInfo().split("\t");
+            assertEquals("22", info[0]);
+            int pos = Integer.parseInt(info[1]);
+            assertTrue((pos >= 20000000) && (pos <= 25000000));
+            snpNum++;
+        }
+        regionCountInfo.close();
+        assertEquals(37, snpNum);
+    }
+
+    @Test
+    public void testCountAllelesIntoArray() throws IOException {
+        // a .count file delimited by spaces
+        File file = File.createTempFile("example", ".count");
+        file.deleteOnExit();
+        try (PrintWriter pw = new PrintWriter(file)) {
+            pw.println("#CHROMO POS ID REF ALT YRI YRI CEU CEU");
+            pw.println("1  908247 rs13303118 T G 33 257 140 84");
+            pw.println("1\t1357056\trs35958305\tT\tG\t0\t290\t1\t223");
+        }
+        CountInfo info = new CountInfo(file.getPath());
+        int[] alleleCounts = new int[4];
+        ByteSlice slice = new ByteSlice();
+        assertTrue(info.countAlleles(alleleCounts));
+        info.getSnpInfo(slice);
+        assertArrayEquals(new int[]{33, 257, 140, 84}, alleleCounts);
+        assertEquals("1\t908247\trs13303118\tT\tG", slice.toString());
+        assertTrue(info.countAlleles(alleleCounts));
+        assertArrayEquals(new int[]{0, 290, 1, 223}, alleleCounts);
+        assertEquals("1\t1357056\trs35958305\tT\tG", info.getSnpInfo());
+        assertFalse(info.countAlleles(alleleCounts));
+        info.close();
+    }
+
+    @Test
+    public void testSplit() {
+        CountInfo countInfo = new CountInfo("examples/data/example.count");
+        assertTrue(countInfo.isSplittable());
+        CountInfo[] ranges = new CountInfo("examples/data/example.count").split(4);
+        assertEquals(4, ranges.length);
+        int[] expected = new int[6];
+        int[] actual = new int[6];
+        int snpNum = 0;
+        for (CountInfo range:ranges) {
+            while (range.countAlleles(actual)) {
+                assertTrue(countInfo.countAlleles(expected));
+                assertArrayEquals(expected, actual);
+                assertEquals(countInfo.getSnpInfo(), range.getSnpInfo());
+                snpNum++;
+            }
+            range.close();
+        }
+        assertFalse(countInfo.countAlleles(expected));
+        assertEquals(20309, snpNum);
+        countInfo.close();
+        assertFalse(new CountInfo("examples/compressed_data/example.regions.count.gz").isSplittable());
+    }
+
 }
@@ -0,0 +1,70 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FileSplitterTest {
+
+    @Test
+    public void testFindDataStart() throws IOException {
+        // the header of a .count file is the first line
+        assertEquals(47, FileSplitter.findDataStart("examples/data/example.count", 1));
+        // the header of a VCF file contains all the lines starting with '#'
+        long dataStart = FileSplitter.findDataStart("examples/data/example.candidates.vcf", 0);
+        try (RandomAccessFile file = new RandomAccessFile("examples/data/example.candidates.vcf", "r")) {
+            file.seek(dataStart - 1);
+            assertEquals('\n', file.read());
+            assertEquals('1', file.read());
+            assertEquals('5', file.read());
+        }
+    }
+
+    @Test
+    public void testSplit() throws IOException {
+        String fileName = "examples/data/example.count";
+        long size = new File(fileName).length();
+        long[] bounds = FileSplitter.split(fileName, 47, 4);
+        assertEquals(5, bounds.length);
+        assertEquals(47, bounds[0]);
+        assertEquals(size, bounds[4]);
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+            for (int i = 1; i < 4; i++) {
+                assertTrue(bounds[i] > bounds[i-1]);
+                file.seek(bounds[i] - 1);
+                assertEquals('\n', file.read());
+            }
+        }
+        // a file cannot be split into more ranges than lines
+        assertEquals(3, FileSplitter.split("examples/data/example.candidates.snp", 0, 8).length);
+    }
+
+    @Test
+    public void testFindLineOffsets() throws IOException {
+        // lines after the end of the file start at the end of the file
+        assertArrayEquals(new long[]{0, 63, 126, 126},
+                FileSplitter.findLineOffsets("examples/data/example.candidates.snp", new long[]{0, 1, 2, 3}));
+    }
+
+}
@@ -18,6 +18,9 @@ package com.xin.popgen.infos;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertArrayEquals;
 
 public class GenoInfoTest {
 
@@ -68,4 +71,21 @@ public class GenoInfoTest {
         gzGenoInfo.close();
     }
 
+    @Test
+    public void testCountAllelesIntoArray() {
+        GenoInfo info = new GenoInfo("examples/data/example.candidates.geno",
+                indInfo, popInfo, "examples/data/example.candidates.snp");
+        int[] alleleCounts = new int[6];
+        ByteSlice slice = new ByteSlice();
+        assertTrue(info.countAlleles(alleleCounts));
+        info.getSnpInfo(slice);
+        assertArrayEquals(new int[]{290, 0, 207, 17, 486, 4}, alleleCounts);
+        assertEquals("15\t25903913\trs1800407\tC\tT", slice.toString());
+        assertTrue(info.countAlleles(alleleCounts));
+        info.getSnpInfo(slice);
+        assertEquals("15\t26039213\trs12913832\tA\tG", slice.toString());
+        assertFalse(info.countAlleles(alleleCounts));
+        info.close();
+    }
+
 }
@@ -0,0 +1,157 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class MappedGenoInfoTest {
+
+    private final IndInfo indInfo = new IndInfo("examples/data/example.candidates.ind");
+    private final PopInfo popInfo = indInfo.getPopInfo();
+
+    @Test
+    public void testCountAlleles() {
+        MappedGenoInfo genoInfo = new MappedGenoInfo("examples/data/example.candidates.geno",
+                indInfo, popInfo, "examples/data/example.candidates.snp");
+        // rs1800407
+        int[][] alleleCounts = genoInfo.countAlleles();
+        // YRI
+        assertEquals(290, alleleCounts[0][0]);
+        assertEquals(0, alleleCounts[0][1]);
+        // CEU
+        assertEquals(207, alleleCounts[1][0]);
+        assertEquals(17, alleleCounts[1][1]);
+        // CHS
+        assertEquals(486, alleleCounts[2][0]);
+        assertEquals(4, alleleCounts[2][1]);
+        assertEquals("15\t25903913\trs1800407\tC\tT", genoInfo.getSnpInfo());
+
+        // rs12913832
+        alleleCounts = genoInfo.countAlleles();
+        assertEquals(294, alleleCounts[0][0]);
+        assertEquals(177, alleleCounts[1][1]);
+        assertEquals(1, alleleCounts[2][1]);
+        assertNull(genoInfo.countAlleles());
+        genoInfo.close();
+    }
+
+    @Test
+    public void testConsistentWithGenoInfo() {
+        IndInfo sampleInfo = new IndInfo("examples/data/example.ind");
+        PopInfo samplePopInfo = sampleInfo.getPopInfo();
+        GenoInfo genoInfo = new GenoInfo("examples/data/example.geno",
+                sampleInfo, samplePopInfo, "examples/data/example.snp");
+        MappedGenoInfo mappedGenoInfo = new MappedGenoInfo("examples/data/example.geno",
+                sampleInfo, samplePopInfo, "examples/data/example.snp");
+        int[][] expected;
+        while ((expected = genoInfo.countAlleles()) != null) {
+            int[][] actual = mappedGenoInfo.countAlleles();
+            for (int i = 0; i < expected.length; i++) {
+                assertArrayEquals(expected[i], actual[i]);
+            }
+        }
+        assertNull(mappedGenoInfo.countAlleles());
+        genoInfo.close();
+        mappedGenoInfo.close();
+    }
+
+    @Test
+    public void testSplit() {
+        for (String snpFileName:new String[]{"examples/data/example.candidates.snp",
+                "examples/compressed_data/example.candidates.snp.gz"}) {
+            MappedGenoInfo genoInfo = new MappedGenoInfo("examples/data/example.candidates.geno",
+                    indInfo, popInfo, snpFileName);
+            assertTrue(genoInfo.isSplittable());
+            CountInfo[] ranges = genoInfo.split(4);
+            assertEquals(2, ranges.length);
+            int[] alleleCounts = new int[6];
+            assertTrue(ranges[0].countAlleles(alleleCounts));
+            assertArrayEquals(new int[]{290, 0, 207, 17, 486, 4}, alleleCounts);
+            assertEquals("15\t25903913\trs1800407\tC\tT", ranges[0].getSnpInfo());
+            assertFalse(ranges[0].countAlleles(alleleCounts));
+            assertTrue(ranges[1].countAlleles(alleleCounts));
+            assertEquals(294, alleleCounts[0]);
+            assertEquals("15\t26039213\trs12913832\tA\tG", ranges[1].getSnpInfo());
+            assertFalse(ranges[1].countAlleles(alleleCounts));
+            for (CountInfo range:ranges) range.close();
+            genoInfo.close();
+        }
+    }
+
+    @Test
+    public void testRowTerminators() throws IOException {
+        List<String> rows = Files.readAllLines(Paths.get("examples/data/example.candidates.geno"));
+        // CRLF line terminators, and no line terminator after the last row
+        for (String content:new String[]{rows.get(0) + "\r\n" + rows.get(1) + "\r\n",
+                rows.get(0) + "\n" + rows.get(1)}) {
+            MappedGenoInfo genoInfo = new MappedGenoInfo(writeGeno(content), indInfo, popInfo,
+                    "examples/data/example.candidates.snp");
+            int[] alleleCounts = new int[6];
+            assertTrue(genoInfo.countAlleles(alleleCounts));
+            assertArrayEquals(new int[]{290, 0, 207, 17, 486, 4}, alleleCounts);
+            assertTrue(genoInfo.countAlleles(alleleCounts));
+            assertEquals(294, alleleCounts[0]);
+            assertFalse(genoInfo.countAlleles(alleleCounts));
+            genoInfo.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTrailingBlankLine() throws IOException {
+        List<String> rows = Files.readAllLines(Paths.get("examples/data/example.candidates.geno"));
+        new MappedGenoInfo(writeGeno(rows.get(0) + "\n" + rows.get(1) + "\n\n"), indInfo, popInfo,
+                "examples/data/example.candidates.snp");
+    }
+
+    @Test
+    public void testInconsistentRows() throws IOException {
+        List<String> rows = Files.readAllLines(Paths.get("examples/data/example.candidates.geno"));
+        // a short row followed by a byte keeps the size of the file
+        String content = rows.get(0) + "\n" + rows.get(1).substring(1) + "\n2";
+        MappedGenoInfo genoInfo = new MappedGenoInfo(writeGeno(content), indInfo, popInfo,
+                "examples/data/example.candidates.snp");
+        assertTrue(genoInfo.countAlleles(new int[6]));
+        try {
+            genoInfo.countAlleles(new int[6]);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("The column in .geno file is not consistent with individual number.", e.getMessage());
+        }
+        genoInfo.close();
+    }
+
+    private static String writeGeno(String content) throws IOException {
+        File file = File.createTempFile("example", ".geno");
+        file.deleteOnExit();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+        return file.getPath();
+    }
+
+}
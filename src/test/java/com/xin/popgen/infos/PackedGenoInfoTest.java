@@ -0,0 +1,121 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PackedGenoInfoTest {
+
+    private final IndInfo indInfo = new IndInfo("examples/data/example.candidates.ind");
+    private final PopInfo popInfo = indInfo.getPopInfo();
+
+    @Test
+    public void testIsPacked() {
+        assertTrue(PackedGenoInfo.isPacked("examples/data/example.candidates.packed.geno"));
+        assertFalse(PackedGenoInfo.isPacked("examples/data/example.candidates.geno"));
+        assertFalse(PackedGenoInfo.isPacked("examples/compressed_data/example.candidates.geno.gz"));
+    }
+
+    @Test
+    public void testCountAlleles() {
+        PackedGenoInfo genoInfo = new PackedGenoInfo("examples/data/example.candidates.packed.geno",
+                indInfo, popInfo, "examples/data/example.candidates.snp");
+        // rs1800407
+        int[][] alleleCounts = genoInfo.countAlleles();
+        // YRI
+        assertEquals(290, alleleCounts[0][0]);
+        assertEquals(0, alleleCounts[0][1]);
+        // CEU
+        assertEquals(207, alleleCounts[1][0]);
+        assertEquals(17, alleleCounts[1][1]);
+        // CHS
+        assertEquals(486, alleleCounts[2][0]);
+        assertEquals(4, alleleCounts[2][1]);
+        assertEquals("15\t25903913\trs1800407\tC\tT", genoInfo.getSnpInfo());
+
+        // rs12913832
+        alleleCounts = genoInfo.countAlleles();
+        assertEquals(294, alleleCounts[0][0]);
+        assertEquals(177, alleleCounts[1][1]);
+        assertEquals(1, alleleCounts[2][1]);
+        assertNull(genoInfo.countAlleles());
+        genoInfo.close();
+    }
+
+    @Test
+    public void testConsistentWithGenoInfo() throws IOException {
+        IndInfo sampleInfo = new IndInfo("examples/data/example.ind");
+        PopInfo samplePopInfo = sampleInfo.getPopInfo();
+        File packedFile = File.createTempFile("example", ".geno");
+        packedFile.deleteOnExit();
+        pack("examples/data/example.geno", packedFile, sampleInfo.getIndNum());
+
+        GenoInfo genoInfo = new GenoInfo("examples/data/example.geno",
+                sampleInfo, samplePopInfo, "examples/data/example.snp");
+        PackedGenoInfo packedGenoInfo = new PackedGenoInfo(packedFile.getPath(),
+                sampleInfo, samplePopInfo, "examples/data/example.snp");
+        int[][] expected;
+        while ((expected = genoInfo.countAlleles()) != null) {
+            int[][] actual = packedGenoInfo.countAlleles();
+            for (int i = 0; i < expected.length; i++) {
+                assertArrayEquals(expected[i], actual[i]);
+            }
+        }
+        assertNull(packedGenoInfo.countAlleles());
+        genoInfo.close();
+        packedGenoInfo.close();
+    }
+
+    private void pack(String genoFileName, File packedFile, int indNum) throws IOException {
+        ArrayList<String> rows = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(genoFileName))) {
+            String line;
+            while ((line = br.readLine()) != null) rows.add(line);
+        }
+        int rowLength = Math.max(48, (indNum + 3) / 4);
+        try (OutputStream out = new FileOutputStream(packedFile)) {
+            byte[] header = new byte[rowLength];
+            byte[] text = String.format("GENO %7d %7d %x %x", indNum, rows.size(), 0, 0)
+                    .getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(text, 0, header, 0, text.length);
+            out.write(header);
+            for (String line:rows) {
+                byte[] row = new byte[rowLength];
+                for (int i = 0; i < indNum; i++) {
+                    int code = line.charAt(i) == '9' ? 3 : line.charAt(i) - '0';
+                    row[i / 4] |= code << (6 - 2 * (i % 4));
+                }
+                out.write(row);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import static org.junit.Assert.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class PairInfoTest {
+
+    private final IndInfo indInfo = new IndInfo("examples/data/example.ind");
+    private final PopInfo popInfo = indInfo.getPopInfo();
+
+    private final PairInfo pairInfo = new PairInfo("examples/data/example.pairs", popInfo);
+
+    @Test
+    public void testGetPopPairs() {
+        int[][] popPairs = pairInfo.getPopPairs();
+        assertEquals(2, popPairs.length);
+        assertEquals("CHS", popInfo.getPopId(popPairs[0][0]));
+        assertEquals("YRI", popInfo.getPopId(popPairs[0][1]));
+        assertEquals("YRI", popInfo.getPopId(popPairs[1][0]));
+        assertEquals("CEU", popInfo.getPopId(popPairs[1][1]));
+    }
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void testParseLine1() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("Cannot find population: WAF");
+        pairInfo.parseLine("WAF\tCEU");
+    }
+
+    @Test
+    public void testParseLine2() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("Duplicated population pair {CEU,YRI}");
+        pairInfo.parseLine("CEU YRI");
+    }
+
+    @Test
+    public void testParseLine3() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("The population pair {CEU,CEU} should have two different populations");
+        pairInfo.parseLine("CEU CEU");
+    }
+
+    @Test
+    public void testParseLine4() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("Cannot find the second population in the line: CEU");
+        pairInfo.parseLine("CEU");
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class PlinkInfoTest {
+
+    private final IndInfo famInfo = new IndInfo("examples/data/example.candidates.fam", 0);
+    private final PopInfo popInfo = famInfo.getPopInfo();
+
+    @Test
+    public void testCountAlleles() {
+        PlinkInfo plinkInfo = new PlinkInfo("examples/data/example.candidates", famInfo, popInfo);
+        // rs1800407
+        int[][] alleleCounts = plinkInfo.countAlleles();
+        // YRI
+        assertEquals(290, alleleCounts[0][0]);
+        assertEquals(0, alleleCounts[0][1]);
+        // CEU
+        assertEquals(207, alleleCounts[1][0]);
+        assertEquals(17, alleleCounts[1][1]);
+        // CHS
+        assertEquals(486, alleleCounts[2][0]);
+        assertEquals(4, alleleCounts[2][1]);
+        assertEquals("15\t25903913\trs1800407\tC\tT", plinkInfo.getSnpInfo());
+
+        // rs12913832
+        alleleCounts = plinkInfo.countAlleles();
+        assertEquals(294, alleleCounts[0][0]);
+        assertEquals(177, alleleCounts[1][1]);
+        assertEquals(1, alleleCounts[2][1]);
+        assertEquals("15\t26039213\trs12913832\tA\tG", plinkInfo.getSnpInfo());
+        assertNull(plinkInfo.countAlleles());
+        plinkInfo.close();
+    }
+
+    @Test
+    public void testFamInfo() {
+        assertEquals(505, famInfo.getIndNum());
+        assertEquals(3, popInfo.getPopNum());
+    }
+
+}
@@ -72,4 +72,13 @@ public class PopVarInfoTest {
         PopVarInfo p = new PopVarInfo("examples/data/example.test.var", popInfo);
     }
 
+    @Test
+    public void testCheckSelectedPopPairs() {
+        // the variance of Omega of {CEU,CHS} is not needed
+        int[][] popPairs = new PairInfo("examples/data/example.pairs", popInfo).getPopPairs();
+        PopVarInfo p = new PopVarInfo("examples/data/example.test.var", popInfo, popPairs);
+        assertEquals(1.633976, p.getPopVar(popPairs[0][0], popPairs[0][1]), 0.000001);
+        assertEquals(1.542796, p.getPopVar(popPairs[1][0], popPairs[1][1]), 0.000001);
+    }
+
 }
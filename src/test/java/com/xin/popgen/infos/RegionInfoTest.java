@@ -0,0 +1,89 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RegionInfoTest {
+
+    @Test
+    public void testParseRegions() {
+        RegionInfo regionInfo = new RegionInfo("22:20000000-25000000,21:14009151,X", null);
+        assertEquals(3, regionInfo.getRegionNum());
+        assertEquals("22", regionInfo.getChrom(0));
+        assertEquals(20000000, regionInfo.getStart(0));
+        assertEquals(25000000, regionInfo.getEnd(0));
+        assertEquals(14009151, regionInfo.getStart(1));
+        assertEquals(14009151, regionInfo.getEnd(1));
+        assertEquals("X", regionInfo.getChrom(2));
+        assertEquals(1, regionInfo.getStart(2));
+        assertEquals(Integer.MAX_VALUE, regionInfo.getEnd(2));
+    }
+
+    @Test
+    public void testMergeRegions() {
+        RegionInfo regionInfo = new RegionInfo("1:300-400,1:100-200,1:150-250,1:251-260", null);
+        assertEquals(2, regionInfo.getRegionNum());
+        assertEquals(100, regionInfo.getStart(0));
+        assertEquals(260, regionInfo.getEnd(0));
+        assertEquals(300, regionInfo.getStart(1));
+        assertEquals(400, regionInfo.getEnd(1));
+    }
+
+    @Test
+    public void testContains() {
+        RegionInfo regionInfo = new RegionInfo("1:100-200,1:300-400,2", null);
+        byte[] chrom1 = "1".getBytes(StandardCharsets.US_ASCII);
+        byte[] chrom2 = "x2".getBytes(StandardCharsets.US_ASCII);
+        assertTrue(regionInfo.contains(chrom1, 0, 1, 100));
+        assertTrue(regionInfo.contains(chrom1, 0, 1, 350));
+        assertFalse(regionInfo.contains(chrom1, 0, 1, 250));
+        assertFalse(regionInfo.contains(chrom1, 0, 1, 99));
+        assertTrue(regionInfo.contains(chrom2, 1, 1, 123456789));
+        assertFalse(regionInfo.contains(chrom2, 0, 2, 1));
+    }
+
+    @Test
+    public void testReadRegionsFile() throws IOException {
+        File file = File.createTempFile("regions", ".txt");
+        file.deleteOnExit();
+        try (PrintWriter pw = new PrintWriter(file)) {
+            pw.println("# regions");
+            pw.println("22\t20000000\t25000000");
+            pw.println("21:14009151-14009151");
+        }
+        RegionInfo regionInfo = new RegionInfo(null, file.getPath());
+        assertEquals(2, regionInfo.getRegionNum());
+        assertEquals("22", regionInfo.getChrom(0));
+        assertEquals(25000000, regionInfo.getEnd(0));
+        assertEquals("21", regionInfo.getChrom(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRegion() {
+        new RegionInfo("1:200-100", null);
+    }
+
+}
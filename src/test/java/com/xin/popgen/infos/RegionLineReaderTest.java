@@ -0,0 +1,83 @@
+/*
+    Copyright 2018 Xin Huang
+
+    Licensed under the Apache License, Version 2.0 (the "License");
+    you may not use this file except in compliance with the License.
+    You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+    Unless required by applicable law or agreed to in writing, software
+    distributed under the License is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+    See the License for the specific language governing permissions and
+    limitations under the License.
+*/
+package com.xin.popgen.infos;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+
+public class RegionLineReaderTest {
+
+    private final String countFileName = "examples/compressed_data/example.regions.count.gz";
+
+    @Test
+    public void testReadIndexedFile() throws IOException {
+        RegionInfo regionInfo = new RegionInfo("22:20000000-25000000,21:14009151", null);
+        ArrayList<String> lines = readLines(RegionLineReader.open(countFileName, 1024, regionInfo));
+        // header, 1 SNP on chromosome 21 and 37 SNPs on chromosome 22
+        assertEquals(39, lines.size());
+        assertEquals('#', lines.get(0).charAt(0));
+        assertEquals("21\t14009151\trs7282547", lines.get(1).substring(0, 21));
+        assertEquals("22", lines.get(2).substring(0, 2));
+    }
+
+    @Test
+    public void testIndexedFileIsSameAsScan() throws IOException {
+        // the same file without the index is scanned
+        File file = File.createTempFile("regions", ".count");
+        file.deleteOnExit();
+        try (InputStream in = Info.openInputStream(countFileName); OutputStream out = new FileOutputStream(file)) {
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) != -1) out.write(buf, 0, n);
+        }
+        String regions = "22:16000000-17000000,21:14009151-15000000,22:30000000-31000000,Y";
+        ArrayList<String> indexed = readLines(RegionLineReader.open(countFileName, 1024,
+                new RegionInfo(regions, null)));
+        ArrayList<String> scanned = readLines(RegionLineReader.open(file.getPath(), 1024,
+                new RegionInfo(regions, null)));
+        assertEquals(scanned, indexed);
+    }
+
+    @Test
+    public void testReadIndexedVcf() throws IOException {
+        RegionInfo regionInfo = new RegionInfo("15:25903913", null);
+        ArrayList<String> lines = readLines(RegionLineReader.open(
+                "examples/compressed_data/example.candidates.bgzf.vcf.gz", 1024, regionInfo));
+        String last = lines.get(lines.size() - 1);
+        assertEquals("15\t25903913\trs1800407", last.substring(0, 21));
+        assertEquals('#', lines.get(lines.size() - 2).charAt(0));
+    }
+
+    private static ArrayList<String> readLines(ByteLineReader reader) throws IOException {
+        ArrayList<String> lines = new ArrayList<>();
+        int length;
+        while ((length = reader.readLine()) != -1) {
+            lines.add(new String(reader.buffer(), reader.start(), length, StandardCharsets.US_ASCII));
+        }
+        reader.close();
+        return lines;
+    }
+
+}
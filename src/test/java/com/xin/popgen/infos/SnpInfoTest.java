@@ -36,4 +36,15 @@ public class SnpInfoTest {
         gzSnpInfo.close();
     }
 
+    @Test
+    public void testNext() {
+        SnpInfo info = new SnpInfo("examples/data/example.snp");
+        ByteSlice slice = new ByteSlice();
+        info.next(slice);
+        assertEquals("1\t908247\trs13303118\tT\tG", slice.toString());
+        info.next(slice);
+        assertEquals("1\t1357056\trs35958305\tT\tG", slice.toString());
+        info.close();
+    }
+
 }
@@ -72,4 +72,12 @@ public class TimeInfoTest {
         TimeInfo t = new TimeInfo("examples/data/example.test.time", popInfo);
     }
 
+    @Test
+    public void testCheckSelectedPopPairs() {
+        int[][] popPairs = new PairInfo("examples/data/example.pairs", popInfo).getPopPairs();
+        TimeInfo t = new TimeInfo("examples/data/example.time", popInfo, popPairs);
+        assertEquals(5000, t.getTime(popPairs[0][0], popPairs[0][1]));
+        assertEquals(5000, t.getTime(popPairs[1][0], popPairs[1][1]));
+    }
+
 }
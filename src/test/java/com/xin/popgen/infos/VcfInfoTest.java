@@ -17,7 +17,10 @@ package com.xin.popgen.infos;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class VcfInfoTest {
 
@@ -65,4 +68,38 @@ public class VcfInfoTest {
         gzVcfInfo.close();
     }
 
+    @Test
+    public void testCountAllelesIntoArray() {
+        int[] alleleCounts = new int[2*popInfo.getPopNum()];
+        VcfInfo info = new VcfInfo("examples/data/example.candidates.vcf", indInfo, popInfo, true);
+        // rs1800407
+        assertTrue(info.countAlleles(alleleCounts));
+        assertArrayEquals(new int[]{290, 0, 207, 17, 486, 4}, alleleCounts);
+        assertEquals("15\t25903913\trs1800407\tC\tT", info.getSnpInfo());
+        // rs12913832
+        assertTrue(info.countAlleles(alleleCounts));
+        assertArrayEquals(new int[]{294, 0, 47, 177, 491, 1}, alleleCounts);
+        assertFalse(info.countAlleles(alleleCounts));
+        info.close();
+    }
+
+    @Test
+    public void testSplit() {
+        assertTrue(vcfInfo.isSplittable());
+        assertFalse(gzVcfInfo.isSplittable());
+        CountInfo[] ranges = vcfInfo.split(2);
+        assertEquals(2, ranges.length);
+        int[] alleleCounts = new int[6];
+        assertTrue(ranges[0].countAlleles(alleleCounts));
+        assertArrayEquals(new int[]{290, 0, 207, 17, 486, 4}, alleleCounts);
+        assertEquals("15\t25903913\trs1800407\tC\tT", ranges[0].getSnpInfo());
+        assertFalse(ranges[0].countAlleles(alleleCounts));
+        assertTrue(ranges[1].countAlleles(alleleCounts));
+        assertEquals("15\t26039213\trs12913832\tA\tG", ranges[1].getSnpInfo());
+        assertFalse(ranges[1].countAlleles(alleleCounts));
+        for (CountInfo range:ranges) range.close();
+        vcfInfo.close();
+        gzVcfInfo.close();
+    }
+
 }
@@ -20,6 +20,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import static org.hamcrest.CoreMatchers.allOf;
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.junit.Assert.assertEquals;
 
 public class ComputeDiffTest {
@@ -35,7 +37,9 @@ public class ComputeDiffTest {
     @Test
     public void testComputeDiff() {
         thrown.expect(com.beust.jcommander.ParameterException.class);
-        thrown.expectMessage("The following options are required: [--time], [--output], [--var]");
+        // the order of the options in the message depends on the order of the fields
+        thrown.expectMessage(allOf(containsString("The following options are required"),
+                containsString("[--time]"), containsString("[--var]"), containsString("[--output]")));
         jc.parse("compute-diff", "--geno", "examples/data/example.geno");
 
         jc.parse("compute-diff", "--vcf", "examples/data/example.vcf",
@@ -55,4 +59,94 @@ public class ComputeDiffTest {
         assertEquals(diff.outputFileName, "examples/data/example.diff");
     }
 
+    @Test
+    public void testThreads() {
+        jc.parse("compute-diff", "--count", "examples/data/example.count",
+                "--var", "examples/results/example.var",
+                "--time", "examples/data/example.time",
+                "--threads", "4",
+                "--output", "examples/data/example.diff");
+        assertEquals(4, diff.threads);
+    }
+
+    @Test
+    public void testThreadsNotPositive() {
+        thrown.expect(com.beust.jcommander.ParameterException.class);
+        thrown.expectMessage("Parameter --threads should be a positive integer (found 0)");
+        jc.parse("compute-diff", "--count", "examples/data/example.count",
+                "--var", "examples/results/example.var",
+                "--time", "examples/data/example.time",
+                "--threads", "0",
+                "--output", "examples/data/example.diff");
+    }
+
+    @Test
+    public void testMedianMethodNotAccepted() {
+        // --median-method only belongs to compute-var
+        thrown.expect(com.beust.jcommander.ParameterException.class);
+        thrown.expectMessage("--median-method");
+        jc.parse("compute-diff", "--count", "examples/data/example.count",
+                "--var", "examples/results/example.var",
+                "--time", "examples/data/example.time",
+                "--median-method", "tdigest",
+                "--output", "examples/data/example.diff");
+    }
+
+    @Test
+    public void testOutputFormat() {
+        jc.parse("compute-diff", "--count", "examples/data/example.count",
+                "--var", "examples/results/example.var",
+                "--time", "examples/data/example.time",
+                "--output-format", "binary",
+                "--output", "examples/data/example.diff");
+        assertEquals("binary", diff.outputFormat);
+    }
+
+    @Test
+    public void testOutputFormatNotSupported() {
+        thrown.expect(com.beust.jcommander.ParameterException.class);
+        thrown.expectMessage("Parameter --output-format should be text, wide or binary (found tsv)");
+        jc.parse("compute-diff", "--count", "examples/data/example.count",
+                "--var", "examples/results/example.var",
+                "--time", "examples/data/example.time",
+                "--output-format", "tsv",
+                "--output", "examples/data/example.diff");
+    }
+
+    @Test
+    public void testFilters() {
+        jc.parse("compute-diff", "--count", "examples/data/example.count",
+                "--var", "examples/results/example.var",
+                "--time", "examples/data/example.time",
+                "--max-pvalue", "0.01",
+                "--min-delta", "6.5",
+                "--top-k", "100",
+                "--output", "examples/data/example.diff");
+        assertEquals(0.01, diff.maxPvalue, 0);
+        assertEquals(6.5, diff.minDelta, 0);
+        assertEquals(100, diff.topK.intValue());
+    }
+
+    @Test
+    public void testMaxPvalueOutOfRange() {
+        thrown.expect(com.beust.jcommander.ParameterException.class);
+        thrown.expectMessage("Parameter --max-pvalue should be between 0 and 1 (found 1.5)");
+        jc.parse("compute-diff", "--count", "examples/data/example.count",
+                "--var", "examples/results/example.var",
+                "--time", "examples/data/example.time",
+                "--max-pvalue", "1.5",
+                "--output", "examples/data/example.diff");
+    }
+
+    @Test
+    public void testMinDeltaNegative() {
+        thrown.expect(com.beust.jcommander.ParameterException.class);
+        thrown.expectMessage("Parameter --min-delta should be a non-negative number (found -1)");
+        jc.parse("compute-diff", "--count", "examples/data/example.count",
+                "--var", "examples/results/example.var",
+                "--time", "examples/data/example.time",
+                "--min-delta", "-1",
+                "--output", "examples/data/example.diff");
+    }
+
 }
@@ -51,6 +51,22 @@ public class ComputeVarTest {
         assertEquals(var.outputFileName, "examples/data/example.var");
     }
 
+    @Test
+    public void testPairs() {
+        jc.parse("compute-var", "--count", "examples/data/example.count",
+                                        "--pairs", "examples/data/example.pairs",
+                                        "--threads", "4",
+                                        "--output", "examples/data/example.var");
+        assertEquals(var.pairFileName, "examples/data/example.pairs");
+        assertEquals(4, var.threads);
+    }
+
+    @Test
+    public void testMedianMethodValidator() {
+        thrown.expectMessage("Parameter --median-method should be tdigest, exact or histogram (found median)");
+        jc.parse("compute-var", "--median-method", "median");
+    }
+
     @Test
     public void testFileValidator1() {
         thrown.expectMessage("Parameter --geno: File test.geno does not exist");